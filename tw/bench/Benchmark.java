@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2017, Hisao Tamaki
+ */
+
+package tw.bench;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * A measured operation, in the manner of a JMH benchmark method.
+ * {@code setup} is called once before the measurement, outside of it,
+ * and {@code run} is called repeatedly in timed iterations: a number of
+ * warmup iterations whose results are discarded, followed by the
+ * measured ones.
+ * The values returned by {@code run} are folded into a sink so that
+ * the JIT compiler cannot eliminate the work.
+ * <p>
+ * Besides the time per operation, the bytes allocated per operation by
+ * the measuring thread and the collections performed during the
+ * measured iterations are reported, corresponding to the figures of
+ * {@code -prof gc} of JMH.
+ * Allocations made by other threads, such as the workers of a parallel
+ * decomposer, are not counted.
+ */
+public abstract class Benchmark {
+  final String name;
+  final String param;
+
+  private static volatile long sink;
+
+  public Benchmark(String name, String param) {
+    this.name = name;
+    this.param = param;
+  }
+
+  /**
+   * Prepares the state used by {@code run}; not measured
+   */
+  public void setup() {
+  }
+
+  /**
+   * Performs one operation
+   * @return a value depending on the result of the operation
+   */
+  public abstract long run();
+
+  /**
+   * Result of a measurement
+   */
+  public static class Result {
+    public String name;
+    public String param;
+    public int iterations;
+    public long operations;
+    public double nsPerOp;
+    public double nsPerOpError;
+    public double bytesPerOp;
+    public long gcCount;
+    public long gcTime;
+
+    /**
+     * @return the header line of the table printed by {@code toString}
+     */
+    public static String header() {
+      return String.format("%-44s %-32s %4s %14s %12s %14s %6s %7s",
+          "Benchmark", "Param", "Cnt", "ns/op", "Error",
+          "B/op", "gc", "gc.ms");
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%-44s %-32s %4d %14.1f %12.1f %14.1f %6d %7d",
+          name, param, iterations, nsPerOp, nsPerOpError,
+          bytesPerOp, gcCount, gcTime);
+    }
+
+    /**
+     * @return the result as a comma separated line
+     */
+    public String toCSV() {
+      return name + "," + param + "," + iterations + "," + operations +
+          "," + nsPerOp + "," + nsPerOpError + "," + bytesPerOp + "," +
+          gcCount + "," + gcTime;
+    }
+  }
+
+  /**
+   * Measures this benchmark
+   * @param warmups the number of warmup iterations
+   * @param iterations the number of measured iterations
+   * @param iterationMillis the duration of an iteration; an iteration
+   * performs at least one operation
+   * @return the result
+   */
+  public Result measure(int warmups, int iterations, long iterationMillis) {
+    setup();
+    for (int i = 0; i < warmups; i++) {
+      iterate(iterationMillis, null);
+    }
+
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    long[] samples = new long[2];
+    double[] nsPerOps = new double[iterations];
+    long operations = 0;
+    long nanos = 0;
+
+    long gcCount0 = gcCount();
+    long gcTime0 = gcTime();
+    long bytes0 = allocatedBytes(threads);
+    for (int i = 0; i < iterations; i++) {
+      iterate(iterationMillis, samples);
+      operations += samples[0];
+      nanos += samples[1];
+      nsPerOps[i] = (double) samples[1] / samples[0];
+    }
+    long bytes1 = allocatedBytes(threads);
+
+    Result result = new Result();
+    result.name = name;
+    result.param = param;
+    result.iterations = iterations;
+    result.operations = operations;
+    result.nsPerOp = (double) nanos / operations;
+    result.nsPerOpError = deviation(nsPerOps);
+    result.bytesPerOp = bytes0 < 0 ? Double.NaN :
+      (double) (bytes1 - bytes0) / operations;
+    result.gcCount = gcCount() - gcCount0;
+    result.gcTime = gcTime() - gcTime0;
+    return result;
+  }
+
+  /*
+   * runs the operation for the given duration;
+   * the number of operations and the elapsed nanoseconds
+   * are stored in samples, if not null
+   */
+  private void iterate(long millis, long[] samples) {
+    long limit = millis * 1000000L;
+    long h = 0;
+    long count = 0;
+    long t0 = System.nanoTime();
+    long elapsed;
+    do {
+      h = h * 31 + run();
+      count++;
+      elapsed = System.nanoTime() - t0;
+    } while (elapsed < limit);
+    sink ^= h;
+    if (samples != null) {
+      samples[0] = count;
+      samples[1] = elapsed;
+    }
+  }
+
+  private static double deviation(double[] values) {
+    if (values.length < 2) {
+      return 0;
+    }
+    double sum = 0;
+    for (double v: values) {
+      sum += v;
+    }
+    double mean = sum / values.length;
+    double sq = 0;
+    for (double v: values) {
+      sq += (v - mean) * (v - mean);
+    }
+    return Math.sqrt(sq / (values.length - 1));
+  }
+
+  private static long allocatedBytes(ThreadMXBean threads) {
+    if (threads instanceof com.sun.management.ThreadMXBean) {
+      com.sun.management.ThreadMXBean t =
+          (com.sun.management.ThreadMXBean) threads;
+      if (t.isThreadAllocatedMemorySupported() &&
+          t.isThreadAllocatedMemoryEnabled()) {
+        return t.getThreadAllocatedBytes(Thread.currentThread().getId());
+      }
+    }
+    return -1;
+  }
+
+  private static long gcCount() {
+    long count = 0;
+    for (GarbageCollectorMXBean gc:
+      ManagementFactory.getGarbageCollectorMXBeans()) {
+      count += Math.max(0, gc.getCollectionCount());
+    }
+    return count;
+  }
+
+  private static long gcTime() {
+    long time = 0;
+    for (GarbageCollectorMXBean gc:
+      ManagementFactory.getGarbageCollectorMXBeans()) {
+      time += Math.max(0, gc.getCollectionTime());
+    }
+    return time;
+  }
+}
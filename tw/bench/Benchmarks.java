@@ -0,0 +1,537 @@
+/*
+ * Copyright (c) 2017, Hisao Tamaki
+ */
+
+package tw.bench;
+
+import java.io.File;
+import java.io.PrintStream;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import tw.exact.Bag;
+import tw.exact.BlockSieve;
+import tw.exact.CompactBlockSieve;
+import tw.exact.Graph;
+import tw.exact.GreedyDecomposer;
+import tw.exact.IODecomposer;
+import tw.exact.LayeredSieve;
+import tw.exact.MainDecomposer;
+import tw.exact.SafeSeparator;
+import tw.exact.XBitSet;
+import tw.heuristic.ArraySet;
+import tw.heuristic.VertexSet;
+
+/**
+ * Benchmarks of the hot paths of the exact and heuristic solvers:
+ * the block sieves, component computation, safe separator tests,
+ * the vertex set implementations, the positive-instance driven
+ * dynamic programming on the largest bag, and the whole decomposition.
+ * <p>
+ * Each benchmark is run on each of the given graphs, which are either
+ * files in the PACE format or random graphs specified as
+ * {@code random:n:m:seed} and generated by {@code Graph.randomGraph}.
+ * The workloads of the sieve, component and set benchmarks are
+ * derived from the graph with a fixed seed: the entries of the sieves
+ * are pairs of a full component and its separator, obtained from
+ * random connected vertex sets, as the O-blocks of the decomposer,
+ * and the queries are random connected sets with their neighborhoods,
+ * as the I-blocks.
+ * <p>
+ * Usage: {@code java tw.bench.Benchmarks [options] [graph ...]} with
+ * the options
+ * <pre>
+ *   -f substring  run only the benchmarks whose names contain it
+ *   -w n          number of warmup iterations (default 3)
+ *   -i n          number of measured iterations (default 5)
+ *   -t ms         duration of an iteration (default 1000)
+ *   -s seed       seed for the workloads (default 1)
+ *   -csv          print the results as comma separated values
+ * </pre>
+ * Without graphs, a few instances from {@code test_instance} and a
+ * random graph are used.
+ */
+public class Benchmarks {
+  static final String[] DEFAULT_GRAPHS = {
+      "test_instance/dimacs_anna.gr",
+      "test_instance/ex001.gr",
+      "test_instance/RandomGNM_100_100.gr",
+      "random:40:100:1"
+  };
+
+  /* the numbers of sieve entries and queries generated per vertex */
+  static final int ENTRIES_PER_VERTEX = 8;
+  static final int QUERIES_PER_VERTEX = 4;
+
+  /* bound on the number of separators tested by the safe separator benchmark */
+  static final int MAX_SAFE_SEPARATOR_TESTS = 50;
+
+  static int warmups = 3;
+  static int iterations = 5;
+  static long iterationMillis = 1000;
+  static long seed = 1;
+  static String filter = null;
+  static boolean csv = false;
+
+  /**
+   * Workload derived from a graph
+   */
+  static class Workload {
+    String name;
+    Graph g;
+
+    /* the entries of the sieves: full components and their separators */
+    XBitSet[] components;
+    XBitSet[] separators;
+
+    /* the queries: connected sets and their neighborhoods */
+    XBitSet[] queries;
+    XBitSet[] queryNeighbors;
+
+    int targetWidth;
+
+    Workload(String name, Graph g, long seed) {
+      this.name = name;
+      this.g = g;
+
+      Random random = new Random(seed);
+      ArrayList<XBitSet> cs = new ArrayList<>();
+      ArrayList<XBitSet> ss = new ArrayList<>();
+      for (int i = 0; i < ENTRIES_PER_VERTEX * g.n; i++) {
+        XBitSet c = randomConnectedSet(random);
+        XBitSet sep = g.neighborSet(c);
+        if (sep.isEmpty()) {
+          continue;
+        }
+        for (XBitSet full: g.getFullComponents(sep)) {
+          cs.add(full);
+          ss.add(sep);
+          if (sep.cardinality() > targetWidth) {
+            targetWidth = sep.cardinality();
+          }
+        }
+      }
+      components = cs.toArray(new XBitSet[cs.size()]);
+      separators = ss.toArray(new XBitSet[ss.size()]);
+
+      queries = new XBitSet[QUERIES_PER_VERTEX * g.n];
+      queryNeighbors = new XBitSet[queries.length];
+      for (int i = 0; i < queries.length; i++) {
+        queries[i] = randomConnectedSet(random);
+        queryNeighbors[i] = g.neighborSet(queries[i]);
+      }
+    }
+
+    /*
+     * a connected set grown from a random vertex by adding random
+     * neighbors, of a random size up to a quarter of the vertices
+     */
+    private XBitSet randomConnectedSet(Random random) {
+      int size = 1 + random.nextInt(Math.max(1, g.n / 4));
+      int v = random.nextInt(g.n);
+      XBitSet set = new XBitSet(g.n);
+      set.set(v);
+      XBitSet frontier = (XBitSet) g.neighborSet(v).clone();
+      while (set.cardinality() < size && !frontier.isEmpty()) {
+        int[] fa = frontier.toArray();
+        int w = fa[random.nextInt(fa.length)];
+        set.set(w);
+        frontier.or(g.neighborSet(w));
+        frontier.andNot(set);
+      }
+      return set;
+    }
+
+    boolean isConnected() {
+      return g.isConnected(g.all);
+    }
+  }
+
+  static Graph loadGraph(String spec) {
+    if (spec.startsWith("random:")) {
+      String[] s = spec.split(":");
+      return Graph.randomGraph(Integer.parseInt(s[1]),
+          Integer.parseInt(s[2]), Integer.parseInt(s[3]));
+    }
+    return Graph.readGraph(new File(spec));
+  }
+
+  static String graphName(String spec) {
+    if (spec.startsWith("random:")) {
+      return spec;
+    }
+    String name = new File(spec).getName();
+    int i = name.lastIndexOf('.');
+    return i > 0 ? name.substring(0, i) : name;
+  }
+
+  /**
+   * Creates the benchmarks on a workload
+   */
+  static ArrayList<Benchmark> benchmarks(Workload w) {
+    ArrayList<Benchmark> list = new ArrayList<>();
+    String p = w.name + " n=" + w.g.n + " e=" + w.components.length;
+
+    list.add(new Benchmark("exact.BlockSieve.put", p) {
+      public long run() {
+        BlockSieve sieve = new BlockSieve(w.g.n, w.targetWidth,
+            w.targetWidth);
+        for (int i = 0; i < w.components.length; i++) {
+          sieve.put(w.components[i], w.separators[i]);
+        }
+        return sieve.size();
+      }
+    });
+
+    list.add(new SieveQuery("exact.BlockSieve.collectSuperblocks", p, w) {
+      BlockSieve create() {
+        return new BlockSieve(w.g.n, w.targetWidth, w.targetWidth);
+      }
+    });
+
+    list.add(new Benchmark("exact.CompactBlockSieve.put", p) {
+      public long run() {
+        BlockSieve sieve = new CompactBlockSieve(w.g.n, w.targetWidth,
+            w.targetWidth);
+        for (int i = 0; i < w.components.length; i++) {
+          sieve.put(w.components[i], w.separators[i]);
+        }
+        return sieve.size();
+      }
+    });
+
+    list.add(new SieveQuery("exact.CompactBlockSieve.collectSuperblocks",
+        p, w) {
+      BlockSieve create() {
+        return new CompactBlockSieve(w.g.n, w.targetWidth, w.targetWidth);
+      }
+    });
+
+    list.add(new Benchmark("exact.LayeredSieve.put", p) {
+      public long run() {
+        LayeredSieve sieve = new LayeredSieve(w.g.n, w.targetWidth);
+        for (int i = 0; i < w.components.length; i++) {
+          sieve.put(w.components[i], w.separators[i]);
+        }
+        return sieve.getSizes().length;
+      }
+    });
+
+    list.add(new Benchmark("exact.LayeredSieve.collectSuperblocks", p) {
+      LayeredSieve sieve;
+      ArrayList<XBitSet> result = new ArrayList<>();
+
+      public void setup() {
+        sieve = new LayeredSieve(w.g.n, w.targetWidth);
+        for (int i = 0; i < w.components.length; i++) {
+          sieve.put(w.components[i], w.separators[i]);
+        }
+      }
+
+      public long run() {
+        long h = 0;
+        for (int i = 0; i < w.queries.length; i++) {
+          result.clear();
+          sieve.collectSuperblocks(w.queries[i], w.queryNeighbors[i],
+              result);
+          h += result.size();
+        }
+        return h;
+      }
+    });
+
+    list.add(new Benchmark("exact.Graph.getComponents", p) {
+      public long run() {
+        long h = 0;
+        for (int i = 0; i < w.separators.length; i++) {
+          h += w.g.getComponents(w.separators[i]).size();
+        }
+        return h;
+      }
+    });
+
+    list.add(new Benchmark("exact.SafeSeparator.isSafeSeparator", p) {
+      SafeSeparator ss;
+      int count;
+
+      public void setup() {
+        ss = new SafeSeparator(w.g);
+        count = Math.min(w.separators.length, MAX_SAFE_SEPARATOR_TESTS);
+      }
+
+      public long run() {
+        long h = 0;
+        for (int i = 0; i < count; i++) {
+          if (ss.isSafeSeparator(w.separators[i])) {
+            h++;
+          }
+        }
+        return h;
+      }
+    });
+
+    list.add(new Benchmark("exact.XBitSet.setOps", p) {
+      public long run() {
+        XBitSet[] a = w.components;
+        XBitSet[] b = w.separators;
+        long h = 0;
+        for (int i = 0; i < a.length; i++) {
+          XBitSet x = a[i];
+          XBitSet y = b[(i * 7 + 1) % b.length];
+          h += x.unionWith(y).cardinality();
+          h += x.intersectWith(y).cardinality();
+          if (x.isSubset(y)) {
+            h++;
+          }
+          if (x.intersects(y)) {
+            h++;
+          }
+        }
+        return h;
+      }
+    });
+
+    list.add(new Benchmark("exact.XBitSet.fusedOps", p) {
+      public long run() {
+        XBitSet[] a = w.components;
+        XBitSet[] b = w.separators;
+        long h = 0;
+        for (int i = 0; i < a.length; i++) {
+          XBitSet x = a[i];
+          XBitSet y = b[(i * 7 + 1) % b.length];
+          h += x.unionCardinality(y);
+          h += x.intersectCardinality(y);
+          if (x.andNotIsEmpty(y)) {
+            h++;
+          }
+        }
+        return h;
+      }
+    });
+
+    list.add(new Benchmark("heuristic.VertexSet.setOps", p) {
+      VertexSet[] a;
+      VertexSet[] b;
+
+      public void setup() {
+        a = new VertexSet[w.components.length];
+        b = new VertexSet[w.separators.length];
+        for (int i = 0; i < a.length; i++) {
+          a[i] = new VertexSet(w.g.n, w.components[i].toArray());
+          b[i] = new VertexSet(w.g.n, w.separators[i].toArray());
+        }
+      }
+
+      public long run() {
+        long h = 0;
+        for (int i = 0; i < a.length; i++) {
+          VertexSet x = a[i];
+          VertexSet y = b[(i * 7 + 1) % b.length];
+          h += x.unionWith(y).cardinality();
+          h += x.intersectWith(y).cardinality();
+          if (x.isSubset(y)) {
+            h++;
+          }
+          if (x.intersects(y)) {
+            h++;
+          }
+        }
+        return h;
+      }
+    });
+
+    list.add(new Benchmark("heuristic.ArraySet.setOps", p) {
+      ArraySet[] a;
+      ArraySet[] b;
+
+      public void setup() {
+        a = new ArraySet[w.components.length];
+        b = new ArraySet[w.separators.length];
+        for (int i = 0; i < a.length; i++) {
+          a[i] = new ArraySet(w.components[i].toArray());
+          b[i] = new ArraySet(w.separators[i].toArray());
+        }
+      }
+
+      public long run() {
+        long h = 0;
+        for (int i = 0; i < a.length; i++) {
+          ArraySet x = a[i];
+          ArraySet y = b[(i * 7 + 1) % b.length];
+          h += x.unionWith(y).cardinality();
+          h += x.intersectWith(y).cardinality();
+          if (x.isSubset(y)) {
+            h++;
+          }
+          if (x.intersects(y)) {
+            h++;
+          }
+        }
+        return h;
+      }
+    });
+
+    list.add(new Benchmark("heuristic.XBitSet.setOps", p) {
+      tw.heuristic.XBitSet[] a;
+      tw.heuristic.XBitSet[] b;
+
+      public void setup() {
+        a = new tw.heuristic.XBitSet[w.components.length];
+        b = new tw.heuristic.XBitSet[w.separators.length];
+        for (int i = 0; i < a.length; i++) {
+          a[i] = new tw.heuristic.XBitSet(w.g.n,
+              w.components[i].toArray());
+          b[i] = new tw.heuristic.XBitSet(w.g.n,
+              w.separators[i].toArray());
+        }
+      }
+
+      public long run() {
+        long h = 0;
+        for (int i = 0; i < a.length; i++) {
+          tw.heuristic.XBitSet x = a[i];
+          tw.heuristic.XBitSet y = b[(i * 7 + 1) % b.length];
+          h += x.unionWith(y).cardinality();
+          h += x.intersectWith(y).cardinality();
+          if (x.isSubset(y)) {
+            h++;
+          }
+          if (x.intersects(y)) {
+            h++;
+          }
+        }
+        return h;
+      }
+    });
+
+    if (w.isConnected()) {
+      list.add(new Benchmark("exact.IODecomposer.decompose", p) {
+        Graph local;
+
+        /*
+         * the local graph of the largest bag left by the greedy
+         * decomposition and the safe separators, which is what
+         * MainDecomposer gives to the IODecomposer
+         */
+        public void setup() {
+          Bag whole = new Bag(w.g.copy());
+          new GreedyDecomposer(whole, GreedyDecomposer.Mode.fill).decompose();
+          whole.detectSafeSeparators();
+          whole.pack();
+          Bag largest = null;
+          for (Bag bag: whole.getNestedBags()) {
+            if (largest == null || bag.getWidth() > largest.getWidth()) {
+              largest = bag;
+            }
+          }
+          largest.makeRefinable();
+          local = largest.getGraph();
+        }
+
+        public long run() {
+          Bag bag = new Bag(local.copy());
+          bag.initializeForDecomposition();
+          IODecomposer mtd = new IODecomposer(bag, local.minDegree(),
+              local.n - 1);
+          mtd.decompose();
+          return bag.getWidth();
+        }
+      });
+    }
+
+    list.add(new Benchmark("exact.MainDecomposer.decompose", p) {
+      public long run() {
+        return MainDecomposer.decompose(w.g).width;
+      }
+    });
+
+    return list;
+  }
+
+  /**
+   * Queries on a sieve filled with the entries of a workload
+   */
+  static abstract class SieveQuery extends Benchmark {
+    Workload w;
+    BlockSieve sieve;
+    ArrayList<XBitSet> result = new ArrayList<>();
+
+    SieveQuery(String name, String param, Workload w) {
+      super(name, param);
+      this.w = w;
+    }
+
+    abstract BlockSieve create();
+
+    @Override
+    public void setup() {
+      sieve = create();
+      for (int i = 0; i < w.components.length; i++) {
+        sieve.put(w.components[i], w.separators[i]);
+      }
+    }
+
+    @Override
+    public long run() {
+      long h = 0;
+      for (int i = 0; i < w.queries.length; i++) {
+        result.clear();
+        sieve.collectSuperblocks(w.queries[i], w.queryNeighbors[i], result);
+        h += result.size();
+      }
+      return h;
+    }
+  }
+
+  public static void main(String[] args) {
+    ArrayList<String> specs = new ArrayList<>();
+    for (int i = 0; i < args.length; i++) {
+      if ("-f".equals(args[i]) && i + 1 < args.length) {
+        filter = args[++i];
+      }
+      else if ("-w".equals(args[i]) && i + 1 < args.length) {
+        warmups = Integer.parseInt(args[++i]);
+      }
+      else if ("-i".equals(args[i]) && i + 1 < args.length) {
+        iterations = Integer.parseInt(args[++i]);
+      }
+      else if ("-t".equals(args[i]) && i + 1 < args.length) {
+        iterationMillis = Long.parseLong(args[++i]);
+      }
+      else if ("-s".equals(args[i]) && i + 1 < args.length) {
+        seed = Long.parseLong(args[++i]);
+      }
+      else if ("-csv".equals(args[i])) {
+        csv = true;
+      }
+      else {
+        specs.add(args[i]);
+      }
+    }
+    if (specs.isEmpty()) {
+      for (String spec: DEFAULT_GRAPHS) {
+        specs.add(spec);
+      }
+    }
+
+    PrintStream out = System.out;
+    if (csv) {
+      out.println("benchmark,param,iterations,operations," +
+          "ns/op,error,B/op,gc.count,gc.ms");
+    }
+    else {
+      out.println(Benchmark.Result.header());
+    }
+    for (String spec: specs) {
+      Workload w = new Workload(graphName(spec), loadGraph(spec), seed);
+      for (Benchmark b: benchmarks(w)) {
+        if (filter != null && !b.name.contains(filter)) {
+          continue;
+        }
+        Benchmark.Result r = b.measure(warmups, iterations, iterationMillis);
+        out.println(csv ? r.toCSV() : r.toString());
+      }
+    }
+  }
+}
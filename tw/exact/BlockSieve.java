@@ -8,11 +8,14 @@ import java.io.PrintStream;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 public class BlockSieve{
   private static final String spaces64 =
     "                                                                ";
   public static final int MAX_CHILDREN_SIZE = 512;
+  public static final int SPLIT_DEPTH = 2;
   private Node root;
   private int n;
   private int last;
@@ -689,8 +692,15 @@ public class BlockSieve{
     last = (n - 1) / 64;
   }
 
+  /**
+   * For subclasses that override all the operations
+   * and so have no use of a trie of their own
+   */
+  protected BlockSieve(){
+  }
+
   public XBitSet put(XBitSet bs, XBitSet value){
-    long longs[] = bs.toLongArray();
+    long longs[] = bs.words();
     Node node = root, parent = null;
 
     int i = 0, j1 = 0;
@@ -843,14 +853,88 @@ public class BlockSieve{
 
   public void collectSuperblocks(
       XBitSet component, XBitSet neighbors, ArrayList< XBitSet > list){
-    root.filterSuperblocks(component.toLongArray(), 
-        neighbors.toLongArray(), 0, list);
+    root.filterSuperblocks(component.words(), 
+        neighbors.words(), 0, list);
+  }
+
+  public void collectSuperblocks(XBitSet component, XBitSet neighbors,
+      ArrayList< XBitSet > list, ForkJoinPool pool){
+    list.addAll(pool.invoke(new SuperblockTask(root,
+            component.words(), neighbors.words(), 0, 0)));
+  }
+
+  /**
+   * Fork-join version of {@code Node.filterSuperblocks}: the subtrees
+   * of the nodes within {@code SPLIT_DEPTH} from the root are
+   * filtered concurrently, the results being concatenated in the
+   * order the sequential traversal would list them.
+   * The trie must not be modified while the task runs.
+   */
+  private class SuperblockTask extends RecursiveTask< ArrayList< XBitSet > >{
+    private static final long serialVersionUID = 1L;
+
+    private Node node;
+    private long[] longs;
+    private long[] neighbors;
+    private int intersects;
+    private int depth;
+
+    SuperblockTask(Node node, long[] longs, long[] neighbors,
+        int intersects, int depth){
+      this.node = node;
+      this.longs = longs;
+      this.neighbors = neighbors;
+      this.intersects = intersects;
+      this.depth = depth;
+    }
+
+    @Override
+      protected ArrayList< XBitSet > compute(){
+        ArrayList< XBitSet > list = new ArrayList< >();
+        if(node.isLeaf() || depth >= SPLIT_DEPTH){
+          node.filterSuperblocks(longs, neighbors, intersects, list);
+          return list;
+        }
+
+        long mask = node.getMask();
+        long bits = 0;
+        if(node.index < longs.length){
+          bits = longs[node.index] & mask;
+        }
+
+        long neighb = 0;
+        if(node.index < neighbors.length){
+          neighb = neighbors[node.index] & mask;
+        }
+
+        ArrayList< SuperblockTask > subtasks = new ArrayList< >();
+        for(int i = node.size() - 1; i >= 0; i--){
+          long label = node.getLabelAt(i);
+          if(Long.compareUnsigned(bits, label) > 0){
+            break;
+          }
+          if((bits & ~label) == 0){
+            int intersects1 = intersects +
+              Long.bitCount(label & neighb);
+            if(intersects1 <= margin){
+              SuperblockTask task = new SuperblockTask(node.children[i],
+                  longs, neighbors, intersects1, depth + 1);
+              task.fork();
+              subtasks.add(task);
+            }
+          }
+        }
+        for(SuperblockTask task : subtasks){
+          list.addAll(task.join());
+        }
+        return list;
+      }
   }
 
   public void collectSubblocks(
       XBitSet component, XBitSet neighbors, ArrayList< XBitSet > list){
-    root.filterSubblocks(component.toLongArray(), 
-        neighbors.toLongArray(), 0, list);
+    root.filterSubblocks(component.words(), 
+        neighbors.words(), 0, list);
   }
 
   public int size(){
@@ -0,0 +1,294 @@
+/*
+ * Copyright (c) 2017, Hisao Tamaki and Hiromu Otsuka
+ */
+
+package tw.exact;
+
+import java.io.PrintStream;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A {@code BlockSieve} whose trie lives in flat primitive arrays
+ * instead of node objects.
+ * Keys are cut into 16 bit chunks, one trie level per chunk.
+ * A node is a block of consecutive slots in the arena
+ * {@code labels}/{@code targets}: the first slot of the block holds
+ * the number of children and the following ones the children in
+ * increasing order of labels, so that a filtering scan reads
+ * contiguous memory.
+ * Blocks have power-of-two sizes, and those freed by growing nodes
+ * are recycled.
+ * The target of a slot at the last level is an entry number, which
+ * indexes the arrays of values and their cardinalities; the values
+ * themselves are the instances passed to {@code put}, so no copies are
+ * made either on insertion or on queries.
+ */
+public class CompactBlockSieve extends BlockSieve{
+  private static final int CHUNK = 16;
+  private static final int CHUNKS_PER_WORD = 64 / CHUNK;
+  private static final int CHUNK_MASK = (1 << CHUNK) - 1;
+  private static final int INITIAL_SLOTS = 1 << 10;
+
+  private int targetWidth;
+  private int margin;
+  private int levels;
+
+  private char[] labels;
+  private int[] targets;
+  private int nSlots;
+  private int[] freeBlocks;
+  private int root;
+
+  private XBitSet[] values;
+  private int[] cardinalities;
+  private int size;
+
+  public CompactBlockSieve(int n, int targetWidth, int margin){
+    super(n, targetWidth, margin);
+    this.targetWidth = targetWidth;
+    this.margin = margin;
+    levels = ((n - 1) / 64 + 1) * CHUNKS_PER_WORD;
+    labels = new char[INITIAL_SLOTS];
+    targets = new int[INITIAL_SLOTS];
+    freeBlocks = new int[CHUNK + 2];
+    Arrays.fill(freeBlocks, -1);
+    values = new XBitSet[INITIAL_SLOTS];
+    cardinalities = new int[INITIAL_SLOTS];
+    root = allocate(0);
+  }
+
+  private static int chunk(long[] longs, int level){
+    int i = level / CHUNKS_PER_WORD;
+    if(i >= longs.length){
+      return 0;
+    }
+    return (int)(longs[i] >>> (level % CHUNKS_PER_WORD * CHUNK))
+      & CHUNK_MASK;
+  }
+
+  /**
+   * log of the size of the block holding a node with the given
+   * number of children, the header slot included
+   */
+  private static int blockLog(int count){
+    return 32 - Integer.numberOfLeadingZeros(count);
+  }
+
+  private int allocate(int log){
+    int block = freeBlocks[log];
+    if(block >= 0){
+      freeBlocks[log] = targets[block];
+    }
+    else{
+      block = nSlots;
+      nSlots += 1 << log;
+      if(nSlots > targets.length){
+        int length = Math.max(nSlots, targets.length * 2);
+        labels = Arrays.copyOf(labels, length);
+        targets = Arrays.copyOf(targets, length);
+      }
+    }
+    targets[block] = 0;
+    return block;
+  }
+
+  private void release(int block, int log){
+    targets[block] = freeBlocks[log];
+    freeBlocks[log] = block;
+  }
+
+  private int indexOf(int node, int label){
+    int low = node + 1;
+    int high = node + targets[node];
+    while(low <= high){
+      int mid = (low + high) >>> 1;
+      int l = labels[mid];
+      if(l < label){
+        low = mid + 1;
+      }
+      else if(l > label){
+        high = mid - 1;
+      }
+      else{
+        return mid;
+      }
+    }
+    return -(low + 1);
+  }
+
+  /**
+   * Inserts a child into the node at {@code node}, at slot
+   * {@code slot}, relocating the node when its block is full.
+   * @return the (possibly new) position of the node
+   */
+  private int insert(int node, int slot, int label, int target){
+    int count = targets[node];
+    int log = blockLog(count);
+    if(blockLog(count + 1) > log){
+      int node1 = allocate(log + 1);
+      System.arraycopy(labels, node, labels, node1, count + 1);
+      System.arraycopy(targets, node, targets, node1, count + 1);
+      release(node, log);
+      slot += node1 - node;
+      node = node1;
+    }
+    int end = node + count + 1;
+    System.arraycopy(labels, slot, labels, slot + 1, end - slot);
+    System.arraycopy(targets, slot, targets, slot + 1, end - slot);
+    labels[slot] = (char)label;
+    targets[slot] = target;
+    targets[node] = count + 1;
+    return node;
+  }
+
+  private int newEntry(XBitSet value){
+    if(size == values.length){
+      values = Arrays.copyOf(values, size * 2);
+      cardinalities = Arrays.copyOf(cardinalities, size * 2);
+    }
+    values[size] = value;
+    cardinalities[size] = value.cardinality();
+    return size++;
+  }
+
+  @Override
+    public XBitSet put(XBitSet bs, XBitSet value){
+      long[] longs = bs.words();
+      int node = root;
+      int parentSlot = -1;
+      for(int level = 0; level < levels; level++){
+        int label = chunk(longs, level);
+        int slot = indexOf(node, label);
+        if(slot >= 0){
+          if(level == levels - 1){
+            return values[targets[slot]];
+          }
+          parentSlot = slot;
+          node = targets[slot];
+          continue;
+        }
+        slot = -slot - 1;
+        int target;
+        if(level == levels - 1){
+          target = newEntry(value);
+        }
+        else{
+          target = allocate(0);
+        }
+        int node1 = insert(node, slot, label, target);
+        if(node1 != node){
+          slot += node1 - node;
+          if(parentSlot >= 0){
+            targets[parentSlot] = node1;
+          }
+          else{
+            root = node1;
+          }
+        }
+        parentSlot = slot;
+        node = target;
+      }
+      return null;
+    }
+
+  @Override
+    public void collectSuperblocks(
+        XBitSet component, XBitSet neighbors, ArrayList< XBitSet > list){
+      filterSuperblocks(root, 0, component.words(),
+          neighbors.words(), 0, list);
+    }
+
+  /**
+   * The queries on this sieve are not split; the pool is ignored.
+   */
+  @Override
+    public void collectSuperblocks(XBitSet component, XBitSet neighbors,
+        ArrayList< XBitSet > list, ForkJoinPool pool){
+      collectSuperblocks(component, neighbors, list);
+    }
+
+  private void filterSuperblocks(int node, int level, long[] longs,
+      long[] neighbors, int intersects, ArrayList< XBitSet > list){
+    int bits = chunk(longs, level);
+    int neighb = chunk(neighbors, level);
+    boolean leaf = level == levels - 1;
+    for(int s = node + targets[node]; s > node; s--){
+      int label = labels[s];
+      if(bits > label){
+        break;
+      }
+      if((bits & ~label) == 0){
+        int intersects1 = intersects + Integer.bitCount(label & neighb);
+        if(leaf){
+          int e = targets[s];
+          if(intersects1 + cardinalities[e] <= targetWidth + 1){
+            list.add(values[e]);
+          }
+        }
+        else if(intersects1 <= margin){
+          filterSuperblocks(targets[s], level + 1,
+              longs, neighbors, intersects1, list);
+        }
+      }
+    }
+  }
+
+  @Override
+    public void collectSubblocks(
+        XBitSet component, XBitSet neighbors, ArrayList< XBitSet > list){
+      filterSubblocks(root, 0, component.words(),
+          neighbors.words(), 0, list);
+    }
+
+  private void filterSubblocks(int node, int level, long[] longs,
+      long[] neighbors, int intersects, ArrayList< XBitSet > list){
+    int bits = chunk(longs, level);
+    int neighb = chunk(neighbors, level);
+    boolean leaf = level == levels - 1;
+    int end = node + targets[node];
+    for(int s = node + 1; s <= end; s++){
+      int label = labels[s];
+      if(bits < label){
+        break;
+      }
+      if((~bits & label) == 0){
+        int intersects1 = intersects + Integer.bitCount(label & neighb);
+        if(leaf){
+          int e = targets[s];
+          if(intersects1 + cardinalities[e] <= targetWidth + 1){
+            list.add(values[e]);
+          }
+        }
+        else if(intersects1 <= margin){
+          filterSubblocks(targets[s], level + 1,
+              longs, neighbors, intersects1, list);
+        }
+      }
+    }
+  }
+
+  @Override
+    public int size(){
+      return size;
+    }
+
+  @Override
+    public void dump(PrintStream ps){
+      dump(ps, root, 0, "");
+    }
+
+  private void dump(PrintStream ps, int node, int level, String indent){
+    for(int s = node + 1; s <= node + targets[node]; s++){
+      ps.println(indent + Integer.toBinaryString(labels[s]));
+      if(level == levels - 1){
+        ps.println(indent + "  " + values[targets[s]]);
+      }
+      else{
+        dump(ps, targets[s], level + 1, indent + "  ");
+      }
+    }
+  }
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2017, Hisao Tamaki
+ */
+
+package tw.exact;
+
+import java.util.Arrays;
+
+/**
+ * Computes connected components of induced subgraphs of a graph
+ * by word-parallel frontier expansion, working on scratch buffers
+ * owned by the finder so that no object is allocated per call.
+ * The components found by the last call of {@code find} are held
+ * as slices of the arena {@code components()}: component {@code i}
+ * occupies the words from {@code offset(i)} to
+ * {@code offset(i) + words() - 1}, in the increasing order of their
+ * smallest vertices.
+ * The open neighborhood of each component is held in the same way in
+ * {@code neighbors()}.
+ * <p>
+ * A finder is not thread-safe and not reentrant: the results of a call
+ * are overwritten by the next call.
+ * Use {@code Graph.componentFinder()} for the finder of the current
+ * thread.
+ */
+public class ComponentFinder {
+  private Graph g;
+  private int words;
+
+  private long[] rest;
+  private long[] frontier;
+  private long[] next;
+
+  private long[] components;
+  private long[] neighbors;
+  private int count;
+
+  public ComponentFinder(Graph g) {
+    this.g = g;
+    words = (g.n + 63) / 64;
+    rest = new long[words];
+    frontier = new long[words];
+    next = new long[words];
+    components = new long[words * 4];
+    neighbors = new long[words * 4];
+  }
+
+  /**
+   * Starts a computation on the subgraph induced by the given vertices
+   * @param vertices the words of the vertex set, possibly shorter than
+   * {@code words()}; {@code null} for all the vertices
+   */
+  public void reset(long[] vertices) {
+    if (vertices == null) {
+      for (int i = 0; i < words; i++) {
+        rest[i] = -1L;
+      }
+      if (g.n % 64 != 0) {
+        rest[words - 1] = (1L << g.n) - 1;
+      }
+    }
+    else {
+      int m = Math.min(vertices.length, words);
+      System.arraycopy(vertices, 0, rest, 0, m);
+      Arrays.fill(rest, m, words, 0);
+    }
+  }
+
+  /**
+   * Removes the given vertices from the subgraph to be decomposed
+   * @param set the words of the vertex set to be removed
+   */
+  public void remove(long[] set) {
+    remove(set, 0, set.length);
+  }
+
+  /**
+   * Removes the vertices in a slice of a word array
+   * @param set array holding the words of the vertex set
+   * @param offset start of the slice
+   * @param length length of the slice
+   */
+  public void remove(long[] set, int offset, int length) {
+    int m = Math.min(length, words);
+    for (int i = 0; i < m; i++) {
+      rest[i] &= ~set[offset + i];
+    }
+  }
+
+  /**
+   * Computes the connected components of the current subgraph
+   * @return the number of components
+   */
+  public int find() {
+    long[][] adj = g.neighborWords();
+    count = 0;
+    for (int i = 0; i < words; i++) {
+      while (rest[i] != 0) {
+        int base = count * words;
+        if (base + words > components.length) {
+          components = Arrays.copyOf(components, components.length * 2);
+          neighbors = Arrays.copyOf(neighbors, neighbors.length * 2);
+        }
+        Arrays.fill(components, base, base + words, 0);
+        Arrays.fill(neighbors, base, base + words, 0);
+        Arrays.fill(frontier, 0);
+
+        long bit = rest[i] & -rest[i];
+        rest[i] ^= bit;
+        components[base + i] = bit;
+        frontier[i] = bit;
+
+        boolean grown = true;
+        while (grown) {
+          Arrays.fill(next, 0);
+          for (int j = 0; j < words; j++) {
+            long f = frontier[j];
+            while (f != 0) {
+              long[] a = adj[j * 64 + Long.numberOfTrailingZeros(f)];
+              for (int k = 0; k < words; k++) {
+                next[k] |= a[k];
+              }
+              f &= f - 1;
+            }
+          }
+          grown = false;
+          for (int k = 0; k < words; k++) {
+            neighbors[base + k] |= next[k];
+            long added = next[k] & rest[k];
+            rest[k] ^= added;
+            components[base + k] |= added;
+            next[k] = added;
+            if (added != 0) {
+              grown = true;
+            }
+          }
+          long[] t = frontier;
+          frontier = next;
+          next = t;
+        }
+        for (int k = 0; k < words; k++) {
+          neighbors[base + k] &= ~components[base + k];
+        }
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * @return the number of words of a vertex set
+   */
+  public int words() {
+    return words;
+  }
+
+  /**
+   * @return the number of components found by the last {@code find}
+   */
+  public int count() {
+    return count;
+  }
+
+  /**
+   * @return the arena of the components
+   */
+  public long[] components() {
+    return components;
+  }
+
+  /**
+   * @return the arena of the neighborhoods of the components
+   */
+  public long[] neighbors() {
+    return neighbors;
+  }
+
+  /**
+   * @param i component number
+   * @return the start of the slice of the component in the arenas
+   */
+  public int offset(int i) {
+    return i * words;
+  }
+
+  /**
+   * Checks if the neighborhood of a component contains the given set
+   * @param i component number
+   * @param set array holding the words of the set
+   * @param offset start of the slice of the set
+   * @param length length of the slice
+   * @return {@code true} if the set is a subset of the neighborhood
+   */
+  public boolean neighborsContain(int i, long[] set, int offset, int length) {
+    int base = i * words;
+    int m = Math.min(length, words);
+    for (int k = 0; k < m; k++) {
+      if ((set[offset + k] & ~neighbors[base + k]) != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @param i component number
+   * @return the component as a new {@code XBitSet}
+   */
+  public XBitSet component(int i) {
+    return XBitSet.valueOf(components, i * words, words);
+  }
+
+  /**
+   * @param i component number
+   * @return the smallest vertex of the component
+   */
+  public int minVertex(int i) {
+    int base = i * words;
+    for (int k = 0; k < words; k++) {
+      if (components[base + k] != 0) {
+        return k * 64 + Long.numberOfTrailingZeros(components[base + k]);
+      }
+    }
+    return -1;
+  }
+}
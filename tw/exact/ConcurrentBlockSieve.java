@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2017, Hisao Tamaki and Hiromu Otsuka
+ */
+
+package tw.exact;
+
+import java.io.PrintStream;
+
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A {@code BlockSieve} that may be shared by threads.
+ * The entries are distributed over a number of stripes, each of which
+ * is an independent trie guarded by its own read-write lock.
+ * Writers of different stripes proceed in parallel and readers
+ * of a stripe share its lock, so that queries run alongside the
+ * insertions into the other stripes.
+ * A query can also be run on a {@code ForkJoinPool}, in which case the
+ * stripes, and the top levels of each trie, are searched concurrently.
+ */
+public class ConcurrentBlockSieve extends BlockSieve{
+  public static final int DEFAULT_STRIPES = 8;
+
+  private BlockSieve[] stripes;
+  private ReentrantReadWriteLock[] locks;
+
+  public ConcurrentBlockSieve(int n, int targetWidth, int margin){
+    this(n, targetWidth, margin, DEFAULT_STRIPES);
+  }
+
+  public ConcurrentBlockSieve(int n, int targetWidth, int margin,
+      int nStripes){
+    stripes = new BlockSieve[nStripes];
+    locks = new ReentrantReadWriteLock[nStripes];
+    for(int i = 0; i < nStripes; i++){
+      stripes[i] = new BlockSieve(n, targetWidth, margin);
+      locks[i] = new ReentrantReadWriteLock();
+    }
+  }
+
+  private int stripeOf(XBitSet bs){
+    int h = bs.hashCode();
+    h ^= (h >>> 16);
+    return (h & 0x7FFFFFFF) % stripes.length;
+  }
+
+  @Override
+    public XBitSet put(XBitSet bs, XBitSet value){
+      int i = stripeOf(bs);
+      locks[i].writeLock().lock();
+      try{
+        return stripes[i].put(bs, value);
+      }
+      finally{
+        locks[i].writeLock().unlock();
+      }
+    }
+
+  @Override
+    public void collectSuperblocks(
+        XBitSet component, XBitSet neighbors, ArrayList< XBitSet > list){
+      for(int i = 0; i < stripes.length; i++){
+        locks[i].readLock().lock();
+        try{
+          stripes[i].collectSuperblocks(component, neighbors, list);
+        }
+        finally{
+          locks[i].readLock().unlock();
+        }
+      }
+    }
+
+  @Override
+    public void collectSuperblocks(XBitSet component, XBitSet neighbors,
+        ArrayList< XBitSet > list, ForkJoinPool pool){
+      ArrayList< ArrayList< XBitSet > > lists =
+        collectInParallel(component, neighbors, pool);
+      for(ArrayList< XBitSet > l : lists){
+        list.addAll(l);
+      }
+    }
+
+  private ArrayList< ArrayList< XBitSet > > collectInParallel(
+      XBitSet component, XBitSet neighbors, ForkJoinPool pool){
+    ArrayList< ArrayList< XBitSet > > lists =
+      new ArrayList< >(stripes.length);
+    for(int i = 0; i < stripes.length; i++){
+      lists.add(new ArrayList< >());
+    }
+    pool.invoke(new RecursiveAction(){
+      @Override
+        protected void compute(){
+          StripeQuery[] queries = new StripeQuery[stripes.length];
+          for(int i = 0; i < stripes.length; i++){
+            queries[i] =
+              new StripeQuery(i, component, neighbors, lists.get(i));
+          }
+          invokeAll(queries);
+        }
+    });
+    return lists;
+  }
+
+  /**
+   * Query on a single stripe, holding its read lock
+   * while the subtrees are searched by forked tasks
+   */
+  private class StripeQuery extends RecursiveAction{
+    private static final long serialVersionUID = 1L;
+
+    private int i;
+    private XBitSet component;
+    private XBitSet neighbors;
+    private ArrayList< XBitSet > list;
+
+    StripeQuery(int i, XBitSet component, XBitSet neighbors,
+        ArrayList< XBitSet > list){
+      this.i = i;
+      this.component = component;
+      this.neighbors = neighbors;
+      this.list = list;
+    }
+
+    @Override
+      protected void compute(){
+        locks[i].readLock().lock();
+        try{
+          stripes[i].collectSuperblocks(component, neighbors, list,
+              getPool());
+        }
+        finally{
+          locks[i].readLock().unlock();
+        }
+      }
+  }
+
+  @Override
+    public void collectSubblocks(
+        XBitSet component, XBitSet neighbors, ArrayList< XBitSet > list){
+      for(int i = 0; i < stripes.length; i++){
+        locks[i].readLock().lock();
+        try{
+          stripes[i].collectSubblocks(component, neighbors, list);
+        }
+        finally{
+          locks[i].readLock().unlock();
+        }
+      }
+    }
+
+  @Override
+    public int size(){
+      int size = 0;
+      for(int i = 0; i < stripes.length; i++){
+        locks[i].readLock().lock();
+        try{
+          size += stripes[i].size();
+        }
+        finally{
+          locks[i].readLock().unlock();
+        }
+      }
+      return size;
+    }
+
+  @Override
+    public void dump(PrintStream ps){
+      for(int i = 0; i < stripes.length; i++){
+        locks[i].readLock().lock();
+        try{
+          stripes[i].dump(ps);
+        }
+        finally{
+          locks[i].readLock().unlock();
+        }
+      }
+    }
+}
@@ -0,0 +1,368 @@
+/*
+ * Copyright (c) 2017, Hisao Tamaki
+ */
+
+package tw.exact;
+
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Statistics of the search done by {@code IODecomposer}s:
+ * the numbers of the blocks, PMCs and plugins processed, the sieve
+ * queries and their hits, and the time and allocated bytes spent
+ * on each target width.
+ * <p>
+ * The statistics are collected only when enabled at run time by
+ * {@code enable}, which the option {@code --stats-interval} of
+ * {@code MainDecomposer} does; otherwise {@code get} returns
+ * {@code null} and the decomposer skips the counting.
+ * When enabled, the statistics are registered as an MBean
+ * under {@code tw.exact:type=DecomposerStats} and, if an interval is
+ * given, snapshots are written periodically, as JSON objects one per
+ * line, by a daemon thread.
+ * The rates in a snapshot are those since the previous snapshot of
+ * the same kind, the written ones and those read through the MBean
+ * being measured separately.
+ * The counters may be updated by the worker threads of
+ * the parallel mode.
+ */
+public class DecomposerStats implements DecomposerStatsMBean {
+  private static volatile DecomposerStats stats;
+
+  final LongAdder iBlocks = new LongAdder();
+  final LongAdder oBlocks = new LongAdder();
+  final LongAdder blocks = new LongAdder();
+  final LongAdder pmcsCreated = new LongAdder();
+  final LongAdder pmcsValid = new LongAdder();
+  final LongAdder pmcsEndorsed = new LongAdder();
+  final LongAdder plugins = new LongAdder();
+  final LongAdder sieveQueries = new LongAdder();
+  final LongAdder sieveHits = new LongAdder();
+
+  private volatile int bagSize;
+  private volatile int targetWidth;
+
+  /* width -> {milliseconds, allocated bytes, iterations} */
+  private final TreeMap<Integer, long[]> widths = new TreeMap<>();
+
+  private final long startTime;
+  private final long startBytes;
+
+  private PrintStream out;
+  private long interval;
+
+  /* the counter values at the previous snapshot, for the rates */
+  private static class Baseline {
+    long time;
+    long[] counts;
+
+    Baseline(long time, long[] counts) {
+      this.time = time;
+      this.counts = counts;
+    }
+  }
+
+  /* baselines of the written snapshots and of those read through JMX */
+  private final Baseline emitted;
+  private final Baseline read;
+
+  private DecomposerStats(PrintStream out, long interval) {
+    this.out = out;
+    this.interval = interval;
+    startTime = System.currentTimeMillis();
+    startBytes = allocatedBytesOfAllThreads();
+    emitted = new Baseline(startTime, counts());
+    read = new Baseline(startTime, emitted.counts);
+  }
+
+  /**
+   * Enables the collection of statistics
+   * @param path file to which the snapshots are appended;
+   * {@code null} for the standard error
+   * @param interval interval between snapshots in milliseconds;
+   * 0 for no periodic snapshots
+   * @return the statistics
+   * @throws FileNotFoundException if the file cannot be opened
+   */
+  public static synchronized DecomposerStats enable(String path,
+      long interval) throws FileNotFoundException {
+    PrintStream out = path == null ? System.err :
+      new PrintStream(new FileOutputStream(path, true), true);
+    stats = new DecomposerStats(out, interval);
+    stats.register();
+    if (interval > 0) {
+      Thread reporter = new Thread(stats::report, "DecomposerStats");
+      reporter.setDaemon(true);
+      reporter.start();
+    }
+    return stats;
+  }
+
+  /**
+   * @return the statistics, or {@code null} if not enabled
+   */
+  public static DecomposerStats get() {
+    return stats;
+  }
+
+  private void register() {
+    try {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      ObjectName name = new ObjectName("tw.exact:type=DecomposerStats");
+      if (server.isRegistered(name)) {
+        server.unregisterMBean(name);
+      }
+      server.registerMBean(this, name);
+    } catch (JMException e) {
+      System.err.println("DecomposerStats not registered: " + e);
+    }
+  }
+
+  private void report() {
+    while (true) {
+      try {
+        Thread.sleep(interval);
+      } catch (InterruptedException e) {
+        return;
+      }
+      emit();
+    }
+  }
+
+  /**
+   * Writes a snapshot
+   */
+  public void emit() {
+    String snapshot;
+    synchronized (this) {
+      snapshot = snapshot(emitted);
+    }
+    synchronized (out) {
+      out.println(snapshot);
+    }
+  }
+
+  /**
+   * Records the start of the search for a target width
+   * @param bagSize the size of the bag being decomposed
+   * @param targetWidth the target width
+   * @return the marks to be passed to {@code endWidth}
+   */
+  long[] startWidth(int bagSize, int targetWidth) {
+    this.bagSize = bagSize;
+    this.targetWidth = targetWidth;
+    return new long[]{System.currentTimeMillis(),
+        allocatedBytesOfAllThreads()};
+  }
+
+  /**
+   * Records the end of the search for a target width
+   * @param targetWidth the target width
+   * @param marks the value returned by {@code startWidth}
+   */
+  void endWidth(int targetWidth, long[] marks) {
+    long time = System.currentTimeMillis() - marks[0];
+    long bytes = allocatedBytesOfAllThreads() - marks[1];
+    synchronized (widths) {
+      long[] w = widths.get(targetWidth);
+      if (w == null) {
+        w = new long[3];
+        widths.put(targetWidth, w);
+      }
+      w[0] += time;
+      w[1] += bytes;
+      w[2]++;
+    }
+  }
+
+  private long[] counts() {
+    return new long[]{
+        iBlocks.sum(), oBlocks.sum(), blocks.sum(),
+        pmcsCreated.sum(), pmcsValid.sum(), pmcsEndorsed.sum(),
+        plugins.sum(), sieveQueries.sum(), sieveHits.sum()
+    };
+  }
+
+  private static final String[] COUNT_NAMES = {
+      "iBlocks", "oBlocks", "blocks",
+      "pmcsCreated", "pmcsValid", "pmcsEndorsed",
+      "plugins", "sieveQueries", "sieveHits"
+  };
+
+  /*
+   * the bytes allocated by each live thread at the last reading, and
+   * the bytes of the threads terminated since, at their last readings
+   */
+  private final Map<Long, Long> threadBytes = new HashMap<>();
+  private long terminatedBytes;
+
+  /*
+   * total bytes allocated by the threads, which include the workers
+   * of the parallel mode while a decomposition runs; the threads that
+   * have terminated count by their last readings so that the total
+   * never decreases; -1 if not supported
+   */
+  private synchronized long allocatedBytesOfAllThreads() {
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+      return -1;
+    }
+    com.sun.management.ThreadMXBean t =
+        (com.sun.management.ThreadMXBean) threads;
+    if (!t.isThreadAllocatedMemorySupported() ||
+        !t.isThreadAllocatedMemoryEnabled()) {
+      return -1;
+    }
+    long[] ids = t.getAllThreadIds();
+    long[] bytes = t.getThreadAllocatedBytes(ids);
+    Map<Long, Long> live = new HashMap<>();
+    long sum = 0;
+    for (int i = 0; i < ids.length; i++) {
+      if (bytes[i] > 0) {
+        live.put(ids[i], bytes[i]);
+        sum += bytes[i];
+      }
+    }
+    for (Map.Entry<Long, Long> e: threadBytes.entrySet()) {
+      if (!live.containsKey(e.getKey())) {
+        terminatedBytes += e.getValue();
+      }
+    }
+    threadBytes.clear();
+    threadBytes.putAll(live);
+    return terminatedBytes + sum;
+  }
+
+  @Override
+  public synchronized String getSnapshot() {
+    return snapshot(read);
+  }
+
+  /*
+   * the snapshot with the rates since the baseline,
+   * which is then moved to the present
+   */
+  private String snapshot(Baseline base) {
+    long now = System.currentTimeMillis();
+    long[] counts = counts();
+    double seconds = Math.max(1, now - base.time) / 1000.0;
+
+    StringBuilder sb = new StringBuilder();
+    sb.append("{\"time\":").append(now);
+    sb.append(",\"elapsedMillis\":").append(now - startTime);
+    sb.append(",\"allocatedBytes\":").append(getAllocatedBytes());
+    sb.append(",\"bagSize\":").append(bagSize);
+    sb.append(",\"targetWidth\":").append(targetWidth);
+    for (int i = 0; i < counts.length; i++) {
+      sb.append(",\"").append(COUNT_NAMES[i]).append("\":")
+        .append(counts[i]);
+    }
+    sb.append(",\"rates\":{");
+    for (int i = 0; i < counts.length; i++) {
+      if (i > 0) {
+        sb.append(",");
+      }
+      sb.append("\"").append(COUNT_NAMES[i]).append("\":")
+        .append(Math.round((counts[i] - base.counts[i]) / seconds));
+    }
+    sb.append("},\"widths\":{");
+    synchronized (widths) {
+      boolean first = true;
+      for (Map.Entry<Integer, long[]> e: widths.entrySet()) {
+        if (!first) {
+          sb.append(",");
+        }
+        first = false;
+        long[] w = e.getValue();
+        sb.append("\"").append(e.getKey()).append("\":{\"millis\":")
+          .append(w[0]).append(",\"allocatedBytes\":").append(w[1])
+          .append(",\"iterations\":").append(w[2]).append("}");
+      }
+    }
+    sb.append("}}");
+
+    base.time = now;
+    base.counts = counts;
+    return sb.toString();
+  }
+
+  @Override
+  public long getIBlocks() {
+    return iBlocks.sum();
+  }
+
+  @Override
+  public long getOBlocks() {
+    return oBlocks.sum();
+  }
+
+  @Override
+  public long getBlocks() {
+    return blocks.sum();
+  }
+
+  @Override
+  public long getPmcsCreated() {
+    return pmcsCreated.sum();
+  }
+
+  @Override
+  public long getPmcsValid() {
+    return pmcsValid.sum();
+  }
+
+  @Override
+  public long getPmcsEndorsed() {
+    return pmcsEndorsed.sum();
+  }
+
+  @Override
+  public long getPlugins() {
+    return plugins.sum();
+  }
+
+  @Override
+  public long getSieveQueries() {
+    return sieveQueries.sum();
+  }
+
+  @Override
+  public long getSieveHits() {
+    return sieveHits.sum();
+  }
+
+  @Override
+  public int getBagSize() {
+    return bagSize;
+  }
+
+  @Override
+  public int getTargetWidth() {
+    return targetWidth;
+  }
+
+  @Override
+  public long getElapsedMillis() {
+    return System.currentTimeMillis() - startTime;
+  }
+
+  @Override
+  public long getAllocatedBytes() {
+    if (startBytes < 0) {
+      return -1;
+    }
+    return allocatedBytesOfAllThreads() - startBytes;
+  }
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2017, Hisao Tamaki
+ */
+
+package tw.exact;
+
+/**
+ * Management interface of {@code DecomposerStats}, through which
+ * the statistics of a running decomposition can be watched with
+ * a JMX client such as jconsole.
+ */
+public interface DecomposerStatsMBean {
+  long getIBlocks();
+  long getOBlocks();
+  long getBlocks();
+  long getPmcsCreated();
+  long getPmcsValid();
+  long getPmcsEndorsed();
+  long getPlugins();
+  long getSieveQueries();
+  long getSieveHits();
+  int getBagSize();
+  int getTargetWidth();
+  long getElapsedMillis();
+  long getAllocatedBytes();
+
+  /**
+   * @return the current snapshot as a JSON object
+   */
+  String getSnapshot();
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) 2017, Hisao Tamaki
+ */
+
+package tw.exact;
+
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads a graph in the {@code gr} format of PACE at the byte level.
+ * <p>
+ * A file, or the standard input redirected from a file, is mapped into
+ * memory; any other stream is read into a direct buffer. The integers
+ * are parsed from the bytes without creating strings.
+ * The edges are parsed twice: first to count the degrees, and then
+ * to fill the adjacency lists, laid out consecutively in the
+ * compressed sparse row format as they are held by the graph.
+ * The adjacency lists are in the order of the edges in the input,
+ * without the repetitions of edges and the loops.
+ */
+public class GraphReader {
+  private static final int INITIAL_BUFFER_SIZE = 1 << 16;
+
+  ByteBuffer buf;
+  int pos;
+  int limit;
+
+  GraphReader(ByteBuffer buf) {
+    this.buf = buf;
+    pos = buf.position();
+    limit = buf.limit();
+  }
+
+  /**
+   * Reads a graph from the given file in {@code gr} format.
+   * The vertex numbers 1~n in the gr file format are
+   * converted to 0~n-1 in the internal representation.
+   * @param file graph file in {@code gr} format
+   * @return the resulting {@code Graph} object
+   * @throws IOException if the reading fails
+   */
+  public static Graph readGraph(File file) throws IOException {
+    try (FileChannel fc = FileChannel.open(file.toPath(),
+        StandardOpenOption.READ)) {
+      ByteBuffer buf = map(fc);
+      if (buf == null) {
+        buf = readFully(fc);
+      }
+      return new GraphReader(buf).parse();
+    }
+  }
+
+  /**
+   * Reads a graph from the given stream in {@code gr} format.
+   * The vertex numbers 1~n in the gr file format are
+   * converted to 0~n-1 in the internal representation.
+   * @param is the input stream; if it is {@code System.in} and
+   * redirected from a file, the file is mapped
+   * @return the resulting {@code Graph} object
+   * @throws IOException if the reading fails
+   */
+  public static Graph readGraph(InputStream is) throws IOException {
+    ByteBuffer buf = null;
+    if (is == System.in) {
+      // the channel is not closed, as it would close the descriptor
+      buf = map(new FileInputStream(FileDescriptor.in).getChannel());
+    }
+    if (buf == null) {
+      buf = readFully(Channels.newChannel(is));
+    }
+    return new GraphReader(buf).parse();
+  }
+
+  /*
+   * the rest of the channel mapped into memory, or null if it cannot
+   * be mapped
+   */
+  private static ByteBuffer map(FileChannel fc) {
+    try {
+      long position = fc.position();
+      long size = fc.size() - position;
+      if (size <= 0 || size > Integer.MAX_VALUE) {
+        return null;
+      }
+      return fc.map(FileChannel.MapMode.READ_ONLY, position, size);
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  private static ByteBuffer readFully(ReadableByteChannel channel)
+      throws IOException {
+    ByteBuffer buf = ByteBuffer.allocateDirect(INITIAL_BUFFER_SIZE);
+    while (channel.read(buf) >= 0) {
+      if (!buf.hasRemaining()) {
+        ByteBuffer larger = ByteBuffer.allocateDirect(buf.capacity() * 2);
+        buf.flip();
+        larger.put(buf);
+        buf = larger;
+      }
+    }
+    buf.flip();
+    return buf;
+  }
+
+  Graph parse() {
+    skipComments();
+    if (pos >= limit || buf.get(pos) != 'p') {
+      throw new RuntimeException("!!No problem descrioption");
+    }
+    pos++;
+    skipSpaces();
+    if (pos + 2 > limit || buf.get(pos) != 't' || buf.get(pos + 1) != 'w') {
+      throw new RuntimeException("!!Not treewidth instance");
+    }
+    pos += 2;
+    int n = nextInt();
+    int m = nextInt();
+    int edgeStart = pos;
+
+    int[] offset = new int[n + 1];
+    for (int i = 0; i < m; i++) {
+      skipComments();
+      int u = nextInt() - 1;
+      int v = nextInt() - 1;
+      if (u < 0 || u >= n || v < 0 || v >= n) {
+        throw new RuntimeException("!!Vertex out of range at line " +
+            lineAt(pos) + ": " + (u + 1) + " " + (v + 1));
+      }
+      if (u != v) {
+        offset[u + 1]++;
+        offset[v + 1]++;
+      }
+    }
+    for (int v = 0; v < n; v++) {
+      offset[v + 1] += offset[v];
+    }
+
+    pos = edgeStart;
+    int[] next = new int[n];
+    System.arraycopy(offset, 0, next, 0, n);
+    int[] target = new int[offset[n]];
+    for (int i = 0; i < m; i++) {
+      skipComments();
+      int u = nextInt() - 1;
+      int v = nextInt() - 1;
+      if (u != v) {
+        target[next[u]++] = v;
+        target[next[v]++] = u;
+      }
+    }
+
+    // the repetitions are removed, compacting the lists in place
+    int[] mark = new int[n];
+    int k = 0;
+    int start = 0;
+    for (int v = 0; v < n; v++) {
+      int end = offset[v + 1];
+      offset[v] = k;
+      for (int i = start; i < end; i++) {
+        int w = target[i];
+        if (mark[w] != v + 1) {
+          mark[w] = v + 1;
+          target[k++] = w;
+        }
+      }
+      start = end;
+    }
+    offset[n] = k;
+
+    Graph g = new Graph(n);
+    g.setAdjacency(offset, k < target.length ?
+        Arrays.copyOf(target, k) : target);
+    return g;
+  }
+
+  /*
+   * skips the white spaces and the comment lines
+   */
+  private void skipComments() {
+    while (true) {
+      while (pos < limit && isSpace(buf.get(pos))) {
+        pos++;
+      }
+      if (pos >= limit || buf.get(pos) != 'c') {
+        return;
+      }
+      while (pos < limit && buf.get(pos) != '\n') {
+        pos++;
+      }
+    }
+  }
+
+  private void skipSpaces() {
+    while (pos < limit && isSpace(buf.get(pos))) {
+      pos++;
+    }
+  }
+
+  private int nextInt() {
+    skipSpaces();
+    if (pos >= limit) {
+      throw new RuntimeException("!!Unexpected end of input");
+    }
+    int value = 0;
+    int start = pos;
+    byte b;
+    while (pos < limit && (b = buf.get(pos)) >= '0' && b <= '9') {
+      value = value * 10 + (b - '0');
+      pos++;
+    }
+    if (pos == start) {
+      throw new RuntimeException("!!Number expected at byte " + pos);
+    }
+    return value;
+  }
+
+  /*
+   * the line number of the byte at the given position
+   */
+  private int lineAt(int position) {
+    int line = 1;
+    for (int i = buf.position(); i < position; i++) {
+      if (buf.get(i) == '\n') {
+        line++;
+      }
+    }
+    return line;
+  }
+
+  private static boolean isSpace(byte b) {
+    return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+  }
+}
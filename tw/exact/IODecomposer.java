@@ -1,718 +1,1255 @@
-/*
- * Copyright (c) 2017, Hisao Tamaki
- */
-
-package tw.exact;
-
-import java.io.File;
-
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
-import java.io.PrintStream;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.LinkedList;
-import java.util.Map;
-import java.util.Queue;
-import java.util.Set;
-
-public class IODecomposer {
-
-//  static final boolean VERBOSE = true;
-   private static final boolean VERBOSE = false;
-//   private static boolean DEBUG = true;
-  static boolean DEBUG = false;
-
-  Graph g;
-  
-  Bag currentBag;
-    
-  LayeredSieve oBlockSieve;
-
-  Queue<IBlock> readyQueue;
-
-  ArrayList<PMC> pendingEndorsers;
-
-//  Set<XBitSet> processed;
-
-  Map<XBitSet, Oblock> oBlockCache;
-
-  Map<XBitSet, Block> blockCache;
-  
-  Map<XBitSet, IBlock> iBlockCache;
-  
-  Set<XBitSet> pmcCache;
-  
-  int upperBound;
-  int lowerBound;
-  
-  int targetWidth;
-
-  PMC solution;
-  
-  SafeSeparator ss;
-
-  static int TIMEOUT_CHECK = 100;
-
-  public IODecomposer(Bag bag, 
-      int lowerBound, int upperBound) {
-
-    currentBag = bag;
-    g = bag.graph;
-    if (!g.isConnected(g.all)) {
-      System.err.println("graph must be connected, size = " + bag.size);
-    }
-    this.lowerBound = lowerBound;
-    this.upperBound = upperBound;
-    
-    ss = new SafeSeparator(g);
-  }
-  
-  public void decompose() {
-    blockCache = new HashMap<>();
-    iBlockCache = new HashMap<>();
-
-    pendingEndorsers = new ArrayList<>();
-    pmcCache = new HashSet<>();
-
-
-    while (targetWidth <= upperBound) {
-      if (VERBOSE) {
-        System.out.println("deompose loop, n = " + currentBag.size + 
-            ", targetWidth = " + targetWidth);
-      }
-
-
-      if (currentBag.size <= targetWidth + 1) {
-        currentBag.nestedBags = null;
-        currentBag.separators = null;
-        return;
-      }
-
-      // endorserMap = new HashMap<>();
-
-      oBlockSieve = new LayeredSieve(g.n, targetWidth);
-      oBlockCache = new HashMap<>();
-
-      readyQueue = new LinkedList<>();
-
-      readyQueue.addAll(iBlockCache.values());
-
-      for (int v = 0; v < g.n; v++) {
-        XBitSet cnb = (XBitSet) g.neighborSet[v].clone();
-        cnb.set(v);
-
-        if (DEBUG) {
-          System.out.println(v + ":" + cnb.cardinality() + ", " + cnb);
-        }
-
-        if (cnb.cardinality() > targetWidth + 1) {
-          continue;
-        }
-
-        //      if (!pmcCache.contains(cnb)) {
-        PMC pmc = new PMC(cnb, getBlocks(cnb));
-        if (pmc.isValid) {
-          //          pmcCache.add(cnb);
-          if (pmc.isReady()) {
-            pmc.endorse();
-          }
-          else {
-            pendingEndorsers.add(pmc);
-          }
-          //        }
-        }
-      }
-
-      while (true) {
-        while (!readyQueue.isEmpty()) {
-
-          IBlock ready = readyQueue.remove();
-
-          ready.process();
-
-          if (solution != null) {
-            log("solution found");
-            Bag bag = currentBag.addNestedBag(solution.vertexSet); 
-            solution.carryOutDecomposition(bag);
-            return;
-          }
-        }
-
-        if (!pendingEndorsers.isEmpty()) {
-          log("queue empty");
-        }
-
-        ArrayList<PMC> endorsers = pendingEndorsers;
-        pendingEndorsers = new ArrayList<PMC>();
-        for (PMC endorser : endorsers) {
-          endorser.process();
-          if (solution != null) {
-            log("solution found");
-            Bag bag = currentBag.addNestedBag(solution.vertexSet); 
-            solution.carryOutDecomposition(bag);
-            return;
-          }
-        }
-        if (readyQueue.isEmpty()) {
-          break;
-        }
-      }
-
-      log("failed");
-
-      targetWidth++;
-    }
-    return;
-  }
-
-  boolean crossesOrSubsumes(XBitSet separator1, XBitSet endorsed, XBitSet separator2) {
-    ArrayList<XBitSet> components = g.getComponents(separator1);
-    for (XBitSet compo: components) {
-      if (endorsed.isSubset(compo)) {
-        // subsumes
-        return true;
-      }
-    }
-    // test crossing
-    XBitSet diff = separator2.subtract(separator1);
-    for (XBitSet compo: components) {
-      if (diff.isSubset(compo)) {
-        return false;
-      }
-    }
-    return true;
-  }
-
-  Block getBlock(XBitSet component) {
-    Block block = blockCache.get(component);
-    if (block == null) {
-      block = new Block(component);
-      blockCache.put(component, block);
-    }
-    return block;
-  }
-
-  void makeIBlock(XBitSet component, PMC endorser) {
-    IBlock iBlock = iBlockCache.get(component);
-    if (iBlock == null) {
-      Block block = getBlock(component);
-      iBlock = new IBlock(block, endorser);
-      blockCache.put(component, block);
-    }
-  }
-
-  IBlock getIBlock(XBitSet component) {
-    return iBlockCache.get(component);
-  }
-
-  boolean isFullComponent(XBitSet component, XBitSet sep) {
-    for (int v = sep.nextSetBit(0); v >= 0; v = sep.nextSetBit(v + 1)) {
-      if (component.isDisjoint(g.neighborSet[v])) {
-        return false;
-      }
-    }
-    return true;
-  }
-
-  ArrayList<Block> getBlocks(XBitSet separator) {
-    ArrayList<Block> result = new ArrayList<Block>();
-    XBitSet rest = g.all.subtract(separator);
-    for (int v = rest.nextSetBit(0); v >= 0; v = rest.nextSetBit(v + 1)) {
-      XBitSet c = g.neighborSet[v].subtract(separator);
-      XBitSet toBeScanned = (XBitSet) c.clone();
-      c.set(v);
-      while (!toBeScanned.isEmpty()) {
-        XBitSet save = (XBitSet) c.clone();
-        for (int w = toBeScanned.nextSetBit(0); w >= 0; w = toBeScanned
-            .nextSetBit(w + 1)) {
-          c.or(g.neighborSet[w]);
-        }
-        c.andNot(separator);
-        toBeScanned = c.subtract(save);
-      }
-
-      Block block = getBlock(c);
-      result.add(block);
-      rest.andNot(c);
-    }
-    return result;
-  }
-
-  class Block implements Comparable<Block> {
-    XBitSet component;
-    XBitSet separator;
-    XBitSet outbound;
-
-    Block(XBitSet component) {
-      this.component = component;
-      this.separator = g.neighborSet(component);
-
-      XBitSet rest = g.all.subtract(component);
-      rest.andNot(separator);
-
-      int minCompo = component.nextSetBit(0);
-
-      // the scanning order ensures that the first full component
-      // encountered is the outbound one
-      for (int v = rest.nextSetBit(0); v >= 0; v = rest.nextSetBit(v + 1)) {
-        XBitSet c = (XBitSet) g.neighborSet[v].clone();
-        XBitSet toBeScanned = c.subtract(separator);
-        c.set(v);
-        while (!toBeScanned.isEmpty()) {
-          XBitSet save = (XBitSet) c.clone();
-          for (int w = toBeScanned.nextSetBit(0); w >= 0; 
-              w = toBeScanned.nextSetBit(w + 1)) {
-            c.or(g.neighborSet[w]);
-          }
-          toBeScanned = c.subtract(save).subtract(separator);
-        }
-        if (separator.isSubset(c)) {
-          // full block other than "component" found
-          if (v < minCompo) {
-            outbound = c.subtract(separator);
-          }
-          else {
-            // v > minCompo
-            outbound = component;
-          }
-          return;
-        }
-        rest.andNot(c);
-      }
-    }
-
-    boolean isOutbound() {
-      return outbound == component;
-    }
-
-    boolean ofMinimalSeparator() {
-      return outbound != null;
-    }
-
-    public String toString() {
-      StringBuilder sb = new StringBuilder();
-      if (outbound == component) {
-        sb.append("o");
-      } 
-      else {
-        if (iBlockCache.get(component) != null) {
-          sb.append("f");
-        } else {
-          sb.append("i");
-        }
-      }
-      sb.append(component + "(" + separator + ")");
-      return sb.toString();
-    }
-
-    @Override
-    public int compareTo(Block b) {
-      return component.nextSetBit(0) - b.component.nextSetBit(0);
-    }
-  }
-
-  class IBlock {
-    Block block;
-    PMC endorser;
-
-    IBlock(Block block, PMC endorser) {
-      this.block = block;
-      this.endorser = endorser;
-
-      if (DEBUG) {
-        System.out.println("IBlock constructor" + this);
-      }
-
-    }
-
-    void process() {
-      if (DEBUG) {
-        System.out.print("processing " + this);
-      }
-
-      makeSimpleTBlock();
-
-      ArrayList<XBitSet> oBlockSeparators = new ArrayList<>();
-      oBlockSieve.collectSuperblocks(
-          block.component, block.separator, oBlockSeparators);
-
-      for (XBitSet tsep : oBlockSeparators) {
-        Oblock oBlock = oBlockCache.get(tsep);
-        oBlock.plugin(this);
-      }
-    }
-
-    void makeSimpleTBlock() {
-
-      if (DEBUG) {
-        System.out.print("makeSimple: " + this);
-      }
-
-      Oblock oBlock = oBlockCache.get(block.separator);
-      if (oBlock == null) {
-        oBlock = new Oblock(block.separator, block.outbound);
-        oBlockCache.put(block.separator, oBlock);
-        oBlockSieve.put(block.outbound, block.separator);
-        oBlock.crown();
-      }
-    }
-
-    public String toString() {
-      StringBuilder sb = new StringBuilder();
-      sb.append("IBlock:" + block.separator + "\n");
-      sb.append("  in  :" + block.component + "\n");
-      sb.append("  out :" + block.outbound + "\n");
-      return sb.toString();
-    }
-  }
-
-  class Oblock {
-    XBitSet separator;
-    XBitSet openComponent;
-
-    Oblock(XBitSet separator, XBitSet openComponent) {
-      this.separator = separator;
-      this.openComponent = openComponent;
-    }
-
-    void plugin(IBlock iBlock) {
-      if (DEBUG) {
-        System.out.println("plugin " + iBlock);
-        System.out.println("  to " + this);
-      }
-
-      XBitSet newsep = separator.unionWith(iBlock.block.separator);
-
-      if (newsep.cardinality() > targetWidth + 1) {
-        return;
-      }
-
-      ArrayList<Block> blockList = getBlocks(newsep);
-
-      Block fullBlock = null;
-      int nSep = newsep.cardinality();
-
-      for (Block block : blockList) {
-        if (block.separator.cardinality() == nSep) {
-          if (fullBlock != null) {
-//             minimal separator: treated elsewhere
-            return;
-          }
-          fullBlock = block;
-        }
-      }
-
-      if (fullBlock == null) {
-//        if (!pmcCache.contains(newsep)) {  
-          PMC pmc = new PMC(newsep, blockList);
-          if (pmc.isValid) {
-//            pmcCache.add(newsep);
-            if (pmc.isReady()) {
-              pmc.endorse();
-            } 
-            else {
-              pendingEndorsers.add(pmc);
-            }
-//          }
-        }
-      }
-
-      else {
-        if (newsep.cardinality() > targetWidth) {
-          return;
-        }
-        Oblock oBlock = oBlockCache.get(newsep);
-        if (oBlock == null) {
-          oBlock = new Oblock(newsep, fullBlock.component);
-          oBlockCache.put(newsep, oBlock);
-          oBlockSieve.put(fullBlock.component, newsep);
-          oBlock.crown();
-        }
-      }
-    }
-
-    void crown() {
-      for (int v = separator.nextSetBit(0); v >= 0; 
-          v = separator.nextSetBit(v + 1)) {
-        if (DEBUG) {
-          System.out.println("try crowing by " + v);
-        }
-
-        XBitSet newsep = separator.unionWith(
-          g.neighborSet[v].intersectWith(openComponent));
-        if (newsep.cardinality() <= targetWidth + 1) {
-
-          if (DEBUG) {
-            System.out.println("crowing by " + v + ":" + this);
-          }
-//          if (!pmcCache.contains(newsep)) {  
-            PMC pmc = new PMC(newsep);
-            if (pmc.isValid) {
-//              pmcCache.add(newsep);
-              if (pmc.isReady()) {
-                pmc.endorse();
-              } 
-              else {
-                pendingEndorsers.add(pmc);
-              }
-//            }
-          }
-        }
-      }
-    }
-
-    public String toString() {
-      StringBuilder sb = new StringBuilder();
-      sb.append("TBlock:\n");
-      sb.append("  sep :" + separator + "\n");
-      sb.append("  open:" + openComponent + "\n");
-      return sb.toString();
-    }
-  }
-
-  class PMC {
-    XBitSet vertexSet;
-    Block inbounds[];
-    Block outbound;
-    boolean isValid;
-
-    PMC(XBitSet vertexSet) {
-      this(vertexSet, getBlocks(vertexSet));
-    }
-    
-    PMC(XBitSet vertexSet, ArrayList<Block> blockList) {
-      this.vertexSet = vertexSet;
-      if (vertexSet.isEmpty()) {
-        return;
-      }
-      for (Block block: blockList) {
-        if (block.isOutbound() &&
-            (outbound == null || 
-            outbound.separator.isSubset(block.separator))){
-          outbound = block;
-        }
-      }
-      if (outbound == null) {
-        inbounds = blockList.toArray(
-            new Block[blockList.size()]);  
-      }
-      else {
-        inbounds = new Block[blockList.size()];
-        int k = 0;
-        for (Block block: blockList) {
-          if (!block.separator.isSubset(outbound.separator)) {
-            inbounds[k++] = block;
-          }
-        }
-        if (k < inbounds.length) {
-          inbounds = Arrays.copyOf(inbounds, k);
-        }
-      }
-      checkValidity();
-      
-      if (DEBUG 
-//          ||
-//          vertexSet.equals(
-//              new XBitSet(new int[]{0, 1, 16, 17, 18, 19, 20, 21, 22, 23, 24, 25, 26, 27, 28, 29, 30, 31, 38, 39, 40, 41, 42, 43, 44, 45, 55, 56, 57, 58, 59, 60, 61, 66, 69}))
-          ) {
-        System.out.println("PMC created:");
-        System.out.println(this);
-      }
-    }
-
-    void checkValidity() {
-      for (Block b: inbounds) {
-        if (!b.ofMinimalSeparator()) {
-          isValid = false;
-          return;
-        }
-      }
-      
-      for (int v = vertexSet.nextSetBit(0); v >= 0; 
-            v = vertexSet.nextSetBit(v + 1)) {
-        XBitSet rest = vertexSet.subtract(g.neighborSet[v]);
-        rest.clear(v);
-        if (outbound != null && outbound.separator.get(v)) {
-          rest.andNot(outbound.separator);
-        }
-        for (Block b : inbounds) {
-          if (b.separator.get(v)) {
-            rest.andNot(b.separator);
-          }
-        }
-        if (!rest.isEmpty()) {
-          isValid = false;
-          return;
-        }
-      }
-      isValid = true;
-    }
-    
-    boolean isReady() {
-      for (int i = 0; i < inbounds.length; i++) {
-        if (iBlockCache.get(inbounds[i].component) == null) {
-          return false;
-        }
-      }
-      return true;
-    }
-
-    XBitSet getTarget() {
-      if (outbound == null) {
-        return null;
-      }
-      XBitSet combined = vertexSet.subtract(outbound.separator);
-      for (Block b: inbounds) {
-        combined.or(b.component);
-      }
-      return combined;
-    }
-
-
-    void process() {
-      if (DEBUG) {
-        System.out.print("processing " + this);
-      }
-      if (isReady()) {
-        if (DEBUG) {
-          System.out.print("endorsing " + this);
-        }
-        endorse();
-      } 
-      else {
-        pendingEndorsers.add(this);
-      }
-    }
-
-    void endorse() {
-
-      if (DEBUG) {
-        System.out.print("endorsing " + this);
-      }
-
-      if (DEBUG) {
-        System.out.println("ontbound= " + outbound);
-      }
-
-      if (outbound == null) {
-        if (DEBUG) {
-          System.out.println("solution found in endorse()");
-        }
-        solution = this;
-        return;
-      } 
-      else {
-        endorse(getTarget());
-      }
-    }
-
-    void endorse(XBitSet target) {
-      if (DEBUG) {
-        System.out.println("endorsed = " + target);
-      }
-
-      // if (separator.equals(bs1)) {
-      // System.err.println("endorsed = " + endorsed +
-      // ", " + endorserMap.get(endorsed));
-      // }
-      //
-
-      if (iBlockCache.get(target) == null) {
-        Block block = getBlock(target);
-        IBlock iBlock = new IBlock(block, this);
-        iBlockCache.put(target, iBlock);
-
-        if (DEBUG) {
-          System.out.println("adding to ready queue" + iBlock);
-        }
-        readyQueue.add(iBlock);
-      }
-    }
-
-    void carryOutDecomposition(Bag bag) {
-      if (DEBUG) {
-        System.out.print("carryOutDecomposition:" + this);
-      }
-      
-      for (Block inbound: inbounds) {
-        if (DEBUG) {
-          System.out.println("inbound  = " + inbound);
-        }
-        IBlock iBlock = iBlockCache.get(inbound.component);
-        if (iBlock == null) {
-          System.out.println("inbound iBlock is null, block = " + inbound);
-          continue;
-        }
-
-        Bag subBag = currentBag.addNestedBag(
-        		iBlock.endorser.vertexSet);
-        Separator separator = 
-            currentBag.addSeparator(inbound.separator);
-        
-        separator.incidentBags.add(bag);
-        separator.incidentBags.add(subBag);
-        
-        bag.incidentSeparators.add(separator);
-        subBag.incidentSeparators.add(separator);
-        iBlock.endorser.carryOutDecomposition(subBag);
-      }
-    }
-
-    private XBitSet inletsInduced() {
-      XBitSet result = new XBitSet(g.n);
-      for (Block b : inbounds) {
-        result.or(b.separator);
-      }
-      return result;
-    }
-
-    public String toString() {
-
-      StringBuilder sb = new StringBuilder();
-      sb.append("PMC");
-      if (isValid) {
-        sb.append("(valid):\n");
-      }
-      else {
-        sb.append("(invalid):\n");
-      }
-      sb.append("  sep     : " + vertexSet + "\n");
-      sb.append("  outbound: " + outbound + "\n");
-
-      for (Block b : inbounds) {
-        sb.append("  inbound : " + b + "\n");
-      }
-      return sb.toString();
-    }
-  }
-
-  int numberOfEnabledBlocks() {
-    return iBlockCache.size();
-  }
-
-  void dumpPendings() {
-    System.out.println("pending endorsers\n");
-    for (PMC endorser : pendingEndorsers) {
-      System.out.print(endorser);
-    }
-  }
-
-  void log(String logHeader) {
-    if (VERBOSE) {
-
-      int sizes[] = oBlockSieve.getSizes();
-
-      System.out.println(logHeader);
-      System.out.print("n = " + g.n + " width = " + targetWidth + ", oBlocks = "
-          + oBlockCache.size() + Arrays.toString(sizes));
-      System.out.print(", endorsed = " + iBlockCache.size());
-      System.out.print(", pendings = " + pendingEndorsers.size());
-      System.out.println(", blocks = " + blockCache.size());
-    }
-  }
-}
+/*
+ * Copyright (c) 2017, Hisao Tamaki
+ */
+
+package tw.exact;
+
+import java.io.File;
+
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class IODecomposer {
+
+//  static final boolean VERBOSE = true;
+   private static final boolean VERBOSE = false;
+//   private static boolean DEBUG = true;
+  static boolean DEBUG = false;
+
+  Graph g;
+  
+  Bag currentBag;
+    
+  LayeredSieve oBlockSieve;
+
+  Queue<IBlock> readyQueue;
+
+  ArrayList<PMC> pendingEndorsers;
+
+//  Set<XBitSet> processed;
+
+  /* the vertex sets of blocks, whose ids index the caches below */
+  VertexSetTable sets;
+
+  IdMap<Oblock> oBlockCache;
+
+  IdMap<Block> blockCache;
+  
+  IdMap<IBlock> iBlockCache;
+  
+  Set<XBitSet> pmcCache;
+  
+  int upperBound;
+  int lowerBound;
+  
+  int targetWidth;
+
+  PMC solution;
+  
+  SafeSeparator ss;
+
+  static int TIMEOUT_CHECK = 100;
+
+  /*
+   * number of ready I-blocks taken from the queue at a time,
+   * per worker thread, in the parallel mode
+   */
+  static int BATCH_PER_THREAD = 4;
+
+  int parallelism = 1;
+
+  ForkJoinPool pool;
+
+  /* the lower bound shared with the decomposers of other bags, if any */
+  AtomicInteger sharedLowerBound;
+
+  /**
+   * if {@code true}, the O-blocks found for a target width are 
+   * carried into the next one instead of being generated again; 
+   * set by the command line option {@code -i} of 
+   * {@code MainDecomposer}
+   */
+  static boolean incremental = false;
+
+  /* the number of O-blocks created so far, giving their sequence numbers */
+  int oBlockCount;
+
+  /* the target width of the previous iteration, -1 if none */
+  int previousWidth = -1;
+
+  /* 
+   * the plugins that would have created O-blocks of the previous
+   * target width plus one, in the incremental mode 
+   */
+  ArrayList<Plugin> deferredPlugins = new ArrayList<>();
+
+  /* the statistics of the search, null if not enabled */
+  DecomposerStats stats;
+
+  public IODecomposer(Bag bag, 
+      int lowerBound, int upperBound) {
+
+    currentBag = bag;
+    g = bag.graph;
+    if (!g.isConnected(g.all)) {
+      System.err.println("graph must be connected, size = " + bag.size);
+    }
+    this.lowerBound = lowerBound;
+    this.upperBound = upperBound;
+    
+    ss = new SafeSeparator(g);
+    stats = DecomposerStats.get();
+  }
+  
+  /**
+   * Sets the number of worker threads used by {@code decompose}.
+   * With more than one thread, the ready I-blocks are taken from the
+   * queue in batches: the sieve queries and the evaluation of the
+   * resulting plugins, which dominate the running time, are done
+   * concurrently, while the outcomes are committed in the queue order.
+   * The set of (O-block, I-block) pairs combined is exactly
+   * that of the sequential mode, and hence so is the resulting width.
+   * @param parallelism the number of worker threads
+   */
+  public void setParallelism(int parallelism) {
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * Shares a lower bound on the width of the whole decomposition with
+   * the decomposers of the other bags, which raise it to the widths
+   * they obtain.
+   * The search starts from the bound and, when the bound is raised
+   * above the current target width, the search for that width is
+   * abandoned for the bound, since a decomposition of this bag of a
+   * smaller width would not make the whole decomposition narrower.
+   * The resulting width is then the larger of the bound and 
+   * the smallest possible width of this bag.
+   * @param sharedLowerBound the lower bound
+   */
+  public void setSharedLowerBound(AtomicInteger sharedLowerBound) {
+    this.sharedLowerBound = sharedLowerBound;
+  }
+
+  public void decompose() {
+    if (parallelism > 1) {
+      pool = new ForkJoinPool(parallelism);
+    }
+    sets = new VertexSetTable(g.n);
+    blockCache = new IdMap<>();
+    try {
+      decomposeLoop();
+    }
+    finally {
+      if (pool != null) {
+        pool.shutdown();
+        pool = null;
+      }
+    }
+  }
+
+  private void decomposeLoop() {
+    iBlockCache = new IdMap<>();
+
+    pendingEndorsers = new ArrayList<>();
+    pmcCache = new HashSet<>();
+
+    // no decomposition narrower than the lower bound is looked for
+    targetWidth = Math.min(Math.max(lowerBound, 0), upperBound);
+
+    while (targetWidth <= upperBound) {
+      if (sharedLowerBound != null && 
+          sharedLowerBound.get() > targetWidth) {
+        targetWidth = Math.min(sharedLowerBound.get(), upperBound);
+        // the carried O-blocks are for the width just below
+        oBlockCache = null;
+      }
+
+      if (VERBOSE) {
+        System.out.println("deompose loop, n = " + currentBag.size + 
+            ", targetWidth = " + targetWidth);
+      }
+
+
+      if (currentBag.size <= targetWidth + 1) {
+        currentBag.nestedBags = null;
+        currentBag.separators = null;
+        return;
+      }
+
+      long[] marks = null;
+      if (stats != null) {
+        marks = stats.startWidth(currentBag.size, targetWidth);
+      }
+
+      boolean solved = decomposeWidth();
+
+      if (stats != null) {
+        stats.endWidth(targetWidth, marks);
+      }
+      if (solved) {
+        return;
+      }
+
+      log("failed");
+
+      targetWidth++;
+    }
+    return;
+  }
+
+  /**
+   * Searches for a decomposition of the current bag of the current 
+   * target width, refining the bag if one is found 
+   * @return {@code true} if a decomposition is found
+   */
+  private boolean decomposeWidth() {
+    oBlockSieve = new LayeredSieve(g.n, targetWidth, pool != null);
+
+    readyQueue = new LinkedList<>();
+
+    readyQueue.addAll(iBlockCache.values());
+
+    if (incremental && oBlockCache != null) {
+      carryOblocks();
+    }
+    else {
+      oBlockCache = new IdMap<>();
+      oBlockCount = 0;
+      deferredPlugins.clear();
+      for (IBlock iBlock: iBlockCache.values()) {
+        iBlock.queriedWidth = -1;
+      }
+      previousWidth = -1;
+    }
+
+    for (PMC pmc: initialPMCs()) {
+      offer(pmc);
+    }
+    previousWidth = targetWidth;
+
+    while (true) {
+      while (!readyQueue.isEmpty()) {
+        if (sharedLowerBound != null && 
+            sharedLowerBound.get() > targetWidth) {
+          log("target width below the shared lower bound");
+          oBlockCache = null;
+          return false;
+        }
+
+        if (pool != null) {
+          processReadyBatch();
+        }
+        else {
+          IBlock ready = readyQueue.remove();
+
+          ready.process();
+        }
+
+        if (solution != null) {
+          log("solution found");
+          Bag bag = currentBag.addNestedBag(solution.vertexSet); 
+          solution.carryOutDecomposition(bag);
+          return true;
+        }
+      }
+
+      if (!pendingEndorsers.isEmpty()) {
+        log("queue empty");
+      }
+
+      ArrayList<PMC> endorsers = pendingEndorsers;
+      pendingEndorsers = new ArrayList<PMC>();
+      for (PMC endorser : endorsers) {
+        endorser.process();
+        if (solution != null) {
+          log("solution found");
+          Bag bag = currentBag.addNestedBag(solution.vertexSet); 
+          solution.carryOutDecomposition(bag);
+          return true;
+        }
+      }
+      if (readyQueue.isEmpty()) {
+        break;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Puts the O-blocks of the previous target width into the sieve
+   * of the current one, creates those deferred by the previous 
+   * width, and crowns the former by the vertices that the previous 
+   * width excluded.
+   * The O-blocks remain valid since the bounds on their separators
+   * only grow with the target width.
+   * The I-blocks requeued skip the O-blocks they have already been
+   * plugged into, see {@code IBlock.skips}.
+   */
+  void carryOblocks() {
+    ArrayList<Oblock> oBlocks = oBlockCache.values();
+    for (Oblock oBlock: oBlocks) {
+      oBlockSieve.put(oBlock.openComponent, oBlock.separator);
+    }
+    ArrayList<Plugin> plugins = deferredPlugins;
+    deferredPlugins = new ArrayList<>();
+    for (Plugin plugin: plugins) {
+      plugin.deferred = false;
+      plugin.oBlock.apply(plugin, null);
+    }
+    for (Oblock oBlock: oBlocks) {
+      for (PMC pmc: oBlock.crownPMCs(previousWidth)) {
+        offer(pmc);
+      }
+    }
+  }
+
+  /**
+   * Computes the valid PMCs formed by the closed neighborhoods
+   * of single vertices, which seed the search for the current 
+   * target width.
+   * Those already computed for the previous target width are excluded.
+   * @return the list of valid PMCs in the order of the vertices
+   */
+  ArrayList<PMC> initialPMCs() {
+    ArrayList<Callable<PMC>> tasks = new ArrayList<>();
+    for (int v = 0; v < g.n; v++) {
+      XBitSet cnb = g.neighborSet(v).clone();
+      cnb.set(v);
+
+      if (DEBUG) {
+        System.out.println(v + ":" + cnb.cardinality() + ", " + cnb);
+      }
+
+      if (cnb.cardinality() > targetWidth + 1 ||
+          cnb.cardinality() <= previousWidth + 1) {
+        continue;
+      }
+      tasks.add(() -> new PMC(cnb, getBlocks(cnb)));
+    }
+
+    ArrayList<PMC> result = new ArrayList<>();
+    for (PMC pmc: runAll(tasks)) {
+      if (pmc.isValid) {
+        result.add(pmc);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Endorses the given PMC if it is ready, or makes it pending otherwise
+   * @param pmc a PMC
+   */
+  void offer(PMC pmc) {
+    if (pmc.isValid) {
+      if (pmc.isReady()) {
+        pmc.endorse();
+      }
+      else {
+        pendingEndorsers.add(pmc);
+      }
+    }
+  }
+
+  /**
+   * Runs the given tasks on the worker pool, or on the calling thread
+   * in the sequential mode, and returns their results in the order of 
+   * the tasks
+   * @param tasks list of tasks
+   * @return the list of results
+   */
+  <T> ArrayList<T> runAll(ArrayList<Callable<T>> tasks) {
+    ArrayList<T> results = new ArrayList<>(tasks.size());
+    try {
+      if (pool == null) {
+        for (Callable<T> task: tasks) {
+          results.add(task.call());
+        }
+      }
+      else {
+        for (Future<T> future: pool.invokeAll(tasks)) {
+          results.add(future.get());
+        }
+      }
+    } catch (ExecutionException e) {
+      throw new RuntimeException(e.getCause());
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+    return results;
+  }
+
+  /**
+   * Processes a batch of ready I-blocks taken from the head of the queue.
+   * The sieve queries of the batch are answered against the sieve
+   * as it is at the beginning of the batch, and the plugins are
+   * evaluated, concurrently.  The evaluations are then committed 
+   * in the queue order and each I-block is additionally plugged into 
+   * the O-blocks created by the commits preceding its own in the batch, 
+   * which the sequential mode would have found in the sieve.
+   */
+  void processReadyBatch() {
+    ArrayList<IBlock> batch = new ArrayList<>();
+    while (!readyQueue.isEmpty() && 
+        batch.size() < BATCH_PER_THREAD * parallelism) {
+      batch.add(readyQueue.remove());
+    }
+
+    // with fewer I-blocks than workers, the queries themselves are split
+    boolean splitQueries = batch.size() < parallelism;
+    ArrayList<Callable<BatchEntry>> tasks = new ArrayList<>();
+    for (IBlock iBlock: batch) {
+      tasks.add(() -> iBlock.evaluate(splitQueries));
+    }
+    ArrayList<BatchEntry> entries = runAll(tasks);
+
+    ArrayList<Oblock> created = new ArrayList<>();
+    for (BatchEntry entry: entries) {
+      int nCreated = created.size();
+      entry.commit(created);
+      for (int i = 0; i < nCreated; i++) {
+        Oblock oBlock = created.get(i);
+        if (oBlock.accepts(entry.iBlock)) {
+          oBlock.apply(oBlock.evaluate(entry.iBlock, false), created);
+        }
+      }
+      if (solution != null) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * The evaluation of a ready I-block, done concurrently in a batch
+   */
+  class BatchEntry {
+    IBlock iBlock;
+    ArrayList<PMC> simpleCrown;
+    ArrayList<Plugin> plugins;
+
+    BatchEntry(IBlock iBlock) {
+      this.iBlock = iBlock;
+      plugins = new ArrayList<>();
+    }
+
+    void commit(ArrayList<Oblock> created) {
+      Block block = iBlock.block;
+      if (oBlockCache.get(block.separatorId) == null) {
+        Oblock oBlock = new Oblock(block.separator, block.outbound);
+        register(block.separatorId, oBlock);
+        created.add(oBlock);
+        oBlock.crown(simpleCrown);
+      }
+      for (Plugin plugin: plugins) {
+        plugin.oBlock.apply(plugin, created);
+      }
+    }
+  }
+
+  /**
+   * The outcome of plugging an I-block into an O-block
+   */
+  class Plugin {
+    Oblock oBlock;
+    XBitSet newsep;
+    /* the valid PMC formed, if any */
+    PMC pmc;
+    /* the open component of the O-block formed, if any */
+    XBitSet openComponent;
+    /* the crown of that O-block, if evaluated in advance */
+    ArrayList<PMC> crown;
+    /* 
+     * true if that O-block exceeds the current target width by one 
+     * and is to be created for the next
+     */
+    boolean deferred;
+
+    Plugin(Oblock oBlock, XBitSet newsep) {
+      this.oBlock = oBlock;
+      this.newsep = newsep;
+    }
+  }
+
+  boolean crossesOrSubsumes(XBitSet separator1, XBitSet endorsed, XBitSet separator2) {
+    ArrayList<XBitSet> components = g.getComponents(separator1);
+    for (XBitSet compo: components) {
+      if (endorsed.isSubset(compo)) {
+        // subsumes
+        return true;
+      }
+    }
+    // test crossing
+    XBitSet diff = separator2.subtract(separator1);
+    for (XBitSet compo: components) {
+      if (diff.isSubset(compo)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Puts a newly created O-block in the cache and in the sieve
+   * @param id the id of the separator of the O-block
+   * @param oBlock the O-block
+   */
+  void register(int id, Oblock oBlock) {
+    oBlock.sequence = oBlockCount++;
+    oBlockCache.put(id, oBlock);
+    oBlockSieve.put(oBlock.openComponent, oBlock.separator);
+    if (stats != null) {
+      stats.oBlocks.increment();
+    }
+  }
+
+  Block getBlock(XBitSet component) {
+    return getBlock(sets.intern(component));
+  }
+
+  Block getBlock(int id) {
+    Block block = blockCache.get(id);
+    if (block == null) {
+      block = new Block(id);
+      Block existing = blockCache.putIfAbsent(id, block);
+      if (existing != null) {
+        block = existing;
+      }
+    }
+    return block;
+  }
+
+  void makeIBlock(XBitSet component, PMC endorser) {
+    int id = sets.intern(component);
+    IBlock iBlock = iBlockCache.get(id);
+    if (iBlock == null) {
+      Block block = getBlock(id);
+      iBlock = new IBlock(block, endorser);
+    }
+  }
+
+  IBlock getIBlock(XBitSet component) {
+    return iBlockCache.get(sets.find(component));
+  }
+
+  boolean isFullComponent(XBitSet component, XBitSet sep) {
+    for (int v = sep.nextSetBit(0); v >= 0; v = sep.nextSetBit(v + 1)) {
+      if (component.isDisjoint(g.neighborSet(v))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  ArrayList<Block> getBlocks(XBitSet separator) {
+    return getBlocks(separator, null);
+  }
+
+  /**
+   * Computes the blocks of the given separator, reusing a block
+   * already known to be one of them: its component is not searched
+   * again.
+   * @param separator a set of vertices
+   * @param known a block whose component is a component of the graph
+   * with {@code separator} removed; {@code null} if none is known
+   * @return the list of blocks in the order of their smallest vertices
+   */
+  ArrayList<Block> getBlocks(XBitSet separator, Block known) {
+    ComponentFinder finder = g.componentFinder();
+    finder.reset(null);
+    finder.remove(separator.words());
+    if (known != null) {
+      finder.remove(sets.wordChunk(known.id), 
+          sets.wordOffset(known.id), sets.words());
+    }
+    int count = finder.find();
+
+    // the ids are taken before creating blocks, which use the finder
+    int[] ids = new int[count];
+    for (int i = 0; i < count; i++) {
+      ids[i] = sets.intern(finder.components(), finder.offset(i), 
+          finder.words());
+    }
+
+    ArrayList<Block> result = new ArrayList<Block>(count + 1);
+    for (int id: ids) {
+      result.add(getBlock(id));
+    }
+    if (known != null) {
+      int i = 0;
+      while (i < result.size() && result.get(i).compareTo(known) < 0) {
+        i++;
+      }
+      result.add(i, known);
+    }
+    return result;
+  }
+
+  class Block implements Comparable<Block> {
+    int id;
+    int separatorId;
+    XBitSet component;
+    XBitSet separator;
+    XBitSet outbound;
+
+    Block(int id) {
+      if (stats != null) {
+        stats.blocks.increment();
+      }
+      this.id = id;
+      this.component = sets.get(id);
+      separatorId = sets.intern(g.neighborSet(component));
+      this.separator = sets.get(separatorId);
+
+      long[] sepWords = sets.wordChunk(separatorId);
+      int sepOffset = sets.wordOffset(separatorId);
+      int words = sets.words();
+
+      ComponentFinder finder = g.componentFinder();
+      finder.reset(null);
+      finder.remove(sets.wordChunk(id), sets.wordOffset(id), words);
+      finder.remove(sepWords, sepOffset, words);
+      int count = finder.find();
+
+      int minCompo = component.nextSetBit(0);
+
+      // the components are in the order of their smallest vertices,
+      // so that the first full component encountered is the 
+      // outbound one
+      for (int i = 0; i < count; i++) {
+        if (finder.neighborsContain(i, sepWords, sepOffset, words)) {
+          // full block other than "component" found
+          if (finder.minVertex(i) < minCompo) {
+            outbound = sets.get(sets.intern(finder.components(), 
+                finder.offset(i), words));
+          }
+          else {
+            // v > minCompo
+            outbound = component;
+          }
+          return;
+        }
+      }
+    }
+
+    boolean isOutbound() {
+      return outbound == component;
+    }
+
+    boolean ofMinimalSeparator() {
+      return outbound != null;
+    }
+
+    public String toString() {
+      StringBuilder sb = new StringBuilder();
+      if (outbound == component) {
+        sb.append("o");
+      } 
+      else {
+        if (iBlockCache.get(id) != null) {
+          sb.append("f");
+        } else {
+          sb.append("i");
+        }
+      }
+      sb.append(component + "(" + separator + ")");
+      return sb.toString();
+    }
+
+    @Override
+    public int compareTo(Block b) {
+      return component.nextSetBit(0) - b.component.nextSetBit(0);
+    }
+  }
+
+  class IBlock {
+    Block block;
+    PMC endorser;
+
+    /* 
+     * the target width and the number of O-blocks at the last sieve 
+     * query for this I-block; the width is -1 if not queried yet
+     */
+    int queriedWidth = -1;
+    int queriedCount;
+
+    IBlock(Block block, PMC endorser) {
+      this.block = block;
+      this.endorser = endorser;
+      if (stats != null) {
+        stats.iBlocks.increment();
+      }
+
+      if (DEBUG) {
+        System.out.println("IBlock constructor" + this);
+      }
+
+    }
+
+    void process() {
+      if (DEBUG) {
+        System.out.print("processing " + this);
+      }
+
+      makeSimpleTBlock();
+
+      ArrayList<XBitSet> oBlockSeparators = new ArrayList<>();
+      oBlockSieve.collectSuperblocks(
+          block.component, block.separator, oBlockSeparators);
+      if (stats != null) {
+        stats.sieveQueries.increment();
+        stats.sieveHits.add(oBlockSeparators.size());
+      }
+      int width = queriedWidth;
+      int count = queriedCount;
+      queriedWidth = targetWidth;
+      queriedCount = oBlockCount;
+
+      for (XBitSet tsep : oBlockSeparators) {
+        Oblock oBlock = oBlockCache.get(sets.find(tsep));
+        if (!skips(oBlock, width, count)) {
+          oBlock.plugin(this);
+        }
+      }
+    }
+
+    /**
+     * Evaluates this I-block for the parallel mode, without modifying
+     * the shared structures other than the block cache
+     * @param splitQuery if {@code true}, the sieve query is split
+     * over the worker pool
+     * @return the evaluation to be committed
+     */
+    BatchEntry evaluate(boolean splitQuery) {
+      BatchEntry entry = new BatchEntry(this);
+      if (oBlockCache.get(block.separatorId) == null) {
+        entry.simpleCrown = 
+            new Oblock(block.separator, block.outbound).crownPMCs(-1);
+      }
+
+      ArrayList<XBitSet> oBlockSeparators = new ArrayList<>();
+      if (splitQuery) {
+        oBlockSieve.collectSuperblocks(
+            block.component, block.separator, oBlockSeparators, pool);
+      }
+      else {
+        oBlockSieve.collectSuperblocks(
+            block.component, block.separator, oBlockSeparators);
+      }
+      if (stats != null) {
+        stats.sieveQueries.increment();
+        stats.sieveHits.add(oBlockSeparators.size());
+      }
+      int width = queriedWidth;
+      int count = queriedCount;
+      queriedWidth = targetWidth;
+      queriedCount = oBlockCount;
+
+      for (XBitSet tsep : oBlockSeparators) {
+        Oblock oBlock = oBlockCache.get(sets.find(tsep));
+        if (skips(oBlock, width, count)) {
+          continue;
+        }
+        Plugin plugin = oBlock.evaluate(this, true);
+        if (plugin != null) {
+          entry.plugins.add(plugin);
+        }
+      }
+      return entry;
+    }
+
+    /**
+     * Decides if plugging this I-block into the given O-block, 
+     * carried from a previous target width, would repeat a plugin
+     * done then: the O-block was in the sieve at the previous query
+     * and the union of the separators was within the bound of
+     * the width of that query, so that the outcome was committed
+     * or deferred.
+     * @param oBlock an O-block returned by the sieve
+     * @param width the target width of the previous query, -1 if none
+     * @param count the number of O-blocks at the previous query
+     * @return {@code true} if the plugin is to be skipped
+     */
+    boolean skips(Oblock oBlock, int width, int count) {
+      return width >= 0 && oBlock.sequence < count &&
+          oBlock.separator.unionCardinality(block.separator) <= width + 1;
+    }
+
+    void makeSimpleTBlock() {
+
+      if (DEBUG) {
+        System.out.print("makeSimple: " + this);
+      }
+
+      Oblock oBlock = oBlockCache.get(block.separatorId);
+      if (oBlock == null) {
+        oBlock = new Oblock(block.separator, block.outbound);
+        register(block.separatorId, oBlock);
+        oBlock.crown(null);
+      }
+    }
+
+    public String toString() {
+      StringBuilder sb = new StringBuilder();
+      sb.append("IBlock:" + block.separator + "\n");
+      sb.append("  in  :" + block.component + "\n");
+      sb.append("  out :" + block.outbound + "\n");
+      return sb.toString();
+    }
+  }
+
+  class Oblock {
+    XBitSet separator;
+    XBitSet openComponent;
+    /* the order of creation, for the O-blocks in the cache */
+    int sequence;
+
+    Oblock(XBitSet separator, XBitSet openComponent) {
+      this.separator = separator;
+      this.openComponent = openComponent;
+    }
+
+    void plugin(IBlock iBlock) {
+      apply(evaluate(iBlock, false), null);
+    }
+
+    /**
+     * Evaluates plugging the given I-block into this O-block.
+     * This does not modify the shared structures other than the block cache.
+     * @param iBlock the I-block to be plugged in
+     * @param speculative if {@code true}, the crown of the resulting O-block
+     * is also evaluated, when that O-block is not present yet 
+     * @return the outcome of the plugin; {@code null} if nothing results
+     */
+    Plugin evaluate(IBlock iBlock, boolean speculative) {
+      if (DEBUG) {
+        System.out.println("plugin " + iBlock);
+        System.out.println("  to " + this);
+      }
+      if (stats != null) {
+        stats.plugins.increment();
+      }
+
+      if (separator.unionCardinality(iBlock.block.separator) > 
+          targetWidth + 1) {
+        return null;
+      }
+
+      XBitSet newsep = separator.unionWith(iBlock.block.separator);
+
+      // the component of the I-block is one of those of newsep
+      ArrayList<Block> blockList = getBlocks(newsep, iBlock.block);
+
+      Block fullBlock = null;
+      int nSep = newsep.cardinality();
+
+      for (Block block : blockList) {
+        if (block.separator.cardinality() == nSep) {
+          if (fullBlock != null) {
+//             minimal separator: treated elsewhere
+            return null;
+          }
+          fullBlock = block;
+        }
+      }
+
+      Plugin plugin = new Plugin(this, newsep);
+      if (fullBlock == null) {
+//        if (!pmcCache.contains(newsep)) {  
+          PMC pmc = new PMC(newsep, blockList);
+          if (pmc.isValid) {
+            plugin.pmc = pmc;
+          }
+//        }
+      }
+
+      else {
+        if (newsep.cardinality() > targetWidth) {
+          if (!incremental) {
+            return null;
+          }
+          plugin.deferred = true;
+        }
+        plugin.openComponent = fullBlock.component;
+        if (speculative && !plugin.deferred &&
+            oBlockCache.get(sets.find(newsep)) == null) {
+          plugin.crown = 
+              new Oblock(newsep, fullBlock.component).crownPMCs(-1);
+        }
+      }
+      return plugin;
+    }
+
+    /**
+     * Commits the outcome of a plugin
+     * @param plugin the outcome, possibly {@code null}
+     * @param created list to which the newly created O-block is added,
+     * if not {@code null}
+     */
+    void apply(Plugin plugin, ArrayList<Oblock> created) {
+      if (plugin == null) {
+        return;
+      }
+      if (plugin.pmc != null) {
+//        pmcCache.add(newsep);
+        offer(plugin.pmc);
+      }
+      else if (plugin.deferred) {
+        deferredPlugins.add(plugin);
+      }
+      else if (plugin.openComponent != null) {
+        int id = sets.intern(plugin.newsep);
+        XBitSet newsep = sets.get(id);
+        Oblock oBlock = oBlockCache.get(id);
+        if (oBlock == null) {
+          oBlock = new Oblock(newsep, plugin.openComponent);
+          register(id, oBlock);
+          if (created != null) {
+            created.add(oBlock);
+          }
+          oBlock.crown(plugin.crown);
+        }
+      }
+    }
+
+    /**
+     * Decides if the given I-block is among those the sieve would
+     * return for it as superblocks of this O-block 
+     * @param iBlock an I-block
+     * @return {@code true} if the I-block is to be plugged in
+     */
+    boolean accepts(IBlock iBlock) {
+      Block block = iBlock.block;
+      return block.component.isSubset(openComponent) &&
+          openComponent.intersectCardinality(block.separator) + 
+          separator.cardinality() <= targetWidth + 1;
+    }
+
+    /**
+     * Crowns this O-block
+     * @param crown the valid PMCs obtained by crowning, if already 
+     * evaluated; {@code null} otherwise
+     */
+    void crown(ArrayList<PMC> crown) {
+      if (crown == null) {
+        crown = crownPMCs(-1);
+      }
+      for (PMC pmc: crown) {
+        offer(pmc);
+      }
+    }
+
+    /**
+     * Computes the valid PMCs obtained by crowning this O-block
+     * @param previousWidth a target width for which the crown is 
+     * already computed, -1 if none: the PMCs within its bound are 
+     * excluded
+     * @return the list of valid PMCs
+     */
+    ArrayList<PMC> crownPMCs(int previousWidth) {
+      ArrayList<PMC> result = new ArrayList<>();
+      int nSep = separator.cardinality();
+      for (int v = separator.nextSetBit(0); v >= 0; 
+          v = separator.nextSetBit(v + 1)) {
+        if (DEBUG) {
+          System.out.println("try crowing by " + v);
+        }
+
+        // openComponent is disjoint from separator
+        int size = nSep + 
+            g.neighborSet(v).intersectCardinality(openComponent);
+        if (size <= targetWidth + 1 && size > previousWidth + 1) {
+          XBitSet newsep = separator.unionWith(
+              g.neighborSet(v).intersectWith(openComponent));
+
+          if (DEBUG) {
+            System.out.println("crowing by " + v + ":" + this);
+          }
+//          if (!pmcCache.contains(newsep)) {  
+            PMC pmc = new PMC(newsep);
+            if (pmc.isValid) {
+//              pmcCache.add(newsep);
+              result.add(pmc);
+//            }
+          }
+        }
+      }
+      return result;
+    }
+
+    public String toString() {
+      StringBuilder sb = new StringBuilder();
+      sb.append("TBlock:\n");
+      sb.append("  sep :" + separator + "\n");
+      sb.append("  open:" + openComponent + "\n");
+      return sb.toString();
+    }
+  }
+
+  class PMC {
+    XBitSet vertexSet;
+    Block inbounds[];
+    Block outbound;
+    boolean isValid;
+
+    PMC(XBitSet vertexSet) {
+      this(vertexSet, getBlocks(vertexSet));
+    }
+    
+    PMC(XBitSet vertexSet, ArrayList<Block> blockList) {
+      this.vertexSet = vertexSet;
+      if (vertexSet.isEmpty()) {
+        return;
+      }
+      for (Block block: blockList) {
+        if (block.isOutbound() &&
+            (outbound == null || 
+            outbound.separator.isSubset(block.separator))){
+          outbound = block;
+        }
+      }
+      if (outbound == null) {
+        inbounds = blockList.toArray(
+            new Block[blockList.size()]);  
+      }
+      else {
+        inbounds = new Block[blockList.size()];
+        int k = 0;
+        for (Block block: blockList) {
+          if (!block.separator.isSubset(outbound.separator)) {
+            inbounds[k++] = block;
+          }
+        }
+        if (k < inbounds.length) {
+          inbounds = Arrays.copyOf(inbounds, k);
+        }
+      }
+      checkValidity();
+      if (stats != null) {
+        stats.pmcsCreated.increment();
+        if (isValid) {
+          stats.pmcsValid.increment();
+        }
+      }
+      
+      if (DEBUG 
+//          ||
+//          vertexSet.equals(
+//              new XBitSet(new int[]{0, 1, 16, 17, 18, 19, 20, 21, 22, 23, 24, 25, 26, 27, 28, 29, 30, 31, 38, 39, 40, 41, 42, 43, 44, 45, 55, 56, 57, 58, 59, 60, 61, 66, 69}))
+          ) {
+        System.out.println("PMC created:");
+        System.out.println(this);
+      }
+    }
+
+    void checkValidity() {
+      for (Block b: inbounds) {
+        if (!b.ofMinimalSeparator()) {
+          isValid = false;
+          return;
+        }
+      }
+      
+      for (int v = vertexSet.nextSetBit(0); v >= 0; 
+            v = vertexSet.nextSetBit(v + 1)) {
+        XBitSet rest = vertexSet.subtract(g.neighborSet(v));
+        rest.clear(v);
+        if (outbound != null && outbound.separator.get(v)) {
+          rest.andNot(outbound.separator);
+        }
+        for (Block b : inbounds) {
+          if (b.separator.get(v)) {
+            rest.andNot(b.separator);
+          }
+        }
+        if (!rest.isEmpty()) {
+          isValid = false;
+          return;
+        }
+      }
+      isValid = true;
+    }
+    
+    boolean isReady() {
+      for (int i = 0; i < inbounds.length; i++) {
+        if (iBlockCache.get(inbounds[i].id) == null) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    XBitSet getTarget() {
+      if (outbound == null) {
+        return null;
+      }
+      XBitSet combined = vertexSet.subtract(outbound.separator);
+      for (Block b: inbounds) {
+        combined.or(b.component);
+      }
+      return combined;
+    }
+
+
+    void process() {
+      if (DEBUG) {
+        System.out.print("processing " + this);
+      }
+      if (isReady()) {
+        if (DEBUG) {
+          System.out.print("endorsing " + this);
+        }
+        endorse();
+      } 
+      else {
+        pendingEndorsers.add(this);
+      }
+    }
+
+    void endorse() {
+
+      if (DEBUG) {
+        System.out.print("endorsing " + this);
+      }
+      if (stats != null) {
+        stats.pmcsEndorsed.increment();
+      }
+
+      if (DEBUG) {
+        System.out.println("ontbound= " + outbound);
+      }
+
+      if (outbound == null) {
+        if (DEBUG) {
+          System.out.println("solution found in endorse()");
+        }
+        solution = this;
+        return;
+      } 
+      else {
+        endorse(getTarget());
+      }
+    }
+
+    void endorse(XBitSet target) {
+      if (DEBUG) {
+        System.out.println("endorsed = " + target);
+      }
+
+      // if (separator.equals(bs1)) {
+      // System.err.println("endorsed = " + endorsed +
+      // ", " + endorserMap.get(endorsed));
+      // }
+      //
+
+      int id = sets.intern(target);
+      if (iBlockCache.get(id) == null) {
+        Block block = getBlock(id);
+        IBlock iBlock = new IBlock(block, this);
+        iBlockCache.put(id, iBlock);
+
+        if (DEBUG) {
+          System.out.println("adding to ready queue" + iBlock);
+        }
+        readyQueue.add(iBlock);
+      }
+    }
+
+    void carryOutDecomposition(Bag bag) {
+      if (DEBUG) {
+        System.out.print("carryOutDecomposition:" + this);
+      }
+      
+      for (Block inbound: inbounds) {
+        if (DEBUG) {
+          System.out.println("inbound  = " + inbound);
+        }
+        IBlock iBlock = iBlockCache.get(inbound.id);
+        if (iBlock == null) {
+          System.out.println("inbound iBlock is null, block = " + inbound);
+          continue;
+        }
+
+        Bag subBag = currentBag.addNestedBag(
+        		iBlock.endorser.vertexSet);
+        Separator separator = 
+            currentBag.addSeparator(inbound.separator);
+        
+        separator.incidentBags.add(bag);
+        separator.incidentBags.add(subBag);
+        
+        bag.incidentSeparators.add(separator);
+        subBag.incidentSeparators.add(separator);
+        iBlock.endorser.carryOutDecomposition(subBag);
+      }
+    }
+
+    private XBitSet inletsInduced() {
+      XBitSet result = new XBitSet(g.n);
+      for (Block b : inbounds) {
+        result.or(b.separator);
+      }
+      return result;
+    }
+
+    public String toString() {
+
+      StringBuilder sb = new StringBuilder();
+      sb.append("PMC");
+      if (isValid) {
+        sb.append("(valid):\n");
+      }
+      else {
+        sb.append("(invalid):\n");
+      }
+      sb.append("  sep     : " + vertexSet + "\n");
+      sb.append("  outbound: " + outbound + "\n");
+
+      for (Block b : inbounds) {
+        sb.append("  inbound : " + b + "\n");
+      }
+      return sb.toString();
+    }
+  }
+
+  int numberOfEnabledBlocks() {
+    return iBlockCache.size();
+  }
+
+  void dumpPendings() {
+    System.out.println("pending endorsers\n");
+    for (PMC endorser : pendingEndorsers) {
+      System.out.print(endorser);
+    }
+  }
+
+  void log(String logHeader) {
+    if (VERBOSE) {
+
+      int sizes[] = oBlockSieve.getSizes();
+
+      System.out.println(logHeader);
+      System.out.print("n = " + g.n + " width = " + targetWidth + ", oBlocks = "
+          + oBlockCache.size() + Arrays.toString(sizes));
+      System.out.print(", endorsed = " + iBlockCache.size());
+      System.out.print(", pendings = " + pendingEndorsers.size());
+      System.out.println(", blocks = " + blockCache.size());
+    }
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2017, Hisao Tamaki
+ */
+
+package tw.exact;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Map from the ids given by a {@code VertexSetTable} to values,
+ * stored in chunked arrays indexed by the ids.
+ * The map may be shared by threads: {@code get} is lock-free and
+ * {@code putIfAbsent} is atomic.
+ */
+public class IdMap<V> {
+  private static final int CHUNK_BITS = 10;
+  private static final int CHUNK = 1 << CHUNK_BITS;
+  private static final int CHUNK_MASK = CHUNK - 1;
+
+  private volatile AtomicReferenceArray<V>[] chunks;
+  private AtomicInteger size = new AtomicInteger();
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  public IdMap() {
+    chunks = new AtomicReferenceArray[0];
+  }
+
+  /**
+   * @param id an id, possibly -1 for a set absent from the table
+   * @return the value for the id, or {@code null} if none
+   */
+  public V get(int id) {
+    if (id < 0) {
+      return null;
+    }
+    AtomicReferenceArray<V>[] cs = chunks;
+    int c = id >>> CHUNK_BITS;
+    if (c >= cs.length || cs[c] == null) {
+      return null;
+    }
+    return cs[c].get(id & CHUNK_MASK);
+  }
+
+  public void put(int id, V value) {
+    if (chunk(id).getAndSet(id & CHUNK_MASK, value) == null) {
+      size.incrementAndGet();
+    }
+  }
+
+  /**
+   * @return the value already present for the id, or {@code null}
+   * if the given value has been put
+   */
+  public V putIfAbsent(int id, V value) {
+    AtomicReferenceArray<V> chunk = chunk(id);
+    if (chunk.compareAndSet(id & CHUNK_MASK, null, value)) {
+      size.incrementAndGet();
+      return null;
+    }
+    return chunk.get(id & CHUNK_MASK);
+  }
+
+  public int size() {
+    return size.get();
+  }
+
+  /**
+   * @return the list of values in the increasing order of their ids
+   */
+  public ArrayList<V> values() {
+    ArrayList<V> result = new ArrayList<>();
+    for (AtomicReferenceArray<V> chunk: chunks) {
+      if (chunk == null) {
+        continue;
+      }
+      for (int i = 0; i < CHUNK; i++) {
+        V value = chunk.get(i);
+        if (value != null) {
+          result.add(value);
+        }
+      }
+    }
+    return result;
+  }
+
+  private AtomicReferenceArray<V> chunk(int id) {
+    int c = id >>> CHUNK_BITS;
+    AtomicReferenceArray<V>[] cs = chunks;
+    if (c < cs.length && cs[c] != null) {
+      return cs[c];
+    }
+    synchronized (this) {
+      cs = chunks;
+      if (c < cs.length && cs[c] != null) {
+        return cs[c];
+      }
+      // copy on write, so that readers see the chunk fully created
+      cs = Arrays.copyOf(cs, Math.max(c + 1, cs.length));
+      cs[c] = new AtomicReferenceArray<>(CHUNK);
+      chunks = cs;
+      return cs[c];
+    }
+  }
+}
@@ -0,0 +1,260 @@
+/*
+ * Copyright (c) 2017, Hisao Tamaki
+ */
+
+package tw.exact;
+
+import java.util.Arrays;
+
+/**
+ * Lower bounds on the treewidth of a graph, obtained by contracting
+ * edges: the treewidth of a minor of a graph is not larger than that
+ * of the graph, and the treewidth of a graph with at least two
+ * vertices is at least its second smallest degree, that is, the
+ * degree of the second vertex when the vertices are ordered by degree.
+ * <p>
+ * A vertex of the minimum degree is contracted into one of its
+ * neighbors, chosen by the strategy, until the minor becomes
+ * too small to give a larger bound.
+ * The largest of the second smallest degrees of the minors
+ * is the bound.
+ * Strategy {@code minD} contracts into a neighbor of
+ * the minimum degree, as in minor-min-width,
+ * and {@code leastC} into a neighbor with the fewest common neighbors,
+ * as in MMD+ (least-c). With the minimum degree in place of the
+ * second smallest, these are the estimates from below of the
+ * contraction degeneracy, the maximum of the minimum degrees of
+ * the minors.
+ * <p>
+ * The minor is held in adjacency arrays, updated in place by each
+ * contraction, and its vertices in buckets by degree.
+ */
+public class LowerBound {
+  public static enum Strategy {
+    minD, leastC
+  }
+
+  int n;
+  int[][] adj;
+  int[] degree;
+  int[] head;
+  int[] next;
+  int[] prev;
+  int minDegree;
+  int[] mark;
+  int stamp;
+  long steps;
+  long maxSteps;
+
+  /**
+   * Computes the larger of the lower bounds by the two strategies
+   * @param g the graph
+   * @return the lower bound on the treewidth of {@code g}
+   */
+  public static int compute(Graph g) {
+    return compute(g, Long.MAX_VALUE);
+  }
+
+  /**
+   * Computes the larger of the lower bounds by the two strategies,
+   * each stopped with the bound so far after the given number of steps
+   * @param g the graph
+   * @param maxSteps the number of steps for each strategy
+   * @return the lower bound on the treewidth of {@code g}
+   */
+  public static int compute(Graph g, long maxSteps) {
+    return Math.max(
+        new LowerBound(g).contract(Strategy.minD, maxSteps),
+        new LowerBound(g).contract(Strategy.leastC, maxSteps));
+  }
+
+  /**
+   * @param g the graph
+   * @return the minor-min-width lower bound on the treewidth of {@code g}
+   */
+  public static int minorMinWidth(Graph g) {
+    return new LowerBound(g).contract(Strategy.minD, Long.MAX_VALUE);
+  }
+
+  /**
+   * @param g the graph
+   * @return the MMD+ (least-c) lower bound on the treewidth of {@code g}
+   */
+  public static int mmdPlus(Graph g) {
+    return new LowerBound(g).contract(Strategy.leastC, Long.MAX_VALUE);
+  }
+
+  LowerBound(Graph g) {
+    n = g.n;
+    adj = new int[n][];
+    degree = new int[n];
+    for (int v = 0; v < n; v++) {
+      degree[v] = g.degree[v];
+      adj[v] = g.neighbors(v);
+    }
+    head = new int[n];
+    Arrays.fill(head, -1);
+    next = new int[n];
+    prev = new int[n];
+    minDegree = n;
+    for (int v = 0; v < n; v++) {
+      insert(v);
+    }
+    mark = new int[n];
+  }
+
+  /**
+   * Contracts the graph by the given strategy
+   * @param strategy the choice of the neighbor to contract into
+   * @param maxSteps the number of steps after which the bound so far
+   * is returned
+   * @return the lower bound
+   */
+  int contract(Strategy strategy, long maxSteps) {
+    this.maxSteps = maxSteps;
+    int lb = 0;
+    int remaining = n;
+    // a minor of r vertices has no second smallest degree above r - 1
+    while (remaining > lb + 1 && steps <= maxSteps) {
+      while (head[minDegree] < 0) {
+        minDegree++;
+      }
+      int v = head[minDegree];
+      int d2 = minDegree;
+      if (next[v] < 0) {
+        d2++;
+        while (head[d2] < 0) {
+          d2++;
+        }
+      }
+      if (d2 > lb) {
+        lb = d2;
+      }
+      remove(v);
+      remaining--;
+      if (degree[v] == 0) {
+        continue;
+      }
+      int u = strategy == Strategy.minD ?
+          minDegreeNeighbor(v) : leastCommonNeighbor(v);
+      contract(v, u);
+    }
+    return lb;
+  }
+
+  private int minDegreeNeighbor(int v) {
+    int best = -1;
+    for (int i = 0; i < degree[v]; i++) {
+      int u = adj[v][i];
+      if (best < 0 || degree[u] < degree[best]) {
+        best = u;
+      }
+    }
+    steps += degree[v];
+    return best;
+  }
+
+  private int leastCommonNeighbor(int v) {
+    stamp++;
+    for (int i = 0; i < degree[v]; i++) {
+      mark[adj[v][i]] = stamp;
+    }
+    int best = -1;
+    int bestCommon = 0;
+    for (int i = 0; i < degree[v]; i++) {
+      int u = adj[v][i];
+      int common = 0;
+      for (int j = 0; j < degree[u]; j++) {
+        if (mark[adj[u][j]] == stamp) {
+          common++;
+        }
+      }
+      steps += degree[u];
+      if (best < 0 || common < bestCommon ||
+          common == bestCommon && degree[u] < degree[best]) {
+        best = u;
+        bestCommon = common;
+      }
+    }
+    return best;
+  }
+
+  /*
+   * contracts vertex v, already out of the buckets, into its
+   * neighbor u
+   */
+  private void contract(int v, int u) {
+    stamp++;
+    for (int i = 0; i < degree[u]; i++) {
+      mark[adj[u][i]] = stamp;
+    }
+    remove(u);
+    removeFrom(u, v);
+    for (int i = 0; i < degree[v]; i++) {
+      int w = adj[v][i];
+      if (w == u) {
+        continue;
+      }
+      remove(w);
+      if (mark[w] == stamp) {
+        removeFrom(w, v);
+      }
+      else {
+        adj[w][indexOf(w, v)] = u;
+        addTo(u, w);
+      }
+      insert(w);
+      steps += degree[w];
+    }
+    insert(u);
+    adj[v] = null;
+    degree[v] = 0;
+  }
+
+  private int indexOf(int w, int v) {
+    int[] a = adj[w];
+    for (int i = 0; i < degree[w]; i++) {
+      if (a[i] == v) {
+        return i;
+      }
+    }
+    throw new RuntimeException(v + " is not adjacent to " + w);
+  }
+
+  private void removeFrom(int w, int v) {
+    int i = indexOf(w, v);
+    adj[w][i] = adj[w][--degree[w]];
+  }
+
+  private void addTo(int u, int w) {
+    if (degree[u] == adj[u].length) {
+      adj[u] = Arrays.copyOf(adj[u], Math.max(4, 2 * degree[u]));
+    }
+    adj[u][degree[u]++] = w;
+  }
+
+  private void insert(int v) {
+    int d = degree[v];
+    prev[v] = -1;
+    next[v] = head[d];
+    if (head[d] >= 0) {
+      prev[head[d]] = v;
+    }
+    head[d] = v;
+    if (d < minDegree) {
+      minDegree = d;
+    }
+  }
+
+  private void remove(int v) {
+    if (prev[v] >= 0) {
+      next[prev[v]] = next[v];
+    }
+    else {
+      head[degree[v]] = next[v];
+    }
+    if (next[v] >= 0) {
+      prev[next[v]] = prev[v];
+    }
+  }
+}
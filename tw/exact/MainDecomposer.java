@@ -1,170 +1,428 @@
-/*
- * Copyright (c) 2017, Hisao Tamaki
- */
-
-package tw.exact;
-
-import java.io.File;
-
-
-
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
-import java.io.PrintStream;
-import java.lang.management.GarbageCollectorMXBean;
-import java.lang.management.ManagementFactory;
-import java.lang.management.ThreadMXBean;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.Random;
-
-public class MainDecomposer {
-  private static boolean VERBOSE = false;
-//  private static boolean VERBOSE = true;
-  private static boolean DEBUG = false;
-//private static boolean debug = true;
-
-  private static long time0;
-
-  public static TreeDecomposition decompose(Graph g) {
-    log("decompose n = " + g.n);
-    if (g.n == 0) {
-      TreeDecomposition td = new TreeDecomposition(0, -1, g);
-      return td;
-    }
-
-    ArrayList<XBitSet> components = g.getComponents(new XBitSet());
-    
-    int nc = components.size();
-    if (nc == 1) {
-      return decomposeConnected(g);      
-    }
-    
-    int invs[][] = new int[nc][];
-    Graph graphs[] = new Graph[nc];
-    
-    for (int i = 0; i < nc; i++) {
-      XBitSet compo = components.get(i);
-      int nv = compo.cardinality();
-      graphs[i] = new Graph(nv);
-      invs[i] = new int[nv];
-      int conv[] = new int[g.n];
-      int k = 0;
-      for (int v = 0; v < g.n; v++) {
-        if (compo.get(v)) {
-          conv[v] = k;
-          invs[i][k] = v;
-          k++;
-        }
-        else {
-          conv[v] = -1;
-        }
-      }
-      graphs[i].inheritEdges(g, conv, invs[i]);
-    }
-
-    TreeDecomposition td = new TreeDecomposition(0, 0, g);
-    
-    for (int i = 0; i < nc; i++) {
-      TreeDecomposition td1 = decomposeConnected(graphs[i]);
-      if (td1 == null) {
-        return null;
-      }
-      td.combineWith(td1, invs[i], null);
-    }
-    return td;
-  }
-  
-  public static TreeDecomposition decomposeConnected(Graph g) {
-    log("decomposeConnected: n = " + g.n);
-
-    if (g.n <= 2) {
-      TreeDecomposition td = new TreeDecomposition(0, g.n - 1, g);
-      td.addBag(g.all.toArray());
-      return td;
-    }
-    
-    Bag best = null;
-    
-    GreedyDecomposer.Mode[] modes = 
-        new GreedyDecomposer.Mode[]{
-            GreedyDecomposer.Mode.fill,
-            GreedyDecomposer.Mode.defect,
-            GreedyDecomposer.Mode.degree
-            };
-    
-    for (GreedyDecomposer.Mode mode: modes) { 
-      Bag whole = new Bag(g); 
-
-      GreedyDecomposer mfd = new GreedyDecomposer(whole, mode);
-//      GreedyDecomposer mfd = new GreedyDecomposer(whole);
-
-      mfd.decompose();
-
-      log("greedy decomposition (" + mode + ") obtained with " +
-            whole.nestedBags.size() + " bags and width " + 
-            whole.width);
-
-      whole.detectSafeSeparators();
-
-      log(whole.countSafeSeparators() + " safe separators found ");
-
-      whole.validate();
-      
-      whole.pack();
-      
-      whole.validate();
-
-      log("the decomposition packed into " +
-            whole.nestedBags.size() + " bags, separatorWidth = " + 
-            whole.separatorWidth + ", max bag size = " + 
-            whole.maxNestedBagSize());
-
-      if (best == null ||
-          whole.maxNestedBagSize() < best.maxNestedBagSize()) {
-        best = whole;
-      }
-    }
-//    best = whole;
-   
-    //    whole.dump();
-
-    int lowestPossible = best.separatorWidth;
-    
-    for (Bag bag: best.nestedBags) {
-      if (bag.getWidth() > lowestPossible) {
-        bag.makeRefinable();
-        IODecomposer mtd = new IODecomposer(bag, g.minDegree(), g.n - 1);
-        mtd.decompose();
-        int w = bag.getWidth();
-        if (w > lowestPossible) {
-          lowestPossible = w;
-        }
-      }
-    }
-    
-    log("flattening");
-    
-    best.flatten();
-
-    log("the decomposition flattened into " +
-          best.nestedBags.size() + " bags");
-    
-//    whole.dump();
-    
-    return best.toTreeDecomposition();
-  }
-  
-  static void log(String message) {
-    if (VERBOSE) {
-      System.out.println(message);
-    }
-  }
-
-  public static void main(String[] args) {
-    Graph g = Graph.readGraph(System.in);
-    TreeDecomposition td = decompose(g);
-    td.writeTo(System.out);
-  }
-}
+/*
+ * Copyright (c) 2017, Hisao Tamaki
+ */
+
+package tw.exact;
+
+import java.io.File;
+
+
+
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class MainDecomposer {
+  private static boolean VERBOSE = false;
+//  private static boolean VERBOSE = true;
+  private static boolean DEBUG = false;
+//private static boolean debug = true;
+
+  private static long time0;
+
+  /**
+   * number of worker threads used by the {@code IODecomposer}, or 
+   * for the bags decomposed in parallel if there are more than one;
+   * set by the command line option {@code -p}
+   */
+  private static int parallelism = 1;
+
+  /**
+   * interval in milliseconds between the snapshots of the search 
+   * statistics, 0 for the final snapshot only, or -1 if the statistics
+   * are not collected; set by the command line option
+   * {@code --stats-interval}
+   */
+  private static long statsInterval = -1;
+
+  /**
+   * file to which the snapshots are appended as JSON lines, or 
+   * {@code null} for the standard error; set by the option {@code -o}
+   */
+  private static String statsPath = null;
+
+  /**
+   * number of greedy runs with randomized tie-breaking in addition 
+   * to those of the deterministic modes; set by the option {@code -g}
+   */
+  private static int randomizedRuns = 0;
+
+  /**
+   * time budget in milliseconds for the greedy runs, 0 for no limit;
+   * set by the option {@code -b}
+   */
+  private static long greedyBudget = 0;
+
+  public static TreeDecomposition decompose(Graph g) {
+    log("decompose n = " + g.n);
+    Reduction reduction = new Reduction(g, LowerBound.compute(g));
+    Graph reduced = reduction.reduce();
+    log("reduced to n = " + reduced.n + ", low = " + reduction.getLow());
+    return reduction.lift(decomposeReduced(reduced, reduction.getLow()));
+  }
+
+  /**
+   * Decomposes the graph reduced by {@code Reduction}
+   * @param g the reduced graph
+   * @param low the lower bound on the width of the original graph
+   * @return the tree decomposition of {@code g}
+   */
+  private static TreeDecomposition decomposeReduced(Graph g, int low) {
+    if (g.n == 0) {
+      TreeDecomposition td = new TreeDecomposition(0, -1, g);
+      return td;
+    }
+
+    ArrayList<XBitSet> components = g.getComponents(new XBitSet());
+    
+    int nc = components.size();
+    if (nc == 1) {
+      return decomposeConnected(g, low);      
+    }
+    
+    int invs[][] = new int[nc][];
+    Graph graphs[] = new Graph[nc];
+    
+    for (int i = 0; i < nc; i++) {
+      XBitSet compo = components.get(i);
+      int nv = compo.cardinality();
+      graphs[i] = new Graph(nv);
+      invs[i] = new int[nv];
+      int conv[] = new int[g.n];
+      int k = 0;
+      for (int v = 0; v < g.n; v++) {
+        if (compo.get(v)) {
+          conv[v] = k;
+          invs[i][k] = v;
+          k++;
+        }
+        else {
+          conv[v] = -1;
+        }
+      }
+      graphs[i].inheritEdges(g, conv, invs[i]);
+    }
+
+    TreeDecomposition td = new TreeDecomposition(0, 0, g);
+    
+    for (int i = 0; i < nc; i++) {
+      TreeDecomposition td1 = decomposeConnected(graphs[i], low);
+      if (td1 == null) {
+        return null;
+      }
+      td.combineWith(td1, invs[i], null);
+    }
+    return td;
+  }
+  
+  public static TreeDecomposition decomposeConnected(Graph g) {
+    return decomposeConnected(g, 0);
+  }
+
+  /**
+   * Decomposes a connected graph, not trying widths below the
+   * given lower bound
+   * @param g the connected graph
+   * @param low a lower bound on the width, the decomposition
+   * being optimal if its width is not larger than this bound
+   * @return the tree decomposition of {@code g}
+   */
+  public static TreeDecomposition decomposeConnected(Graph g, int low) {
+    log("decomposeConnected: n = " + g.n);
+
+    if (g.n <= 2) {
+      TreeDecomposition td = new TreeDecomposition(0, g.n - 1, g);
+      td.addBag(g.all.toArray());
+      return td;
+    }
+    
+    Bag best = greedyPortfolio(g);
+//    best = whole;
+   
+    //    whole.dump();
+
+    int lowestPossible = Math.max(best.separatorWidth, 
+        Math.max(low, LowerBound.compute(g)));
+    log("lower bound = " + lowestPossible);
+    
+    ArrayList<Bag> hardBags = new ArrayList<>();
+    for (Bag bag: best.nestedBags) {
+      if (bag.getWidth() > lowestPossible) {
+        hardBags.add(bag);
+      }
+    }
+
+    if (parallelism > 1 && hardBags.size() > 1) {
+      decomposeInParallel(g, hardBags, lowestPossible);
+    }
+    else {
+      for (Bag bag: hardBags) {
+        if (bag.getWidth() > lowestPossible) {
+          bag.makeRefinable();
+          IODecomposer mtd = new IODecomposer(bag, lowestPossible, g.n - 1);
+          mtd.setParallelism(parallelism);
+          mtd.decompose();
+          int w = bag.getWidth();
+          if (w > lowestPossible) {
+            lowestPossible = w;
+          }
+        }
+      }
+    }
+    
+    log("flattening");
+    
+    best.flatten();
+
+    log("the decomposition flattened into " +
+          best.nestedBags.size() + " bags");
+    
+//    whole.dump();
+    
+    return best.toTreeDecomposition();
+  }
+  
+  /**
+   * Decomposes the given nested bags, which are independent after
+   * the packing, on a work-stealing pool of as many threads as
+   * set by the option {@code -p}, the biggest bags first, each by an
+   * {@code IODecomposer} of a single thread.
+   * The lower bound on the width is shared by the decomposers and
+   * raised to the width of each bag decomposed: a bag not wider than
+   * the bound when its turn comes is skipped, and the search for
+   * a bag is cut short when the bound is raised above its target
+   * width, see {@code IODecomposer.setSharedLowerBound}.
+   * @param g the graph of the parent of the bags
+   * @param bags the bags to be decomposed
+   * @param lowestPossible the lower bound to start with
+   */
+  static void decomposeInParallel(Graph g, ArrayList<Bag> bags, 
+      int lowestPossible) {
+    ArrayList<Bag> sorted = new ArrayList<>(bags);
+    sorted.sort((b1, b2) -> Integer.compare(b2.size, b1.size));
+
+    AtomicInteger lowerBound = new AtomicInteger(lowestPossible);
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    try {
+      ArrayList<Future<?>> futures = new ArrayList<>();
+      for (Bag bag: sorted) {
+        futures.add(pool.submit(() -> {
+          if (bag.getWidth() <= lowerBound.get()) {
+            return;
+          }
+          bag.makeRefinable();
+          IODecomposer mtd = new IODecomposer(bag, lowerBound.get(), 
+              g.n - 1);
+          mtd.setSharedLowerBound(lowerBound);
+          mtd.decompose();
+          lowerBound.accumulateAndGet(bag.getWidth(), Math::max);
+          log("bag of size " + bag.size + " decomposed, lower bound = " +
+              lowerBound.get());
+        }));
+      }
+      for (Future<?> future: futures) {
+        future.get();
+      }
+    } catch (ExecutionException e) {
+      throw new RuntimeException(e.getCause());
+    } catch (InterruptedException e) {
+      throw new RuntimeException(e);
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * Runs the greedy decomposition, followed by the detection of 
+   * safe separators and packing, in each of the modes and, 
+   * for the number of runs set by the option {@code -g}, in the fill 
+   * mode with randomized tie-breaking.
+   * The runs are concurrent, on as many threads as available 
+   * processors, and share the verdicts on the safety of 
+   * the separators.
+   * If a time budget is set by the option {@code -b}, the runs 
+   * not finished when it expires are cancelled, unless none has 
+   * finished, in which case the first to finish is waited for.
+   * @param g a connected graph
+   * @return the packed bag with the smallest maximum nested bag 
+   * among the finished runs, the earliest run winning ties
+   */
+  static Bag greedyPortfolio(Graph g) {
+    GreedyDecomposer.Mode[] modes = 
+        new GreedyDecomposer.Mode[]{
+            GreedyDecomposer.Mode.fill,
+            GreedyDecomposer.Mode.defect,
+            GreedyDecomposer.Mode.degree
+            };
+
+    SafetyChecker checker = new SafetyChecker(g);
+    checker.setParallelism(parallelism);
+
+    ArrayList<Callable<Bag>> runs = new ArrayList<>();
+    for (GreedyDecomposer.Mode mode: modes) { 
+      runs.add(() -> greedy(g, mode, null, checker));
+    }
+    for (int i = 0; i < randomizedRuns; i++) {
+      long seed = i + 1;
+      runs.add(() -> greedy(g, GreedyDecomposer.Mode.fill, 
+          new Random(seed), checker));
+    }
+
+    int nThreads = Math.min(runs.size(), 
+        Runtime.getRuntime().availableProcessors());
+    ExecutorService executor = Executors.newFixedThreadPool(nThreads, 
+        r -> {
+          Thread t = new Thread(r, "greedy");
+          t.setDaemon(true);
+          return t;
+        });
+    CompletionService<Bag> completion = 
+        new ExecutorCompletionService<>(executor);
+    ArrayList<Future<Bag>> futures = new ArrayList<>();
+    for (Callable<Bag> run: runs) {
+      futures.add(completion.submit(run));
+    }
+
+    try {
+      long deadline = System.currentTimeMillis() + greedyBudget;
+      int finished = 0;
+      while (finished < futures.size()) {
+        if (greedyBudget > 0 && finished > 0) {
+          long rest = deadline - System.currentTimeMillis();
+          if (rest <= 0 || completion.poll(rest, TimeUnit.MILLISECONDS) 
+              == null) {
+            log("greedy time budget expired with " + finished + 
+                " of " + futures.size() + " runs finished");
+            break;
+          }
+        }
+        else {
+          completion.take();
+        }
+        finished++;
+      }
+
+      Bag best = null;
+      for (Future<Bag> future: futures) {
+        if (!future.isDone()) {
+          future.cancel(true);
+          continue;
+        }
+        Bag whole = future.get();
+        if (best == null ||
+            whole.maxNestedBagSize() < best.maxNestedBagSize()) {
+          best = whole;
+        }
+      }
+      return best;
+    } catch (ExecutionException e) {
+      throw new RuntimeException(e.getCause());
+    } catch (InterruptedException e) {
+      throw new RuntimeException(e);
+    } finally {
+      executor.shutdownNow();
+      checker.shutdown();
+    }
+  }
+
+  /**
+   * Decomposes the graph greedily and packs the decomposition
+   * on its safe separators
+   * @param g a connected graph
+   * @param mode the greedy mode
+   * @param random random generator for tie-breaking, or {@code null}
+   * @param checker the checker of the safety of the separators of g
+   * @return the bag of the whole graph holding the packed decomposition
+   */
+  static Bag greedy(Graph g, GreedyDecomposer.Mode mode, Random random,
+      SafetyChecker checker) {
+    Bag whole = new Bag(g); 
+
+    GreedyDecomposer mfd = new GreedyDecomposer(whole, mode, random);
+
+    mfd.decompose();
+
+    log("greedy decomposition (" + mode + ") obtained with " +
+          whole.nestedBags.size() + " bags and width " + 
+          whole.width);
+
+    whole.detectSafeSeparators(checker);
+
+    log(whole.countSafeSeparators() + " safe separators found ");
+
+    whole.validate();
+    
+    whole.pack();
+    
+    whole.validate();
+
+    log("the decomposition packed into " +
+          whole.nestedBags.size() + " bags, separatorWidth = " + 
+          whole.separatorWidth + ", max bag size = " + 
+          whole.maxNestedBagSize());
+    return whole;
+  }
+
+  static void log(String message) {
+    if (VERBOSE) {
+      System.out.println(message);
+    }
+  }
+
+  public static void main(String[] args) {
+    for (int i = 0; i < args.length; i++) {
+      if ("-p".equals(args[i]) && i + 1 < args.length) {
+        parallelism = Integer.parseInt(args[++i]);
+      }
+      else if ("-c".equals(args[i])) {
+        LayeredSieve.compact = true;
+      }
+      else if ("-g".equals(args[i]) && i + 1 < args.length) {
+        randomizedRuns = Integer.parseInt(args[++i]);
+      }
+      else if ("-b".equals(args[i]) && i + 1 < args.length) {
+        greedyBudget = Long.parseLong(args[++i]);
+      }
+      else if ("-i".equals(args[i])) {
+        IODecomposer.incremental = true;
+      }
+      else if ("--stats-interval".equals(args[i]) && i + 1 < args.length) {
+        statsInterval = Long.parseLong(args[++i]);
+      }
+      else if ("-o".equals(args[i]) && i + 1 < args.length) {
+        statsPath = args[++i];
+      }
+    }
+    DecomposerStats stats = null;
+    if (statsInterval >= 0) {
+      try {
+        stats = DecomposerStats.enable(statsPath, statsInterval);
+      } catch (FileNotFoundException e) {
+        System.err.println("cannot open " + statsPath + ": " + e);
+      }
+    }
+    Graph g = Graph.readGraph(System.in);
+    TreeDecomposition td = decompose(g);
+    td.writeTo(System.out);
+    if (stats != null) {
+      stats.emit();
+    }
+  }
+}
@@ -0,0 +1,421 @@
+/*
+ * Copyright (c) 2017, Hisao Tamaki
+ */
+
+package tw.exact;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Minimum degree elimination in the style of AMD (approximate
+ * minimum degree), used for {@code GreedyDecomposer.Mode.degree}
+ * in place of filling the neighbor sets and scanning all the
+ * remaining vertices for each elimination.
+ * <p>
+ * The filled graph is never formed: it is represented by a quotient
+ * graph, in which each eliminated vertex becomes an element standing
+ * for the clique on its neighbors and the elements adjacent to it
+ * are absorbed. The degrees are the approximate external degrees of
+ * AMD, kept in bucket lists, and vertices with the same adjacency
+ * in the quotient graph are merged into supervariables and
+ * eliminated together. The memory used is linear in the size of
+ * the graph.
+ * <p>
+ * The elimination is emitted as the nested bags and separators of
+ * the whole bag, as {@code GreedyDecomposer} does: each elimination
+ * adds the bag of the pivot and its neighbors, with the neighbors as
+ * the separator, incident to the separators of the elements
+ * absorbed.
+ */
+public class MinDegreeDecomposer {
+  private static final byte VARIABLE = 0;
+  private static final byte ELEMENT = 1;
+  private static final byte ABSORBED = 2;
+  private static final byte MERGED = 3;
+
+  Bag whole;
+  Graph g;
+  int n;
+
+  byte[] state;
+
+  /*
+   * for a variable, the elements and the variables adjacent to it;
+   * for an element, the variables adjacent to it in variables
+   * and null in elements
+   */
+  int[][] elements;
+  int[] elementCount;
+  int[][] variables;
+  int[] variableCount;
+
+  /* the number of vertices of each supervariable and their list */
+  int[] weight;
+  int[] nextMember;
+  int[] lastMember;
+
+  /* the total weight of the variables adjacent to each element */
+  int[] elementWeight;
+  Separator[] separatorOf;
+
+  int[] degree;
+  int[] head;
+  int[] next;
+  int[] previous;
+  int minDegree;
+  int remainingWeight;
+
+  int[] mark;
+  int[] external;
+  int stamp;
+
+  Set<Separator> emptied;
+
+  public MinDegreeDecomposer(Bag whole) {
+    this.whole = whole;
+    this.g = whole.graph;
+    this.n = g.n;
+  }
+
+  /**
+   * Decomposes the bag.
+   * The decomposition stops with a {@code CancellationException}
+   * if the running thread is interrupted.
+   */
+  public void decompose() {
+    whole.initializeForDecomposition();
+    initialize();
+
+    while (remainingWeight > 0) {
+      if (Thread.interrupted()) {
+        throw new CancellationException("greedy decomposition interrupted");
+      }
+      while (head[minDegree] < 0) {
+        minDegree++;
+      }
+      int p = head[minDegree];
+      removeFromBucket(p);
+      eliminate(p);
+    }
+
+    if (!emptied.isEmpty()) {
+      whole.separators.removeIf(emptied::contains);
+    }
+    whole.setWidth();
+  }
+
+  private void initialize() {
+    state = new byte[n];
+    elements = new int[n][];
+    elementCount = new int[n];
+    variables = new int[n][];
+    variableCount = new int[n];
+    weight = new int[n];
+    nextMember = new int[n];
+    lastMember = new int[n];
+    elementWeight = new int[n];
+    separatorOf = new Separator[n];
+    degree = new int[n];
+    head = new int[n + 1];
+    next = new int[n];
+    previous = new int[n];
+    mark = new int[n];
+    external = new int[n];
+    emptied = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    Arrays.fill(head, -1);
+    for (int v = 0; v < n; v++) {
+      int d = g.degree[v];
+      variables[v] = g.neighbors(v);
+      variableCount[v] = d;
+      elements[v] = new int[2];
+      weight[v] = 1;
+      nextMember[v] = -1;
+      lastMember[v] = v;
+      degree[v] = d;
+      addToBucket(v);
+    }
+    remainingWeight = n;
+    minDegree = 0;
+  }
+
+  private void addToBucket(int v) {
+    int d = degree[v];
+    previous[v] = -1;
+    next[v] = head[d];
+    if (head[d] >= 0) {
+      previous[head[d]] = v;
+    }
+    head[d] = v;
+    if (d < minDegree) {
+      minDegree = d;
+    }
+  }
+
+  private void removeFromBucket(int v) {
+    if (previous[v] >= 0) {
+      next[previous[v]] = next[v];
+    }
+    else {
+      head[degree[v]] = next[v];
+    }
+    if (next[v] >= 0) {
+      previous[next[v]] = previous[v];
+    }
+  }
+
+  private static int[] append(int[] a, int size, int x) {
+    if (size == a.length) {
+      a = Arrays.copyOf(a, Math.max(4, 2 * size));
+    }
+    a[size] = x;
+    return a;
+  }
+
+  private void eliminate(int p) {
+    stamp++;
+    mark[p] = stamp;
+
+    /*
+     * the variables adjacent to p through the elements, and then
+     * directly; the elimination extends the only element adjacent
+     * to p if there is no other
+     */
+    int[] lp = new int[8];
+    int size = 0;
+    int lpWeight = 0;
+    int absorbed = -1;
+    int elementsAdjacent = 0;
+    for (int k = 0; k < elementCount[p]; k++) {
+      int e = elements[p][k];
+      if (state[e] != ELEMENT) {
+        continue;
+      }
+      elementsAdjacent++;
+      absorbed = e;
+      for (int j = 0; j < variableCount[e]; j++) {
+        int i = variables[e][j];
+        if (state[i] == VARIABLE && mark[i] != stamp) {
+          mark[i] = stamp;
+          lp = append(lp, size++, i);
+          lpWeight += weight[i];
+        }
+      }
+    }
+    boolean extendsElement = elementsAdjacent == 1;
+    for (int k = 0; k < variableCount[p]; k++) {
+      int i = variables[p][k];
+      if (state[i] == VARIABLE && mark[i] != stamp) {
+        mark[i] = stamp;
+        lp = append(lp, size++, i);
+        lpWeight += weight[i];
+        extendsElement = false;
+      }
+    }
+    lp = Arrays.copyOf(lp, size);
+
+    if (extendsElement) {
+      Separator s = separatorOf[absorbed];
+      if (s != null) {
+        for (int v = p; v >= 0; v = nextMember[v]) {
+          s.removeVertex(v);
+        }
+        if (s.vertexSet.isEmpty()) {
+          emptied.add(s);
+          for (Bag b: s.incidentBags) {
+            b.incidentSeparators.remove(s);
+          }
+          s = null;
+        }
+      }
+      separatorOf[p] = s;
+    }
+    else {
+      int[] members = new int[weight[p] + lpWeight];
+      int m = 0;
+      for (int v = p; v >= 0; v = nextMember[v]) {
+        members[m++] = v;
+      }
+      for (int i: lp) {
+        for (int v = i; v >= 0; v = nextMember[v]) {
+          members[m++] = v;
+        }
+      }
+      Bag bag = whole.addNestedBag(new XBitSet(n, members));
+      if (lpWeight > 0) {
+        Separator s = whole.addSeparator(new XBitSet(n,
+            Arrays.copyOfRange(members, weight[p], m)));
+        s.addIncidentBag(bag);
+        bag.addIncidentSeparator(s);
+        separatorOf[p] = s;
+      }
+      for (int k = 0; k < elementCount[p]; k++) {
+        int e = elements[p][k];
+        if (state[e] == ELEMENT && separatorOf[e] != null) {
+          separatorOf[e].addIncidentBag(bag);
+          bag.addIncidentSeparator(separatorOf[e]);
+        }
+      }
+    }
+
+    for (int k = 0; k < elementCount[p]; k++) {
+      int e = elements[p][k];
+      if (state[e] == ELEMENT) {
+        state[e] = ABSORBED;
+        variables[e] = null;
+        separatorOf[e] = null;
+      }
+    }
+
+    state[p] = ELEMENT;
+    elements[p] = null;
+    variables[p] = lp;
+    variableCount[p] = size;
+    elementWeight[p] = lpWeight;
+    remainingWeight -= weight[p];
+
+    updateDegrees(p, lp, lpWeight);
+    detectSupervariables(p, lp);
+
+    for (int i: lp) {
+      if (state[i] == VARIABLE) {
+        addToBucket(i);
+      }
+    }
+  }
+
+  /*
+   * the approximate external degree of AMD of each variable i
+   * adjacent to the new element p: the smallest of the number of
+   * the other remaining vertices, the old degree plus |Lp \ i|, and
+   * |Ai \ i| + |Lp \ i| + the sum of |Le \ Lp| over the other
+   * elements e adjacent to i
+   */
+  private void updateDegrees(int p, int[] lp, int lpWeight) {
+    int outer = stamp;
+    for (int i: lp) {
+      removeFromBucket(i);
+      for (int k = 0; k < elementCount[i]; k++) {
+        int e = elements[i][k];
+        if (state[e] != ELEMENT) {
+          continue;
+        }
+        if (mark[e] != outer) {
+          mark[e] = outer;
+          external[e] = elementWeight[e];
+        }
+        external[e] -= weight[i];
+      }
+    }
+
+    for (int i: lp) {
+      int sum = 0;
+      int kept = 0;
+      int[] ei = elements[i];
+      for (int k = 0; k < elementCount[i]; k++) {
+        int e = ei[k];
+        if (state[e] == ELEMENT) {
+          ei[kept++] = e;
+          sum += external[e];
+        }
+      }
+      elements[i] = append(ei, kept, p);
+      elementCount[i] = kept + 1;
+
+      kept = 0;
+      int[] ai = variables[i];
+      for (int k = 0; k < variableCount[i]; k++) {
+        int j = ai[k];
+        if (state[j] == VARIABLE && mark[j] != outer) {
+          ai[kept++] = j;
+          sum += weight[j];
+        }
+      }
+      variableCount[i] = kept;
+
+      int others = lpWeight - weight[i];
+      int d = Math.min(remainingWeight - weight[i], degree[i] + others);
+      d = Math.min(d, sum + others);
+      degree[i] = d;
+    }
+  }
+
+  /*
+   * merges the variables adjacent to p that have the same elements
+   * and the same variables adjacent, comparing only those with equal
+   * hashes of their lists; the variables adjacent to p are no longer
+   * in the lists of each other, being covered by p
+   */
+  private void detectSupervariables(int p, int[] lp) {
+    if (lp.length < 2) {
+      return;
+    }
+    long[] keys = new long[lp.length];
+    for (int k = 0; k < lp.length; k++) {
+      int i = lp[k];
+      long h = 0;
+      for (int j = 0; j < elementCount[i]; j++) {
+        h += elements[i][j];
+      }
+      for (int j = 0; j < variableCount[i]; j++) {
+        h += variables[i][j];
+      }
+      keys[k] = ((h & 0x7fffffffL) << 32) | i;
+    }
+    Arrays.sort(keys);
+
+    for (int a = 0; a < keys.length; a++) {
+      int i = (int) keys[a];
+      if (state[i] != VARIABLE) {
+        continue;
+      }
+      for (int b = a + 1; b < keys.length &&
+          (keys[b] >>> 32) == (keys[a] >>> 32); b++) {
+        int j = (int) keys[b];
+        if (state[j] == VARIABLE && indistinguishable(i, j)) {
+          merge(i, j);
+        }
+      }
+    }
+  }
+
+  private boolean indistinguishable(int i, int j) {
+    if (elementCount[i] != elementCount[j] ||
+        variableCount[i] != variableCount[j]) {
+      return false;
+    }
+    stamp++;
+    for (int k = 0; k < elementCount[i]; k++) {
+      mark[elements[i][k]] = stamp;
+    }
+    for (int k = 0; k < variableCount[i]; k++) {
+      mark[variables[i][k]] = stamp;
+    }
+    for (int k = 0; k < elementCount[j]; k++) {
+      if (mark[elements[j][k]] != stamp) {
+        return false;
+      }
+    }
+    for (int k = 0; k < variableCount[j]; k++) {
+      if (mark[variables[j][k]] != stamp) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private void merge(int i, int j) {
+    weight[i] += weight[j];
+    degree[i] -= weight[j];
+    weight[j] = 0;
+    state[j] = MERGED;
+    elements[j] = null;
+    variables[j] = null;
+    nextMember[lastMember[i]] = j;
+    lastMember[i] = lastMember[j];
+  }
+}
@@ -0,0 +1,443 @@
+/*
+ * Copyright (c) 2017, Hisao Tamaki
+ */
+
+package tw.exact;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Reduces a graph by the rules of Bodlaender, Koster and van den Eijkhof,
+ * which eliminate vertices without changing the treewidth as long as
+ * it is not smaller than the lower bound {@code low}, and lifts
+ * tree decompositions of the reduced graph to the original graph.
+ * <p>
+ * Eliminating a vertex makes its neighbors a clique and removes it.
+ * The rules are:
+ * <ul>
+ * <li> simplicial: a vertex whose neighbors form a clique is eliminated,
+ * raising {@code low} to its degree; this covers the islet and twig
+ * rules for the vertices of degree 0 and 1</li>
+ * <li> almost simplicial: a vertex of degree at most {@code low}
+ * whose neighbors but one form a clique is eliminated; this covers
+ * the series and triangle rules for the vertices of degree 2 and 3</li>
+ * <li> buddy: two vertices of degree 3 with the same neighbors are
+ * eliminated if {@code low} is at least 3</li>
+ * </ul>
+ * The treewidth of the original graph is the larger of
+ * {@code low} and the treewidth of the reduced graph.
+ * The rules are applied until none applies.
+ */
+public class Reduction {
+  Graph g;
+  int low;
+
+  /*
+   * the graph being reduced, in adjacency arrays updated
+   * in place
+   */
+  int[][] adj;
+  int[] degree;
+  boolean[] eliminated;
+
+  /*
+   * the bags of the eliminated vertices in the order of elimination,
+   * each the vertex followed by its neighbors when eliminated
+   */
+  ArrayList<int[]> eliminationBags;
+
+  /*
+   * the vertices of the original graph for the vertices of the
+   * reduced graph
+   */
+  int[] inv;
+
+  int[] mark;
+  int stamp;
+
+  /**
+   * @param g the graph to be reduced
+   * @param low a lower bound on the treewidth of {@code g}
+   */
+  public Reduction(Graph g, int low) {
+    this.g = g;
+    this.low = low;
+  }
+
+  /**
+   * Reduces the graph
+   * @return the reduced graph
+   */
+  public Graph reduce() {
+    int n = g.n;
+    adj = new int[n][];
+    degree = new int[n];
+    for (int v = 0; v < n; v++) {
+      degree[v] = g.degree[v];
+      adj[v] = g.neighbors(v);
+    }
+    eliminated = new boolean[n];
+    eliminationBags = new ArrayList<>();
+    mark = new int[n];
+
+    int[] queue = new int[n];
+    boolean[] queued = new boolean[n];
+    boolean reduced = true;
+    while (reduced) {
+      // fill edges may enable a rule at a vertex not queued
+      reduced = false;
+      int head = 0;
+      int size = 0;
+      for (int v = 0; v < n; v++) {
+        if (!eliminated[v]) {
+          queue[size++] = v;
+          queued[v] = true;
+        }
+      }
+      while (size > 0) {
+        int v = queue[head];
+        head = (head + 1) % n;
+        size--;
+        queued[v] = false;
+        if (reduceAt(v)) {
+          reduced = true;
+          int[] bag = eliminationBags.get(eliminationBags.size() - 1);
+          for (int j = 1; j < bag.length; j++) {
+            int w = bag[j];
+            if (!eliminated[w] && !queued[w]) {
+              queue[(head + size) % n] = w;
+              size++;
+              queued[w] = true;
+            }
+          }
+        }
+      }
+    }
+
+    int nr = 0;
+    int[] conv = new int[n];
+    for (int v = 0; v < n; v++) {
+      conv[v] = eliminated[v] ? -1 : nr++;
+    }
+    inv = new int[nr];
+    Graph reducedGraph = new Graph(nr);
+    for (int v = 0; v < n; v++) {
+      if (eliminated[v]) {
+        continue;
+      }
+      inv[conv[v]] = v;
+      for (int i = 0; i < degree[v]; i++) {
+        int w = adj[v][i];
+        if (v < w) {
+          reducedGraph.addEdge(conv[v], conv[w]);
+        }
+      }
+    }
+    adj = null;
+    return reducedGraph;
+  }
+
+  /**
+   * @return the lower bound on the treewidth of the original graph,
+   * raised by the eliminations
+   */
+  public int getLow() {
+    return low;
+  }
+
+  /**
+   * @return the number of the eliminated vertices
+   */
+  public int getEliminatedCount() {
+    return eliminationBags.size();
+  }
+
+  /**
+   * Lifts a tree decomposition of the reduced graph to one of the
+   * original graph: in the reverse order of elimination, each
+   * eliminated vertex, with its neighbors, which are a clique when it
+   * is eliminated, is put in a bag attached to a bag containing the
+   * neighbors, or joins that bag if it consists of the neighbors.
+   * The bags are allocated at once for the bags of the reduced graph
+   * and the eliminated vertices.
+   * @param td the tree decomposition of the reduced graph, which is
+   * not modified
+   * @return the tree decomposition of the original graph
+   */
+  public TreeDecomposition lift(TreeDecomposition td) {
+    int ne = eliminationBags.size();
+    int nb0 = td.nb;
+    int[][] bags = new int[nb0 + ne + 1][];
+    for (int b = 1; b <= nb0; b++) {
+      bags[b] = new int[td.bags[b].length];
+      for (int j = 0; j < bags[b].length; j++) {
+        bags[b][j] = inv[td.bags[b][j]];
+      }
+    }
+
+    int[] position = new int[g.n];
+    Arrays.fill(position, ne);
+    for (int i = 0; i < ne; i++) {
+      position[eliminationBags.get(i)[0]] = i;
+    }
+
+    // the bags of the reduced graph containing each vertex
+    int[][] bagsOf = new int[g.n][];
+    int[] count = new int[g.n];
+    for (int b = 1; b <= nb0; b++) {
+      for (int v: bags[b]) {
+        count[v]++;
+      }
+    }
+    for (int v = 0; v < g.n; v++) {
+      bagsOf[v] = new int[count[v]];
+      count[v] = 0;
+    }
+    for (int b = 1; b <= nb0; b++) {
+      for (int v: bags[b]) {
+        bagsOf[v][count[v]++] = b;
+      }
+    }
+
+    int nb = nb0;
+    int width = td.width;
+    // the bag to which each bag added is attached, 0 if none
+    int[] parentOf = new int[nb0 + ne + 1];
+    boolean[] inClique = new boolean[g.n];
+    int[] bagIndex = new int[ne];
+    for (int i = ne - 1; i >= 0; i--) {
+      int[] bag = eliminationBags.get(i);
+      int parent = 0;
+      if (bag.length == 1) {
+        if (nb > 0) {
+          parent = 1;
+        }
+      }
+      else {
+        // the neighbor eliminated first has all the others as neighbors
+        int first = bag[1];
+        for (int j = 2; j < bag.length; j++) {
+          if (position[bag[j]] < position[first]) {
+            first = bag[j];
+          }
+        }
+        if (position[first] < ne) {
+          parent = bagIndex[position[first]];
+        }
+        else {
+          parent = findBagWith(bags, bag, bagsOf, inClique);
+        }
+      }
+      if (parent > 0 && bags[parent].length == bag.length - 1) {
+        // the parent consists of the neighbors
+        bags[parent] = bag;
+        bagIndex[i] = parent;
+      }
+      else {
+        nb++;
+        bags[nb] = bag;
+        parentOf[nb] = parent;
+        bagIndex[i] = nb;
+      }
+      if (bag.length - 1 > width) {
+        width = bag.length - 1;
+      }
+    }
+
+    TreeDecomposition result = new TreeDecomposition(nb, width, g);
+    for (int b = 1; b <= nb; b++) {
+      result.bags[b] = bags[b];
+    }
+    for (int b = 1; b <= nb0; b++) {
+      result.degree[b] = td.degree[b];
+    }
+    for (int b = nb0 + 1; b <= nb; b++) {
+      if (parentOf[b] > 0) {
+        result.degree[b]++;
+        result.degree[parentOf[b]]++;
+      }
+    }
+    int[] filled = new int[nb + 1];
+    for (int b = 1; b <= nb; b++) {
+      result.neighbor[b] = new int[result.degree[b]];
+      if (b <= nb0 && td.degree[b] > 0) {
+        System.arraycopy(td.neighbor[b], 0, result.neighbor[b], 0,
+            td.degree[b]);
+        filled[b] = td.degree[b];
+      }
+    }
+    for (int b = nb0 + 1; b <= nb; b++) {
+      int parent = parentOf[b];
+      if (parent > 0) {
+        result.neighbor[b][filled[b]++] = parent;
+        result.neighbor[parent][filled[parent]++] = b;
+      }
+    }
+    return result;
+  }
+
+  /*
+   * the index of a bag of the reduced graph containing the neighbors
+   * in the elimination bag
+   */
+  private static int findBagWith(int[][] bags, int[] bag,
+      int[][] bagsOf, boolean[] inClique) {
+    int v = bag[1];
+    for (int j = 2; j < bag.length; j++) {
+      if (bagsOf[bag[j]].length < bagsOf[v].length) {
+        v = bag[j];
+      }
+    }
+    for (int j = 1; j < bag.length; j++) {
+      inClique[bag[j]] = true;
+    }
+    int result = -1;
+    for (int b: bagsOf[v]) {
+      int found = 0;
+      for (int w: bags[b]) {
+        if (inClique[w]) {
+          found++;
+        }
+      }
+      if (found == bag.length - 1) {
+        result = b;
+        break;
+      }
+    }
+    for (int j = 1; j < bag.length; j++) {
+      inClique[bag[j]] = false;
+    }
+    if (result > 0) {
+      return result;
+    }
+    throw new RuntimeException("no bag contains the clique " +
+        Arrays.toString(bag));
+  }
+
+  /*
+   * applies a rule at vertex v, if any applies
+   */
+  private boolean reduceAt(int v) {
+    int d = degree[v];
+    int[] nb = adj[v];
+
+    // the number of the neighbors of v not adjacent to each neighbor
+    stamp++;
+    for (int i = 0; i < d; i++) {
+      mark[nb[i]] = stamp;
+    }
+    int[] missing = new int[d];
+    int totalMissing = 0;
+    for (int i = 0; i < d; i++) {
+      int u = nb[i];
+      int common = 0;
+      for (int j = 0; j < degree[u]; j++) {
+        if (mark[adj[u][j]] == stamp) {
+          common++;
+        }
+      }
+      missing[i] = d - 1 - common;
+      if (missing[i] > 0 && d > low) {
+        // only the simplicial rule may apply
+        return false;
+      }
+      totalMissing += missing[i];
+    }
+    totalMissing /= 2;
+
+    if (totalMissing == 0) {
+      if (d > low) {
+        low = d;
+      }
+      eliminate(v);
+      return true;
+    }
+    if (d > low) {
+      return false;
+    }
+    for (int i = 0; i < d; i++) {
+      if (missing[i] == totalMissing) {
+        eliminate(v);
+        return true;
+      }
+    }
+    if (d == 3 && low >= 3 && findBuddy(v) >= 0) {
+      eliminate(v);
+      return true;
+    }
+    return false;
+  }
+
+  /*
+   * a vertex of degree 3 other than v with the same neighbors as v,
+   * or -1 if none
+   */
+  private int findBuddy(int v) {
+    int[] nb = adj[v];
+    int a = nb[0];
+    for (int i = 0; i < degree[a]; i++) {
+      int w = adj[a][i];
+      if (w == v || degree[w] != 3) {
+        continue;
+      }
+      boolean same = true;
+      for (int j = 0; j < 3; j++) {
+        int x = adj[w][j];
+        if (x != nb[0] && x != nb[1] && x != nb[2]) {
+          same = false;
+        }
+      }
+      if (same) {
+        return w;
+      }
+    }
+    return -1;
+  }
+
+  private void eliminate(int v) {
+    int d = degree[v];
+    int[] bag = new int[d + 1];
+    bag[0] = v;
+    System.arraycopy(adj[v], 0, bag, 1, d);
+    eliminationBags.add(bag);
+
+    for (int i = 1; i <= d; i++) {
+      int u = bag[i];
+      removeFrom(u, v);
+    }
+    for (int i = 1; i <= d; i++) {
+      int u = bag[i];
+      stamp++;
+      for (int j = 0; j < degree[u]; j++) {
+        mark[adj[u][j]] = stamp;
+      }
+      for (int j = i + 1; j <= d; j++) {
+        int w = bag[j];
+        if (mark[w] != stamp) {
+          addTo(u, w);
+          addTo(w, u);
+        }
+      }
+    }
+    eliminated[v] = true;
+    degree[v] = 0;
+    adj[v] = null;
+  }
+
+  private void removeFrom(int u, int v) {
+    for (int i = 0; i < degree[u]; i++) {
+      if (adj[u][i] == v) {
+        adj[u][i] = adj[u][--degree[u]];
+        return;
+      }
+    }
+  }
+
+  private void addTo(int u, int w) {
+    if (degree[u] == adj[u].length) {
+      adj[u] = Arrays.copyOf(adj[u], Math.max(4, 2 * degree[u]));
+    }
+    adj[u][degree[u]++] = w;
+  }
+}
@@ -1,570 +1,587 @@
-/*
- * Copyright (c) 2017, Hisao Tamaki
- */
-
-package tw.exact;
-
-import java.io.File;
-
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
-import java.io.PrintStream;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashSet;
-
-public class SafeSeparator {
-  private static int MAX_MISSINGS = 100;
-  private static int DEFAULT_MAX_STEPS = 1000000;
-  private static final boolean CONFIRM_MINOR = true;
-//  private static final boolean CONFIRM_MINOR = false;
-//    private static final boolean DEBUG = true;
-  private static final boolean DEBUG = false;
-
-  Graph g;
-
-  int maxSteps;
-  int steps;
-  LeftNode[] leftNodes;
-  ArrayList<RightNode> rightNodeList;
-  ArrayList<MissingEdge> missingEdgeList;
-  XBitSet available;
-  
-  public SafeSeparator (Graph g) {
-    this.g = g;
-  }
-
-  public boolean isSafeSeparator(XBitSet separator) {
-    return isSafeSeparator(separator, DEFAULT_MAX_STEPS);
-  }
-  
-  public boolean isSafeSeparator(XBitSet separator, int maxSteps) {
-    //  System.out.println("isSafeSeparator " + separator);
-    this.maxSteps = maxSteps;
-    steps = 0;
-    ArrayList<XBitSet> components = g.getComponents(separator);
-    if (components.size() == 1) {
-//      System.err.println("non separator for safety testing:" + separator);
-//      throw new RuntimeException("non separator for safety testing:" + separator);
-      return false;
-    }
-    if (countMissings(separator) > MAX_MISSINGS) {
-      return false;
-    }
-    for (XBitSet compo: components) {
-      XBitSet sep = g.neighborSet(compo);
-      XBitSet rest = g.all.subtract(sep).subtract(compo);
-      XBitSet[] contracts = findCliqueMinor(sep, rest);
-      if (contracts == null) {
-        return false;
-      }
-      if (CONFIRM_MINOR) {
-        confirmCliqueMinor(sep, rest, contracts);
-      }
-    }
-    return true;
-  }
-
-  private class LeftNode {
-    int index;
-    int vertex;
-    //    ArrayList<RightNode> rightNeighborList;
-    //    XBitSet rightNeighborSet;
-
-    LeftNode(int index, int vertex) {
-      this.index = index;
-      this.vertex = vertex;
-      //      rightNeighborList = new ArrayList<>();
-    }
-    
-    public String toString() {
-      StringBuilder sb = new StringBuilder();
-      sb.append("left" + index + "(" + vertex + "):");
-      sb.append(", " + g.neighborSet[vertex]);
-      return sb.toString();
-    }
-  }
-
-  private class RightNode {
-    int index;
-    XBitSet vertexSet;
-    XBitSet neighborSet;
-    LeftNode assignedTo;
-    boolean printed;
-
-    RightNode(int vertex) {
-      vertexSet = new XBitSet(g.n);
-      vertexSet.set(vertex);
-      neighborSet = g.neighborSet(vertexSet);
-    }
-
-    RightNode(XBitSet vertexSet) {
-      this.vertexSet = vertexSet;
-      neighborSet = g.neighborSet(vertexSet);
-    }
-    
-    boolean potentiallyCovers(MissingEdge me) {
-      return 
-          assignedTo == null &&
-          neighborSet.get(me.left1.vertex) &&
-          neighborSet.get(me.left2.vertex);
-    }
-
-    boolean finallyCovers(MissingEdge me) {
-      return
-          assignedTo == me.left1 &&
-          neighborSet.get(me.left2.vertex) ||
-          assignedTo == me.left2 &&
-          neighborSet.get(me.left1.vertex);
-    }
-
-    public String toString() {
-      StringBuilder sb = new StringBuilder();
-      sb.append("right" + index + ":" + vertexSet);
-      if (!printed) {
-        sb.append(", " + neighborSet);
-      }
-      if (assignedTo != null) {
-        sb.append("-> l" + assignedTo.index);
-      }
-      sb.append(", coveres {");
-      for (MissingEdge me: missingEdgeList) {
-        if (this.potentiallyCovers(me)) {
-          sb.append("me" + me.index + " ");
-        }
-      }
-      printed = true;
-      sb.append("}");
-
-      return sb.toString();
-    }
-
-  }
-
-  private class MissingEdge {
-    int index;
-    LeftNode left1;
-    LeftNode left2;
-    boolean unAugmentable;
-
-    MissingEdge(LeftNode left1, LeftNode left2) {
-      this.left1 = left1;
-      this.left2 = left2;
-    }
-
-    RightNode[] findCoveringPair() {
-      for (RightNode rn1: rightNodeList) {
-        if (rn1.neighborSet.get(left1.vertex) &&
-            !rn1.neighborSet.get(left2.vertex)) {
-          for (RightNode rn2: rightNodeList) {
-            if (!rn2.neighborSet.get(left1.vertex) &&
-                rn2.neighborSet.get(left2.vertex) &&
-                connectable(rn1.vertexSet, rn2.vertexSet)) {
-              return new RightNode[]{rn1, rn2}; 
-            }
-          }
-        }
-      }
-      return null;
-    }
-    
-    boolean isFinallyCovered() {
-      for (RightNode rn: rightNodeList) {
-        if (rn.finallyCovers(this)) {
-          return true;
-        }
-      }
-      return false;
-    }
-    
-    public String toString() {
-      StringBuilder sb = new StringBuilder();
-      sb.append("missing(" + left1.index + "," + 
-          left2.index + "), covered by {");
-      for (RightNode rn: rightNodeList) {
-        if (rn.potentiallyCovers(this)) {
-          sb.append("r" + rn.index + " ");
-        }
-      }
-      sb.append("}");
-      return sb.toString();
-    }
-  }
-  private XBitSet[] findCliqueMinor(XBitSet separator, XBitSet rest) {
-    int k = separator.cardinality();
-    available = (XBitSet) rest.clone();
-    leftNodes = new LeftNode[k];
-    {
-      int i = 0;
-      for (int v = separator.nextSetBit(0); v >= 0;
-          v = separator.nextSetBit(v + 1)) {
-        leftNodes[i] = new LeftNode(i, v);
-        i++;
-      }
-    }
-    
-    missingEdgeList = new ArrayList<>();
-    {
-      int i = 0;
-      for (int v = separator.nextSetBit(0); v >= 0;
-          v = separator.nextSetBit(v + 1)) {
-        int j = i + 1;
-        for (int w = separator.nextSetBit(v + 1); w >= 0;
-            w = separator.nextSetBit(w + 1)) {
-          if (!g.neighborSet[v].get(w)) {
-            missingEdgeList.add(new MissingEdge(leftNodes[i], leftNodes[j]));
-          }
-          j++;
-        }
-        i++;
-      }
-    }
-
-    int m = missingEdgeList.size();
-    
-    XBitSet[] result = new XBitSet[k];
-    for (int i = 0; i < k; i++) {
-      result[i] = new XBitSet(g.n);
-      result[i].set(leftNodes[i].vertex);
-    }
-
-    if (m == 0) {
-      return result;
-    }
-
-//    System.out.println(m + " missings for separator size " + k + 
-//        " and total components size " + rest.cardinality());
-    for (int i = 0; i < m; i++) {
-      missingEdgeList.get(i).index = i;
-    }
-
-    rightNodeList = new ArrayList<>();
-    XBitSet ns = g.neighborSet(separator);
-    ns.and(rest);
-
-    for (int v = ns.nextSetBit(0); v >= 0; 
-        v = ns.nextSetBit(v + 1)) {
-      if (g.neighborSet[v].cardinality() == 1) {
-        continue;
-      }
-      boolean useless = true;
-      for (MissingEdge me: missingEdgeList) {
-        if (g.neighborSet[v].get(me.left1.vertex) ||
-            g.neighborSet[v].get(me.left2.vertex)) {
-          useless = false;
-        }
-      }
-      if (useless) {
-        continue;
-      }
-      RightNode rn = new RightNode(v);
-      rightNodeList.add(rn);
-      available.clear(v);
-    }
-
-    while (true) {
-      steps++;
-      if (steps > maxSteps) {
-        return null;
-      }
-      MissingEdge zc = zeroCovered();
-      if (zc == null) {
-        break;
-      }
-      RightNode[] coveringPair = zc.findCoveringPair();
-      if (coveringPair != null) {
-        mergeRightNodes(coveringPair);
-      }
-      else {
-        return null;
-      }
-    }
-    
-    boolean moving = true;
-    while (rightNodeList.size() > k/2 && moving) {
-      steps++;
-      if (steps > maxSteps) {
-        return null;
-      }
-      moving = false;
-      MissingEdge lc = leastCovered();
-      if (lc == null) {
-        break;
-      }
-      RightNode[] coveringPair = lc.findCoveringPair();
-      if (coveringPair != null) {
-        mergeRightNodes(coveringPair);
-        moving = true;
-      }
-      else {
-        lc.unAugmentable = true;
-      }
-    }
-
-    ArrayList<RightNode> temp = rightNodeList;
-    rightNodeList = new ArrayList<>();
-    
-    for (RightNode rn: temp) {
-      boolean covers = false;
-      for (MissingEdge me: missingEdgeList) {
-        if (rn.potentiallyCovers(me)) {
-          covers = true;
-          break;
-        }
-      }
-      if (covers) {
-        rightNodeList.add(rn);
-      }
-    }
-    
-    int nRight = rightNodeList.size();
-    for (int i = 0; i < nRight; i++) {
-      rightNodeList.get(i).index = i;
-    }
-
-    if (DEBUG) {
-      System.out.println(k + " lefts");
-      for (LeftNode ln: leftNodes) {
-        System.out.println(ln);
-      }
-      System.out.println(nRight + " rights");
-      for (RightNode rn: rightNodeList) {
-        System.out.println(rn);
-      }
-      System.out.println(m + " missings");
-      for (MissingEdge me: missingEdgeList) {
-        System.out.println(me);
-      }
-    }
-
-    while (!missingEdgeList.isEmpty()) {
-      if (DEBUG) {
-        System.out.println(missingEdgeList.size() + " missings");
-        for (RightNode rn: rightNodeList) {
-          System.out.println(rn);
-        }
-      }
-      int[] bestPair = null;
-      int maxMinCover = 0;
-      int maxFc = 0;
-
-      for (LeftNode ln: leftNodes) {
-        for (RightNode rn: rightNodeList) {
-          if (rn.assignedTo != null ||
-              !rn.neighborSet.get(ln.vertex)) {
-            continue;
-          }
-          steps++;
-          if (steps > maxSteps) {
-            return null;
-          }
-          rn.assignedTo = ln;
-          int minCover = minCover();
-          int fc = 0;
-          for (MissingEdge me: missingEdgeList) {
-            if (me.isFinallyCovered()) {
-              fc++;
-            }
-          }
-          rn.assignedTo = null;
-          if (bestPair == null || minCover > maxMinCover) {
-            maxMinCover = minCover;
-            bestPair = new int[] {ln.index, rn.index};
-            maxFc = fc;
-          }
-          else if (minCover == maxMinCover && fc > maxFc) {
-            bestPair = new int[] {ln.index, rn.index};
-            maxFc = fc;
-          }
-        }
-      }
-      if (maxMinCover == 0) {
-        return null;
-      }
-      
-      if (DEBUG) {
-        System.out.println("maxMinCover = " + maxMinCover +
-            ", maxFC = " + maxFc + 
-            ", bestPair = " + Arrays.toString(bestPair));
-        
-      }
-      rightNodeList.get(bestPair[1]).assignedTo = 
-          leftNodes[bestPair[0]];
-      
-      ArrayList<MissingEdge> temp1 = missingEdgeList;
-      missingEdgeList = new ArrayList<>();
-      for (MissingEdge me: temp1) {
-        if (!me.isFinallyCovered()) {
-          missingEdgeList.add(me);
-        }
-      }
-    }
-
-    if (DEBUG) {
-      System.out.println("assignment success");
-      for (RightNode rn: rightNodeList) {
-        System.out.println(rn);
-      }
-    }
-    
-    for (RightNode rn: rightNodeList) {
-      if (rn.assignedTo != null) {
-        int i = rn.assignedTo.index;
-        result[i].or(rn.vertexSet);
-      }
-    }
-    return result;
-  }
-
-  void confirmCliqueMinor(XBitSet separator, XBitSet rest, XBitSet[] contracts) {
-    {
-      int i = 0;
-      for (int v = separator.nextSetBit(0); v >= 0;
-          v = separator.nextSetBit(v + 1)) {
-        if (!contracts[i].get(v)) {
-          throw new RuntimeException("Not a clique minor: vertex " + v + 
-              " is not contained in the contracted " + contracts[i]);
-        }
-        i++;
-      }
-    }
-    for (int i = 0; i < contracts.length; i++) {
-      for (int j = i + 1; j < contracts.length; j++) {
-        if (contracts[i].intersects(contracts[j])) {
-          throw new RuntimeException("Not a clique minor: contracts " + 
-              contracts[i] + " and " + contracts[j] + " intersect with each other");
-        }
-        if (!g.neighborSet(contracts[i]).intersects(contracts[j])) {
-          throw new RuntimeException("Not a clique minor: contracts " + 
-              contracts[i] + " and " + contracts[j] + " are not adjacent to each other");
-        }
-      }
-    }
-    
-    for (int i = 0; i < contracts.length; i++) {
-      if (!g.isConnected(contracts[i])) {
-        throw new RuntimeException("Not a clique minor: contracted " + 
-            contracts[i] + " is not connected");
-      }
-    }
-  }
-  
-  int minCover() {
-    int minCover = g.n;
-    for (MissingEdge me: missingEdgeList) {
-      if (me.isFinallyCovered()) {
-        continue;
-      }
-      int nCover = 0;
-      for (RightNode rn: rightNodeList) {
-        if (rn.potentiallyCovers(me)) {
-          nCover++;
-        }
-      }
-      if (nCover < minCover) {
-        minCover = nCover;
-      }
-    }
-    return minCover;    
-  }
-
-  MissingEdge leastCovered() {
-    int minCover = 0;
-    MissingEdge result = null;
-    for (MissingEdge me: missingEdgeList) {
-      if (me.unAugmentable) {
-        continue;
-      }
-      int nCover = 0;
-      for (RightNode rn: rightNodeList) {
-        if (rn.potentiallyCovers(me)) {
-          nCover++;
-        }
-      }
-      if (result == null || nCover < minCover) {
-        minCover = nCover;
-        result =  me;
-      }
-    }
-    return result;    
-  }
-
-  MissingEdge zeroCovered() {
-    for (MissingEdge me: missingEdgeList) {
-      int nCover = 0;
-      for (RightNode rn: rightNodeList) {
-        if (rn.potentiallyCovers(me)) {
-          nCover++;
-        }
-      }
-      if (nCover == 0) {
-        return me;
-      }
-    }
-    return null;    
-  }
-
-  boolean connectable(XBitSet vs1, XBitSet vs2) {
-    XBitSet vs = (XBitSet) vs1.clone();
-    while (true) {
-      XBitSet ns = g.neighborSet(vs);
-      if (ns.intersects(vs2)) {
-        return true;
-      }
-      ns.and(available);
-      if (ns.isEmpty()) {
-        return false;
-      }
-      vs.or(ns);
-    }
-  }
-
-  void mergeRightNodes(RightNode[] coveringPair) {
-    RightNode rn1 = coveringPair[0];
-    RightNode rn2 = coveringPair[1];
-
-    XBitSet connected = connect(rn1.vertexSet, rn2.vertexSet);
-    RightNode rn = new RightNode(connected);
-    rightNodeList.remove(rn1);
-    rightNodeList.remove(rn2);
-    rightNodeList.add(rn);
-  }
-
-  XBitSet connect(XBitSet vs1, XBitSet vs2) {
-    ArrayList<XBitSet> layerList = new ArrayList<>();
-    
-    XBitSet vs = (XBitSet) vs1.clone();
-    while (true) {
-      XBitSet ns = g.neighborSet(vs);
-      if (ns.intersects(vs2)) {
-        break;
-      }
-      ns.and(available);
-      layerList.add(ns);
-      vs.or(ns);
-    }
-    
-    XBitSet result = vs1.unionWith(vs2); 
-    
-    XBitSet back = g.neighborSet(vs2);
-    for (int i = layerList.size() - 1; i >= 0; i--) {
-      XBitSet ns = layerList.get(i);
-      ns.and(back);
-      int v = ns.nextSetBit(0);
-      result.set(v);
-      available.clear(v);
-      back = g.neighborSet[v];
-    }    
-    return result;
-  }
-  
-  int countMissings(XBitSet s) {
-    int count = 0;
-    for (int v = s.nextSetBit(0); v >= 0;
-        v = s.nextSetBit(v + 1)) {
-      count += s.subtract(g.neighborSet[v]).cardinality() - 1;
-    }
-    return count / 2;
-  }
-
-}
+/*
+ * Copyright (c) 2017, Hisao Tamaki
+ */
+
+package tw.exact;
+
+import java.io.File;
+
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+
+public class SafeSeparator {
+  private static int MAX_MISSINGS = 500;
+  private static int DEFAULT_MAX_STEPS = 1000000;
+  private static final boolean CONFIRM_MINOR = true;
+//  private static final boolean CONFIRM_MINOR = false;
+//    private static final boolean DEBUG = true;
+  private static final boolean DEBUG = false;
+
+  Graph g;
+
+  int maxSteps;
+  int steps;
+
+  /*
+   * The left nodes are the vertices of the separator, indexed by
+   * 0, ..., k - 1. The right nodes are connected vertex sets in the
+   * rest of the graph, indexed in the order of their creation: a node
+   * obtained by merging two others gets a new index, greater than
+   * those of all the nodes alive, so that the increasing order of the
+   * indices is the order in which the nodes are tried.
+   * Sets of right nodes are bit rows of long words: the right nodes
+   * adjacent to each left node, those covering each missing edge,
+   * i.e., adjacent to both of its ends, and those alive.
+   * The vertices of the right nodes are kept in a union-find forest,
+   * the root of each tree labelled with the index of the node.
+   */
+  int k;
+  int[] leftVertex;
+  int m;
+  int[] missing1;
+  int[] missing2;
+  int nRight;
+  int words;
+  XBitSet[] rightVertexSet;
+  int[] rootVertex;
+  long[][] leftColumn;
+  long[][] coverRow;
+  long[] live;
+  XBitSet available;
+  int[] parent;
+  int[] label;
+  int[] mark;
+  int stamp;
+  int[] queue;
+  
+  public SafeSeparator (Graph g) {
+    this.g = g;
+  }
+
+  public boolean isSafeSeparator(XBitSet separator) {
+    return isSafeSeparator(separator, DEFAULT_MAX_STEPS);
+  }
+  
+  public boolean isSafeSeparator(XBitSet separator, int maxSteps) {
+    //  System.out.println("isSafeSeparator " + separator);
+    this.maxSteps = maxSteps;
+    steps = 0;
+    ArrayList<XBitSet> components = g.getComponents(separator);
+    if (components.size() == 1) {
+//      System.err.println("non separator for safety testing:" + separator);
+//      throw new RuntimeException("non separator for safety testing:" + separator);
+      return false;
+    }
+    if (countMissings(separator) > MAX_MISSINGS) {
+      return false;
+    }
+    for (XBitSet compo: components) {
+      XBitSet sep = g.neighborSet(compo);
+      XBitSet rest = g.all.subtract(sep).subtract(compo);
+      XBitSet[] contracts = findCliqueMinor(sep, rest);
+      if (contracts == null) {
+        return false;
+      }
+      if (CONFIRM_MINOR) {
+        confirmCliqueMinor(sep, rest, contracts);
+      }
+    }
+    return true;
+  }
+
+  private XBitSet[] findCliqueMinor(XBitSet separator, XBitSet rest) {
+    k = separator.cardinality();
+    available = rest.clone();
+    leftVertex = separator.toArray();
+
+    m = countMissings(separator);
+    missing1 = new int[m];
+    missing2 = new int[m];
+    {
+      int e = 0;
+      for (int i = 0; i < k; i++) {
+        for (int j = i + 1; j < k; j++) {
+          if (!g.neighborSet(leftVertex[i]).get(leftVertex[j])) {
+            missing1[e] = i;
+            missing2[e] = j;
+            e++;
+          }
+        }
+      }
+    }
+
+    XBitSet[] result = new XBitSet[k];
+    for (int i = 0; i < k; i++) {
+      result[i] = new XBitSet(g.n);
+      result[i].set(leftVertex[i]);
+    }
+
+    if (m == 0) {
+      return result;
+    }
+
+    XBitSet ends = new XBitSet(g.n);
+    for (int e = 0; e < m; e++) {
+      ends.set(leftVertex[missing1[e]]);
+      ends.set(leftVertex[missing2[e]]);
+    }
+
+    XBitSet ns = g.neighborSet(separator);
+    ns.and(rest);
+    ArrayList<Integer> initial = new ArrayList<>();
+    for (int v = ns.nextSetBit(0); v >= 0; 
+        v = ns.nextSetBit(v + 1)) {
+      if (g.degree[v] == 1 || !g.neighborSet(v).intersects(ends)) {
+        continue;
+      }
+      initial.add(v);
+    }
+
+    // each merge kills two nodes and creates one
+    int capacity = Math.max(1, 2 * initial.size());
+    words = (capacity + 63) / 64;
+    nRight = 0;
+    rightVertexSet = new XBitSet[capacity];
+    rootVertex = new int[capacity];
+    leftColumn = new long[k][words];
+    coverRow = new long[m][words];
+    live = new long[words];
+    parent = new int[g.n];
+    Arrays.fill(parent, -1);
+    label = new int[g.n];
+    mark = new int[g.n];
+    stamp = 0;
+    queue = new int[g.n];
+
+    for (int v: initial) {
+      XBitSet vs = new XBitSet(g.n);
+      vs.set(v);
+      parent[v] = v;
+      addRightNode(vs, v, g.neighborSet(v));
+      available.clear(v);
+    }
+
+    while (true) {
+      steps++;
+      if (steps > maxSteps) {
+        return null;
+      }
+      int zc = zeroCovered();
+      if (zc < 0) {
+        break;
+      }
+      int[] coveringPair = findCoveringPair(zc);
+      if (coveringPair != null) {
+        mergeRightNodes(coveringPair);
+      }
+      else {
+        return null;
+      }
+    }
+    
+    boolean[] unAugmentable = new boolean[m];
+    boolean moving = true;
+    while (cardinality(live) > k/2 && moving) {
+      steps++;
+      if (steps > maxSteps) {
+        return null;
+      }
+      moving = false;
+      int lc = leastCovered(unAugmentable);
+      if (lc < 0) {
+        break;
+      }
+      int[] coveringPair = findCoveringPair(lc);
+      if (coveringPair != null) {
+        mergeRightNodes(coveringPair);
+        moving = true;
+      }
+      else {
+        unAugmentable[lc] = true;
+      }
+    }
+
+    // only the right nodes covering some missing edge are assigned
+    long[] unassigned = new long[words];
+    for (int e = 0; e < m; e++) {
+      for (int w = 0; w < words; w++) {
+        unassigned[w] |= coverRow[e][w];
+      }
+    }
+    for (int w = 0; w < words; w++) {
+      unassigned[w] &= live[w];
+    }
+
+    if (DEBUG) {
+      System.out.println(k + " lefts, " + cardinality(unassigned) + 
+          " rights, " + m + " missings");
+    }
+
+    int[] assignedTo = new int[nRight];
+    Arrays.fill(assignedTo, -1);
+    boolean[] finallyCovered = new boolean[m];
+    int[] nCover = new int[m];
+    int nUncovered = m;
+
+    while (nUncovered > 0) {
+      for (int e = 0; e < m; e++) {
+        if (!finallyCovered[e]) {
+          nCover[e] = countAnd(coverRow[e], unassigned);
+        }
+      }
+      int bestLeft = -1;
+      int bestRight = -1;
+      int maxMinCover = 0;
+      int maxFc = 0;
+
+      for (int i = 0; i < k; i++) {
+        long[] column = leftColumn[i];
+        for (int r = nextSetBit(unassigned, column, 0); r >= 0;
+            r = nextSetBit(unassigned, column, r + 1)) {
+          steps++;
+          if (steps > maxSteps) {
+            return null;
+          }
+          // the cover counts after assigning r to i
+          int minCover = g.n;
+          int fc = 0;
+          for (int e = 0; e < m; e++) {
+            if (finallyCovered[e]) {
+              continue;
+            }
+            if (finallyCovers(r, i, e)) {
+              fc++;
+            }
+            else {
+              int c = nCover[e] - (test(coverRow[e], r) ? 1 : 0);
+              if (c < minCover) {
+                minCover = c;
+              }
+            }
+          }
+          if (bestLeft < 0 || minCover > maxMinCover) {
+            maxMinCover = minCover;
+            bestLeft = i;
+            bestRight = r;
+            maxFc = fc;
+          }
+          else if (minCover == maxMinCover && fc > maxFc) {
+            bestLeft = i;
+            bestRight = r;
+            maxFc = fc;
+          }
+        }
+      }
+      if (maxMinCover == 0) {
+        return null;
+      }
+      
+      if (DEBUG) {
+        System.out.println("maxMinCover = " + maxMinCover +
+            ", maxFC = " + maxFc + 
+            ", bestPair = [" + bestLeft + ", " + bestRight + "]");
+      }
+      assignedTo[bestRight] = bestLeft;
+      clear(unassigned, bestRight);
+      for (int e = 0; e < m; e++) {
+        if (!finallyCovered[e] && finallyCovers(bestRight, bestLeft, e)) {
+          finallyCovered[e] = true;
+          nUncovered--;
+        }
+      }
+    }
+
+    if (DEBUG) {
+      System.out.println("assignment success");
+    }
+    
+    for (int r = 0; r < nRight; r++) {
+      if (assignedTo[r] >= 0) {
+        result[assignedTo[r]].or(rightVertexSet[r]);
+      }
+    }
+    return result;
+  }
+
+  /*
+   * Creates a right node with the given vertex set, whose tree in
+   * the union-find forest is rooted at the given vertex, adjacent to
+   * the left nodes whose vertices are in the given set
+   */
+  private int addRightNode(XBitSet vertexSet, int root, XBitSet adjacent) {
+    int r = nRight++;
+    rightVertexSet[r] = vertexSet;
+    rootVertex[r] = root;
+    label[root] = r;
+    for (int i = 0; i < k; i++) {
+      if (adjacent.get(leftVertex[i])) {
+        set(leftColumn[i], r);
+      }
+    }
+    for (int e = 0; e < m; e++) {
+      if (test(leftColumn[missing1[e]], r) && 
+          test(leftColumn[missing2[e]], r)) {
+        set(coverRow[e], r);
+      }
+    }
+    set(live, r);
+    return r;
+  }
+
+  boolean finallyCovers(int r, int i, int e) {
+    return
+        missing1[e] == i && test(leftColumn[missing2[e]], r) ||
+        missing2[e] == i && test(leftColumn[missing1[e]], r);
+  }
+
+  int leastCovered(boolean[] unAugmentable) {
+    int minCover = 0;
+    int result = -1;
+    for (int e = 0; e < m; e++) {
+      if (unAugmentable[e]) {
+        continue;
+      }
+      int nCover = countAnd(coverRow[e], live);
+      if (result < 0 || nCover < minCover) {
+        minCover = nCover;
+        result = e;
+      }
+    }
+    return result;    
+  }
+
+  int zeroCovered() {
+    for (int e = 0; e < m; e++) {
+      if (countAnd(coverRow[e], live) == 0) {
+        return e;
+      }
+    }
+    return -1;    
+  }
+
+  /*
+   * Finds the first right node adjacent to the first end of the
+   * missing edge but not to the second, together with the first right
+   * node adjacent to the second but not to the first that is
+   * connectable to it through the available vertices
+   */
+  int[] findCoveringPair(int e) {
+    long[] column1 = leftColumn[missing1[e]];
+    long[] column2 = leftColumn[missing2[e]];
+    long[] firsts = new long[words];
+    long[] seconds = new long[words];
+    boolean hasSecond = false;
+    for (int w = 0; w < words; w++) {
+      firsts[w] = live[w] & column1[w] & ~column2[w];
+      seconds[w] = live[w] & column2[w] & ~column1[w];
+      hasSecond |= seconds[w] != 0;
+    }
+    if (!hasSecond) {
+      return null;
+    }
+    long[] reach = new long[words];
+    for (int r1 = nextSetBit(firsts, firsts, 0); r1 >= 0;
+        r1 = nextSetBit(firsts, firsts, r1 + 1)) {
+      reachable(r1, reach);
+      int r2 = nextSetBit(seconds, reach, 0);
+      if (r2 >= 0) {
+        return new int[] {r1, r2};
+      }
+    }
+    return null;
+  }
+
+  /*
+   * Sets in reach the right nodes adjacent to the given node or to the
+   * available vertices reachable from it through available vertices
+   */
+  void reachable(int r, long[] reach) {
+    Arrays.fill(reach, 0);
+    stamp++;
+    int head = 0;
+    int tail = 0;
+    XBitSet vs = rightVertexSet[r];
+    for (int v = vs.nextSetBit(0); v >= 0; v = vs.nextSetBit(v + 1)) {
+      mark[v] = stamp;
+      queue[tail++] = v;
+    }
+    while (head < tail) {
+      int u = queue[head++];
+      int end = g.offsets[u] + g.degree[u];
+      for (int i = g.offsets[u]; i < end; i++) {
+        int w = g.targets[i];
+        if (mark[w] == stamp) {
+          continue;
+        }
+        mark[w] = stamp;
+        if (available.get(w)) {
+          queue[tail++] = w;
+        }
+        else if (parent[w] >= 0) {
+          set(reach, label[find(w)]);
+        }
+      }
+    }
+  }
+
+  int find(int v) {
+    while (parent[v] != v) {
+      parent[v] = parent[parent[v]];
+      v = parent[v];
+    }
+    return v;
+  }
+
+  void mergeRightNodes(int[] coveringPair) {
+    int r1 = coveringPair[0];
+    int r2 = coveringPair[1];
+
+    XBitSet path = connect(rightVertexSet[r1], rightVertexSet[r2]);
+    XBitSet connected = rightVertexSet[r1].unionWith(rightVertexSet[r2]);
+    connected.or(path);
+
+    int root = find(rootVertex[r1]);
+    parent[find(rootVertex[r2])] = root;
+    XBitSet adjacent = new XBitSet(g.n);
+    for (int i = 0; i < k; i++) {
+      if (test(leftColumn[i], r1) || test(leftColumn[i], r2)) {
+        adjacent.set(leftVertex[i]);
+      }
+    }
+    for (int v = path.nextSetBit(0); v >= 0; v = path.nextSetBit(v + 1)) {
+      parent[v] = root;
+      adjacent.or(g.neighborSet(v));
+    }
+    clear(live, r1);
+    clear(live, r2);
+    addRightNode(connected, root, adjacent);
+  }
+
+  /*
+   * Returns the vertices of a shortest path through the available
+   * vertices connecting the two vertex sets, excluding its ends,
+   * which are made unavailable
+   */
+  XBitSet connect(XBitSet vs1, XBitSet vs2) {
+    ArrayList<XBitSet> layerList = new ArrayList<>();
+    
+    XBitSet vs = vs1.clone();
+    while (true) {
+      XBitSet ns = g.neighborSet(vs);
+      if (ns.intersects(vs2)) {
+        break;
+      }
+      ns.and(available);
+      layerList.add(ns);
+      vs.or(ns);
+    }
+    
+    XBitSet result = new XBitSet(g.n); 
+    
+    XBitSet back = g.neighborSet(vs2);
+    for (int i = layerList.size() - 1; i >= 0; i--) {
+      XBitSet ns = layerList.get(i);
+      ns.and(back);
+      int v = ns.nextSetBit(0);
+      result.set(v);
+      available.clear(v);
+      back = g.neighborSet(v);
+    }    
+    return result;
+  }
+
+  static boolean test(long[] row, int i) {
+    return (row[i >>> 6] & (1L << i)) != 0;
+  }
+
+  static void set(long[] row, int i) {
+    row[i >>> 6] |= 1L << i;
+  }
+
+  static void clear(long[] row, int i) {
+    row[i >>> 6] &= ~(1L << i);
+  }
+
+  static int cardinality(long[] row) {
+    int count = 0;
+    for (long word: row) {
+      count += Long.bitCount(word);
+    }
+    return count;
+  }
+
+  static int countAnd(long[] row1, long[] row2) {
+    int count = 0;
+    for (int w = 0; w < row1.length; w++) {
+      count += Long.bitCount(row1[w] & row2[w]);
+    }
+    return count;
+  }
+
+  /*
+   * the first index at least from set in both rows, or -1
+   */
+  static int nextSetBit(long[] row1, long[] row2, int from) {
+    int w = from >>> 6;
+    if (w >= row1.length) {
+      return -1;
+    }
+    long word = row1[w] & row2[w] & (-1L << from);
+    while (true) {
+      if (word != 0) {
+        return (w << 6) + Long.numberOfTrailingZeros(word);
+      }
+      if (++w == row1.length) {
+        return -1;
+      }
+      word = row1[w] & row2[w];
+    }
+  }
+
+  void confirmCliqueMinor(XBitSet separator, XBitSet rest, XBitSet[] contracts) {
+    {
+      int i = 0;
+      for (int v = separator.nextSetBit(0); v >= 0;
+          v = separator.nextSetBit(v + 1)) {
+        if (!contracts[i].get(v)) {
+          throw new RuntimeException("Not a clique minor: vertex " + v + 
+              " is not contained in the contracted " + contracts[i]);
+        }
+        i++;
+      }
+    }
+    for (int i = 0; i < contracts.length; i++) {
+      for (int j = i + 1; j < contracts.length; j++) {
+        if (contracts[i].intersects(contracts[j])) {
+          throw new RuntimeException("Not a clique minor: contracts " + 
+              contracts[i] + " and " + contracts[j] + " intersect with each other");
+        }
+        if (!g.neighborSet(contracts[i]).intersects(contracts[j])) {
+          throw new RuntimeException("Not a clique minor: contracts " + 
+              contracts[i] + " and " + contracts[j] + " are not adjacent to each other");
+        }
+      }
+    }
+    
+    for (int i = 0; i < contracts.length; i++) {
+      if (!g.isConnected(contracts[i])) {
+        throw new RuntimeException("Not a clique minor: contracted " + 
+            contracts[i] + " is not connected");
+      }
+    }
+  }
+  
+  int countMissings(XBitSet s) {
+    int count = 0;
+    for (int v = s.nextSetBit(0); v >= 0;
+        v = s.nextSetBit(v + 1)) {
+      count += s.subtract(g.neighborSet(v)).cardinality() - 1;
+    }
+    return count / 2;
+  }
+
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2017, Hisao Tamaki
+ */
+
+package tw.exact;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+
+/**
+ * Decides the safety of separators of a graph by {@code SafeSeparator},
+ * caching the verdicts by the vertex sets of the separators.
+ * <p>
+ * The separators of the decompositions of the same graph,
+ * such as those obtained by the greedy runs of different modes, or
+ * the same separator after the decomposition is packed or flattened,
+ * are tested only once as long as they share a checker.
+ * The separators not yet decided are tested in the increasing order
+ * of the number of edges missing from them, which
+ * {@code SafeSeparator} has to cover by a clique minor, and, with
+ * more than one thread, concurrently, each test with
+ * its own {@code SafeSeparator}, on a pool of the checker shared by
+ * all the callers, or in the calling thread if it is already a worker
+ * of a fork-join pool.
+ * The verdicts are those of the sequential tests.
+ */
+public class SafetyChecker {
+  final Graph graph;
+
+  private final Map<XBitSet, Boolean> verdicts = new ConcurrentHashMap<>();
+
+  private int parallelism = 1;
+
+  private ForkJoinPool pool;
+
+  /**
+   * @param graph the graph of the separators to be checked
+   */
+  public SafetyChecker(Graph graph) {
+    this.graph = graph;
+  }
+
+  /**
+   * Sets the number of threads for the tests
+   * @param parallelism the number of threads
+   */
+  public void setParallelism(int parallelism) {
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * @param separator a vertex set of the graph
+   * @return {@code true} if the vertex set is found to be a safe
+   * separator
+   */
+  public boolean isSafe(XBitSet separator) {
+    Boolean verdict = verdicts.get(separator);
+    if (verdict == null) {
+      verdict = new SafeSeparator(graph).isSafeSeparator(separator);
+      verdicts.put(separator.clone(), verdict);
+    }
+    return verdict;
+  }
+
+  /**
+   * Decides the safety of the given separators of the graph,
+   * marking each as safe or unsafe.
+   * The decision stops with a {@code CancellationException}
+   * if the calling thread is interrupted.
+   * @param separators the separators
+   */
+  public void figureOutSafety(List<Separator> separators) {
+    Map<XBitSet, List<Separator>> toTest = new LinkedHashMap<>();
+    for (Separator separator: separators) {
+      if (separator.safe || separator.unsafe) {
+        continue;
+      }
+      Boolean verdict = verdicts.get(separator.vertexSet);
+      if (verdict != null) {
+        setSafety(separator, verdict);
+      }
+      else {
+        toTest.computeIfAbsent(separator.vertexSet,
+            s -> new ArrayList<>()).add(separator);
+      }
+    }
+    if (toTest.isEmpty()) {
+      return;
+    }
+
+    ArrayList<XBitSet> sets = new ArrayList<>(toTest.keySet());
+    Map<XBitSet, Integer> missings = new LinkedHashMap<>();
+    for (XBitSet s: sets) {
+      missings.put(s, countMissings(s));
+    }
+    sets.sort(Comparator.comparingInt(missings::get));
+
+    if (parallelism <= 1 || sets.size() == 1 ||
+        ForkJoinTask.inForkJoinPool()) {
+      for (XBitSet s: sets) {
+        if (Thread.interrupted()) {
+          throw new CancellationException("safety check interrupted");
+        }
+        boolean safe = isSafe(s);
+        for (Separator separator: toTest.get(s)) {
+          setSafety(separator, safe);
+        }
+      }
+      return;
+    }
+
+    ForkJoinPool pool = getPool();
+    ArrayList<Future<Boolean>> futures = new ArrayList<>();
+    for (XBitSet s: sets) {
+      futures.add(pool.submit(() -> isSafe(s)));
+    }
+    try {
+      for (int i = 0; i < sets.size(); i++) {
+        boolean safe = futures.get(i).get();
+        for (Separator separator: toTest.get(sets.get(i))) {
+          setSafety(separator, safe);
+        }
+      }
+    } catch (ExecutionException e) {
+      throw new RuntimeException(e.getCause());
+    } catch (InterruptedException e) {
+      for (Future<Boolean> future: futures) {
+        future.cancel(true);
+      }
+      throw new CancellationException("safety check interrupted");
+    }
+  }
+
+  private synchronized ForkJoinPool getPool() {
+    if (pool == null) {
+      pool = new ForkJoinPool(parallelism);
+    }
+    return pool;
+  }
+
+  /**
+   * Releases the threads of the checker, if any.
+   * The checker is not to be used for concurrent tests afterwards.
+   */
+  public synchronized void shutdown() {
+    if (pool != null) {
+      pool.shutdownNow();
+    }
+  }
+
+  private static void setSafety(Separator separator, boolean safe) {
+    separator.safe = safe;
+    separator.unsafe = !safe;
+  }
+
+  /*
+   * the number of the pairs of vertices of s not adjacent to each other
+   */
+  private int countMissings(XBitSet s) {
+    int count = 0;
+    for (int v = s.nextSetBit(0); v >= 0; v = s.nextSetBit(v + 1)) {
+      count += s.subtract(graph.neighborSet(v)).cardinality() - 1;
+    }
+    return count / 2;
+  }
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright (c) 2017, Hisao Tamaki
+ */
+
+package tw.exact;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Interning table of vertex sets.
+ * Each distinct set put in the table is given a canonical instance
+ * and a dense integer id, so that the maps of the decomposer
+ * can be indexed by ids (see {@code IdMap}) and the equal sets held by
+ * different blocks be shared.
+ * The words of the sets are packed in an arena, together with their
+ * 64 bit hash values computed once on insertion, so that a lookup
+ * compares primitive arrays rather than {@code XBitSet} objects.
+ * <p>
+ * Lookups are lock-free and insertions are serialized, so that
+ * the table may be shared by threads.
+ * A set passed to {@code intern} may become the canonical instance and
+ * must not be modified afterwards.
+ */
+public class VertexSetTable {
+  private static final int CHUNK_BITS = 10;
+  private static final int CHUNK = 1 << CHUNK_BITS;
+  private static final int CHUNK_MASK = CHUNK - 1;
+
+  private final int words;
+
+  /* 
+   * the hash index: a slot holds the upper half of the hash value 
+   * and id + 1 in the lower half, or 0 if empty
+   */
+  private volatile AtomicLongArray slots;
+
+  /* the entries, in chunks so that growing never copies them */
+  private volatile long[][] wordChunks;
+  private volatile long[][] hashChunks;
+  private volatile XBitSet[][] setChunks;
+
+  private int size;
+
+  /**
+   * Creates an empty table for subsets of {0, ..., n - 1}
+   * @param n the number of vertices
+   */
+  public VertexSetTable(int n) {
+    words = (n + 63) / 64;
+    slots = new AtomicLongArray(1 << CHUNK_BITS);
+    wordChunks = new long[0][];
+    hashChunks = new long[0][];
+    setChunks = new XBitSet[0][];
+  }
+
+  /*
+   * hash value of the words in a slice, trailing zero words excluded,
+   * so that it does not depend on the length of the backing array
+   */
+  private static long hash(long[] longs, int offset, int length) {
+    while (length > 0 && longs[offset + length - 1] == 0) {
+      length--;
+    }
+    long h = 0x9E3779B97F4A7C15L;
+    for (int i = 0; i < length; i++) {
+      h = (h ^ longs[offset + i]) * 0xBF58476D1CE4E5B9L;
+      h ^= h >>> 31;
+    }
+    return h;
+  }
+
+  private static int spread(long h) {
+    return (int) (h ^ (h >>> 32));
+  }
+
+  private boolean matches(int id, long[] longs, int offset, int length) {
+    long[] chunk = wordChunks[id >>> CHUNK_BITS];
+    int base = (id & CHUNK_MASK) * words;
+    for (int i = 0; i < words; i++) {
+      long w = i < length ? longs[offset + i] : 0;
+      if (chunk[base + i] != w) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private int probe(AtomicLongArray slots, long[] longs, int offset, 
+      int length, long h) {
+    int mask = slots.length() - 1;
+    long tag = h & 0xFFFFFFFF00000000L;
+    for (int i = spread(h) & mask; ; i = (i + 1) & mask) {
+      long e = slots.get(i);
+      if (e == 0) {
+        return -1;
+      }
+      if ((e & 0xFFFFFFFF00000000L) == tag) {
+        int id = (int) e - 1;
+        if (matches(id, longs, offset, length)) {
+          return id;
+        }
+      }
+    }
+  }
+
+  private int find(long[] longs, int offset, int length, long h) {
+    while (true) {
+      AtomicLongArray s = slots;
+      int id = probe(s, longs, offset, length, h);
+      if (id >= 0 || s == slots) {
+        return id;
+      }
+    }
+  }
+
+  /**
+   * Returns the id of the given set
+   * @param vertexSet a set of vertices
+   * @return the id of the set, or -1 if the set is not in the table
+   */
+  public int find(XBitSet vertexSet) {
+    long[] longs = vertexSet.words();
+    return find(longs, 0, longs.length, hash(longs, 0, longs.length));
+  }
+
+  /**
+   * Returns the id of the given set, putting the set in the table
+   * if it is not there yet
+   * @param vertexSet a set of vertices
+   * @return the id of the set
+   */
+  public int intern(XBitSet vertexSet) {
+    long[] longs = vertexSet.words();
+    return intern(vertexSet, longs, 0, longs.length);
+  }
+
+  /**
+   * Returns the id of the set given by a slice of a word array,
+   * putting the set in the table if it is not there yet.
+   * An {@code XBitSet} is created only in the latter case.
+   * @param longs array holding the words of the set
+   * @param offset start of the slice
+   * @param length length of the slice
+   * @return the id of the set
+   */
+  public int intern(long[] longs, int offset, int length) {
+    return intern(null, longs, offset, length);
+  }
+
+  private int intern(XBitSet vertexSet, long[] longs, int offset, 
+      int length) {
+    length = Math.min(length, words);
+    long h = hash(longs, offset, length);
+    int id = find(longs, offset, length, h);
+    if (id >= 0) {
+      return id;
+    }
+    if (vertexSet == null) {
+      vertexSet = XBitSet.valueOf(longs, offset, length);
+    }
+    synchronized (this) {
+      id = probe(slots, longs, offset, length, h);
+      if (id >= 0) {
+        return id;
+      }
+      id = size;
+      add(id, vertexSet, longs, offset, length, h);
+      size++;
+      if (size * 2 > slots.length()) {
+        AtomicLongArray s = new AtomicLongArray(slots.length() * 2);
+        for (int i = 0; i < size; i++) {
+          insert(s, i, hashChunks[i >>> CHUNK_BITS][i & CHUNK_MASK]);
+        }
+        slots = s;
+      }
+      else {
+        insert(slots, id, h);
+      }
+      return id;
+    }
+  }
+
+  /**
+   * Returns the canonical instance of the given set, putting
+   * the set in the table if it is not there yet
+   * @param vertexSet a set of vertices
+   * @return the set in the table equal to {@code vertexSet}
+   */
+  public XBitSet canonical(XBitSet vertexSet) {
+    return get(intern(vertexSet));
+  }
+
+  /**
+   * Returns the set of the given id
+   * @param id an id given by this table
+   * @return the canonical instance of the set
+   */
+  public XBitSet get(int id) {
+    return setChunks[id >>> CHUNK_BITS][id & CHUNK_MASK];
+  }
+
+  /**
+   * Returns the array holding the words of the set of the given id;
+   * they occupy {@code words} elements from {@code wordOffset(id)}
+   * @param id an id given by this table
+   * @return the array of words
+   */
+  public long[] wordChunk(int id) {
+    return wordChunks[id >>> CHUNK_BITS];
+  }
+
+  public int wordOffset(int id) {
+    return (id & CHUNK_MASK) * words;
+  }
+
+  public int words() {
+    return words;
+  }
+
+  public synchronized int size() {
+    return size;
+  }
+
+  private void add(int id, XBitSet vertexSet, long[] longs, int offset,
+      int length, long h) {
+    int c = id >>> CHUNK_BITS;
+    if (c == setChunks.length) {
+      long[][] wc = Arrays.copyOf(wordChunks, c + 1);
+      wc[c] = new long[CHUNK * words];
+      long[][] hc = Arrays.copyOf(hashChunks, c + 1);
+      hc[c] = new long[CHUNK];
+      XBitSet[][] sc = Arrays.copyOf(setChunks, c + 1);
+      sc[c] = new XBitSet[CHUNK];
+      wordChunks = wc;
+      hashChunks = hc;
+      setChunks = sc;
+    }
+    int i = id & CHUNK_MASK;
+    System.arraycopy(longs, offset, wordChunks[c], i * words, length);
+    hashChunks[c][i] = h;
+    setChunks[c][i] = vertexSet;
+  }
+
+  private static void insert(AtomicLongArray slots, int id, long h) {
+    int mask = slots.length() - 1;
+    int i = spread(h) & mask;
+    while (slots.get(i) != 0) {
+      i = (i + 1) & mask;
+    }
+    slots.set(i, (h & 0xFFFFFFFF00000000L) | (id + 1));
+  }
+}
@@ -1,308 +1,715 @@
-/*
- * Copyright (c) 2016, Hisao Tamaki
- */
-package tw.exact;
-
-import java.util.BitSet;
-import java.util.Comparator;
-
-/**
- * This class extends {@code java.util.BitSet} which implements 
- * a variable length bit vector. 
- * The main purpose is to provide methods that create
- * a new vector as a result of a set operation such as 
- * union and intersection, rather than modifying the 
- * existing one.  See API documentation for {@code java.util.BitSet}.
- *
- * @author  Hisao Tamaki
- */
-
-public class XBitSet extends BitSet 
-  implements Comparable<XBitSet>{
-  
-  /**
-   * Creates an empty {@code XBitSet}.
-   */
-  public XBitSet() {
-    super();
-  }
-
-  /**
-   * Creates an empty {@code XBitSet} whose initial size is large enough to explicitly
-   * contain members smaller than {@code n}.
-   *
-   * @param  n the initial size of the {@code XBitSet} 
-   * @throws NegativeArraySizeException if the specified initial size
-   *         is negative
-   */
-  public XBitSet(int n) {
-    super(n);
-  }
-  
-  /**
-   * Creates an {@code XBitSet} with members provided by an array
-   *
-   * @param  a an array of members to be in the {@code XBitSet}
-   */
-  public XBitSet(int a[]) {
-    super();
-    for (int i = 0; i < a.length; i++) {
-      set(a[i]);
-    }
-  }  
-  
-  /**
-   * Creates an {@code XBitSet} with members provided by an array.
-   * The initial size is large enough to explicitly
-   * contain members smaller than {@code n}.  
-   *
-   * @param  n the initial size of the {@code XBitSet}
-   * @param  a an array of indices where the bits should be set
-   * @throws NegativeArraySizeException if the specified initial size
-   *         is negative
-   */
-  public XBitSet(int n, int a[]) {
-    super(n);
-    for (int i = 0; i < a.length; i++) {
-      set(a[i]);
-    }
-  }  
-  
-  /**
-   * Returns {@code true} if this target {@code XBitSet} is a subset
-   * of the argument {@code XBitSet}
-   *
-   * @param  set an {@code XBitSet}
-   * @return boolean indicating whether this {@code XBitSet} is a subset
-   *         of the argument {@code XBitSet}
-  */
-  public boolean isSubset(XBitSet set) {
-    BitSet tmp = (BitSet) this.clone();
-    tmp.andNot(set);
-    return tmp.isEmpty();
-  }
-
-  /**
-   * Returns {@code true} if this target {@code XBitSet} is disjoint
-   * from the argument {@code XBitSet}
-   *
-   * @param  set an {@code XBitSet}
-   * @return boolean indicating whether this {@code XBitSet} is 
-   *  disjoint from the argument {@code XBitSet}
-  */
-  public boolean isDisjoint(XBitSet set) {
-    BitSet tmp = (BitSet) this.clone();
-    tmp.and(set);
-    return tmp.isEmpty();
-  }
-
-  /**
-   * Returns {@code true} if this target {@code XBitSet} has a 
-   * non-empty intersection with the argument {@code XBitSet}
-   *
-   * @param  set an {@code XBitSet}
-   * @return boolean indicating whether this {@code XBitSet} 
-   *  intersects with the argument {@code XBitSet}
-  */
-
-  public boolean intersects(XBitSet set) {
-    return super.intersects(set);
-  }
-
-  /**
-   * Returns {@code true} if this target {@code XBitSet} is a superset
-   * of the argument bit set
-   *
-   * @param  set an {@code XBitSet}
-   * @return boolean indicating whether this {@code XBitSet} is a superset
-   *  of the argument {@code XBitSet}
-  */
-  public boolean isSuperset(XBitSet set) {
-    BitSet tmp = (BitSet) set.clone();
-    tmp.andNot(this);
-    return tmp.isEmpty();
-  }
-  
-  /**
-   * Returns a {@code XBitSet} that is the union of this
-   * target {@code XBitSet} and the argument {@code XBitSet}
-   *
-   * @param  set an {@code XBitSet}
-   * @return the union {@code XBitSet}
-  */
-  public XBitSet unionWith(XBitSet set) {
-    XBitSet result = (XBitSet) this.clone();
-    result.or(set);
-    return result;
-  }
-
-  /**
-   * Returns an {@code XBitSet} that is the intersection of this
-   * target {@code XBitSet} and the argument {@code XBitSet}
-   *
-   * @param  set an {@code XBitSet}
-   * @return the intersection {@code XBitSet}
-  */
-  public XBitSet intersectWith(XBitSet set) {
-    XBitSet result = (XBitSet) this.clone();
-    result.and(set);
-    return result;
-  }
-
-  /**
-   * Returns an {@code XBitSet} that is the result of
-   * of removing the members of the argument {@code XBitSet}
-   * from the target {@code XBitSet}.
-   * @param  set an {@code XBitSet}
-   * @return the difference {@code XBitSet}
-  */
-  public XBitSet subtract(XBitSet set) {
-    XBitSet result = (XBitSet) this.clone();
-    result.andNot(set);
-    return result;
-  }
-  
-  /**
-   * Returns {@code true} if the target {@code XBitSet} has a member 
-   * that is smaller than the smallest member of the argument {@code XBitSet}.
-   * Both the target and the argument {@code XBitSet} must be non-empty
-   * to ensure a meaningful result.
-   * @param  set an {@code XBitSet}
-   * @return {@code true} if the target {@code XBitSet} has a member
-   * smaller than the smallest member of the argument {@code XBitSet};
-   * {@code false} otherwise 
-  */
-  public boolean hasSmaller(XBitSet set) {
-    assert !isEmpty() && !set.isEmpty();
-    return this.nextSetBit(0) < set.nextSetBit(0);
-  }
-
-  @Override
-  /**
-   * Compare the target {@code XBitSet} with the argument
-   * {@code XBitSet}, where the bit vectors are viewed as
-   * binary representation of an integer, the bit {@code i} 
-   * set meaning that the number contains {@code 2^i}.
-   * @return negative value if the target is smaller, positive if it is
-   * larger, and zero if it equals the argument  
-   */
-  public int compareTo(XBitSet set) {
-    int l1 = this.length();
-    int l2 = set.length();
-    if (l1 != l2) {
-      return l1 - l2;
-    }
-    for (int i = l1 - 1; i >= 0; i--) {
-      if (this.get(i) && !set.get(i)) return 1;
-      else if (!this.get(i) && set.get(i)) return -1;
-    }
-    return 0;
-  }
-
-  /**
-   * Converts the target {@code XBitSet} into an array
-   * that contains all the members in the set
-   * @return the array representation of the set
-   */
-  public int[] toArray() {
-    int[] result = new int[cardinality()];
-    int k = 0;
-    for (int i = nextSetBit(0); i >=0; i= nextSetBit(i + 1)) {
-      result[k++] = i;
-    }
-    return result;
-  }
-  
-  /**
-   * Checks if this target bit set has an element
-   * that is smaller than every element in 
-   * the argument bit set
-   * @param vs bit set 
-   * @return {@code true} if this bit set has an element
-   * smaller than every element in {@code vs}
-   */
-  public boolean hasSmallerVertexThan(XBitSet vs) {
-    if (this.isEmpty()) return false;
-    else if (vs.isEmpty()) return true;
-    else return nextSetBit(0) < vs.nextSetBit(0);
-  }
-
-  /**
-   * holds the reference to an instance of the {@code DescendingComparator}
-   * for {@code BitSet}
-   */
-  public static final Comparator<BitSet> descendingComparator =
-      new DescendingComparator();
-
-  /**
-   * holds the reference to an instance of the {@code AscendingComparator}
-   * for {@code BitSet}
-   */
-  public static final Comparator<BitSet> ascendingComparator =
-      new AscendingComparator();
-  
-  /**
-   * holds the reference to an instance of the {@code CardinalityComparator}
-   * for {@code BitSet}
-   */
-  public static final Comparator<BitSet> cardinalityComparator =
-      new CardinalityComparator();
-  
-  /**
-   * A comparator for {@code BitSet}. The {@code compare}
-   * method compares the two vectors in the lexicographic order 
-   * where the highest bit is the most significant. 
-   */
-  public static class DescendingComparator implements Comparator<BitSet> {
-    @Override
-    public int compare(BitSet s1, BitSet s2) {
-      int l1 = s1.length();
-      int l2 = s2.length();
-      if (l1 != l2) {
-        return l1 - l2;
-      }
-      for (int i = l1 - 1; i >= 0; i--) {
-        if (s1.get(i) && !s2.get(i)) return 1;
-        else if (!s1.get(i) && s2.get(i)) return -1;
-      }
-      return 0;
-    }
-  }
-
-  /**
-   * A comparator for {@code BitSet}. The {@code compare} method compares
-   * the two vectors in the lexicographic order where the
-   * lowest bit is the most significant. 
-   */
-  public static class AscendingComparator implements Comparator<BitSet> {
-    @Override
-    public int compare(BitSet s1, BitSet s2) {
-      int l1 = s1.length();
-      int l2 = s2.length();
-
-      for (int i = 0; i < Math.min(l1,  l2); i++) {
-        if (s1.get(i) && !s2.get(i)) return 1;
-        else if (!s1.get(i) && s2.get(i)) return -1;
-      }
-      return l1 - l2;
-    }
-  }
-  
-  /**
-   * A comparator for {@code BitSet}. The {@code compare} method compares
-   * the two sets in terms of the cardinality. In case of
-   * a tie, the two sets are compared by the {@code AscendingComparator} 
-   */
-  public static class CardinalityComparator implements Comparator<BitSet> {
-    @Override
-    public int compare(BitSet s1, BitSet s2) {
-      int c1 = s1.cardinality();
-      int c2 = s2.cardinality();
-      if (c1 != c2) {
-        return c1 - c2;
-      }
-      else 
-        return ascendingComparator.compare(s1, s2);
-    }
-  }
-}
+/*
+ * Copyright (c) 2016, Hisao Tamaki
+ */
+package tw.exact;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * This class implements a bit vector backed by a plain {@code long}
+ * array, with the methods of {@code java.util.BitSet} used in this
+ * package. 
+ * The array is sized at construction, normally to the number of
+ * vertices of the graph, and grows only if a larger member is set,
+ * so that the operations on sets of the same graph are 
+ * simple loops over arrays of the same length.
+ * The main purpose is to provide methods that create
+ * a new vector as a result of a set operation such as 
+ * union and intersection, rather than modifying the 
+ * existing one, and fused methods, such as {@code unionCardinality},
+ * that compute a property of the result of a set operation without
+ * creating it.
+ *
+ * @author  Hisao Tamaki
+ */
+
+public final class XBitSet implements Comparable<XBitSet>, Cloneable {
+  private long[] words;
+
+  /**
+   * Creates an empty {@code XBitSet}.
+   */
+  public XBitSet() {
+    words = new long[1];
+  }
+
+  /**
+   * Creates an empty {@code XBitSet} whose initial size is large enough to explicitly
+   * contain members smaller than {@code n}.
+   *
+   * @param  n the initial size of the {@code XBitSet} 
+   * @throws NegativeArraySizeException if the specified initial size
+   *         is negative
+   */
+  public XBitSet(int n) {
+    if (n < 0) {
+      throw new NegativeArraySizeException("n < 0: " + n);
+    }
+    words = new long[Math.max(1, (n + 63) >>> 6)];
+  }
+  
+  /**
+   * Creates an {@code XBitSet} with members provided by an array
+   *
+   * @param  a an array of members to be in the {@code XBitSet}
+   */
+  public XBitSet(int a[]) {
+    this();
+    for (int i = 0; i < a.length; i++) {
+      set(a[i]);
+    }
+  }  
+
+  private XBitSet(long[] words) {
+    this.words = words;
+  }
+  
+  /**
+   * Creates an {@code XBitSet} with members provided by an array.
+   * The initial size is large enough to explicitly
+   * contain members smaller than {@code n}.  
+   *
+   * @param  n the initial size of the {@code XBitSet}
+   * @param  a an array of indices where the bits should be set
+   * @throws NegativeArraySizeException if the specified initial size
+   *         is negative
+   */
+  public XBitSet(int n, int a[]) {
+    this(n);
+    for (int i = 0; i < a.length; i++) {
+      set(a[i]);
+    }
+  }  
+  
+  /**
+   * Creates an {@code XBitSet} whose members are the bits set in
+   * a slice of a word array, as {@code BitSet.valueOf} does
+   * @param  a an array of words
+   * @param  offset start of the slice
+   * @param  length length of the slice
+   * @return the new {@code XBitSet}
+   */
+  public static XBitSet valueOf(long[] a, int offset, int length) {
+    return new XBitSet(Arrays.copyOfRange(a, offset, 
+        offset + Math.max(1, length)));
+  }
+
+  private void ensureCapacity(int wordsRequired) {
+    if (words.length < wordsRequired) {
+      words = Arrays.copyOf(words, 
+          Math.max(2 * words.length, wordsRequired));
+    }
+  }
+
+  /**
+   * Returns the backing array of this {@code XBitSet}, which may
+   * contain trailing zero words.  The array must not be modified.
+   * @return the words of this set
+   */
+  public long[] words() {
+    return words;
+  }
+
+  /**
+   * Returns a new array containing the words of this {@code XBitSet}
+   * up to the last non-zero one, as {@code BitSet.toLongArray} does
+   * @return the array of words
+   */
+  public long[] toLongArray() {
+    int n = words.length;
+    while (n > 0 && words[n - 1] == 0) {
+      n--;
+    }
+    return Arrays.copyOf(words, n);
+  }
+
+  /**
+   * @param  i a non-negative integer
+   * @return {@code true} if {@code i} is a member of this set
+   */
+  public boolean get(int i) {
+    int w = i >>> 6;
+    return w < words.length && (words[w] & (1L << i)) != 0;
+  }
+
+  /**
+   * Adds {@code i} to this set
+   * @param  i a non-negative integer
+   */
+  public void set(int i) {
+    if (i < 0) {
+      throw new IndexOutOfBoundsException("i < 0: " + i);
+    }
+    int w = i >>> 6;
+    ensureCapacity(w + 1);
+    words[w] |= 1L << i;
+  }
+
+  /**
+   * Adds {@code i} to this set or removes it from this set
+   * @param  i a non-negative integer
+   * @param  value {@code true} for adding
+   */
+  public void set(int i, boolean value) {
+    if (value) {
+      set(i);
+    }
+    else {
+      clear(i);
+    }
+  }
+
+  /**
+   * Adds the integers from {@code from} (inclusive) to
+   * {@code to} (exclusive) to this set
+   */
+  public void set(int from, int to) {
+    for (int i = from; i < to; i++) {
+      set(i);
+    }
+  }
+
+  /**
+   * Removes {@code i} from this set
+   * @param  i a non-negative integer
+   */
+  public void clear(int i) {
+    int w = i >>> 6;
+    if (w < words.length) {
+      words[w] &= ~(1L << i);
+    }
+  }
+
+  /**
+   * Removes all the members of this set
+   */
+  public void clear() {
+    Arrays.fill(words, 0);
+  }
+
+  /**
+   * Returns the smallest member of this set that is larger than or
+   * equal to {@code from}
+   * @param  from a non-negative integer
+   * @return the member, or -1 if there is no such member
+   */
+  public int nextSetBit(int from) {
+    int w = from >>> 6;
+    if (w >= words.length) {
+      return -1;
+    }
+    long word = words[w] & (-1L << from);
+    while (true) {
+      if (word != 0) {
+        return (w << 6) + Long.numberOfTrailingZeros(word);
+      }
+      if (++w == words.length) {
+        return -1;
+      }
+      word = words[w];
+    }
+  }
+
+  /**
+   * Returns the smallest non-member of this set that is larger than or
+   * equal to {@code from}
+   * @param  from a non-negative integer
+   * @return the non-member
+   */
+  public int nextClearBit(int from) {
+    int w = from >>> 6;
+    if (w >= words.length) {
+      return from;
+    }
+    long word = ~words[w] & (-1L << from);
+    while (true) {
+      if (word != 0) {
+        return (w << 6) + Long.numberOfTrailingZeros(word);
+      }
+      if (++w == words.length) {
+        return w << 6;
+      }
+      word = ~words[w];
+    }
+  }
+
+  /**
+   * @return the number of members of this set
+   */
+  public int cardinality() {
+    int c = 0;
+    for (int i = 0; i < words.length; i++) {
+      c += Long.bitCount(words[i]);
+    }
+    return c;
+  }
+
+  /**
+   * @return {@code true} if this set has no member
+   */
+  public boolean isEmpty() {
+    for (int i = 0; i < words.length; i++) {
+      if (words[i] != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return the largest member plus one, or zero if the set is empty
+   */
+  public int length() {
+    for (int i = words.length - 1; i >= 0; i--) {
+      if (words[i] != 0) {
+        return (i << 6) + 64 - Long.numberOfLeadingZeros(words[i]);
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Adds the members of the argument {@code XBitSet} to this set
+   * @param  set an {@code XBitSet}
+   */
+  public void or(XBitSet set) {
+    long[] w = set.words;
+    int m = w.length;
+    while (m > words.length && w[m - 1] == 0) {
+      m--;
+    }
+    ensureCapacity(m);
+    for (int i = 0; i < m; i++) {
+      words[i] |= w[i];
+    }
+  }
+
+  /**
+   * Removes the non-members of the argument {@code XBitSet} from this set
+   * @param  set an {@code XBitSet}
+   */
+  public void and(XBitSet set) {
+    long[] w = set.words;
+    int m = Math.min(words.length, w.length);
+    for (int i = 0; i < m; i++) {
+      words[i] &= w[i];
+    }
+    for (int i = m; i < words.length; i++) {
+      words[i] = 0;
+    }
+  }
+
+  /**
+   * Removes the members of the argument {@code XBitSet} from this set
+   * @param  set an {@code XBitSet}
+   */
+  public void andNot(XBitSet set) {
+    long[] w = set.words;
+    int m = Math.min(words.length, w.length);
+    for (int i = 0; i < m; i++) {
+      words[i] &= ~w[i];
+    }
+  }
+
+  /**
+   * Replaces this set by its symmetric difference with the argument
+   * @param  set an {@code XBitSet}
+   */
+  public void xor(XBitSet set) {
+    long[] w = set.words;
+    int m = w.length;
+    while (m > words.length && w[m - 1] == 0) {
+      m--;
+    }
+    ensureCapacity(m);
+    for (int i = 0; i < m; i++) {
+      words[i] ^= w[i];
+    }
+  }
+
+  @Override
+  public XBitSet clone() {
+    return new XBitSet(words.clone());
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof XBitSet)) {
+      return false;
+    }
+    long[] w = ((XBitSet) obj).words;
+    int m = Math.min(words.length, w.length);
+    for (int i = 0; i < m; i++) {
+      if (words[i] != w[i]) {
+        return false;
+      }
+    }
+    for (int i = m; i < words.length; i++) {
+      if (words[i] != 0) {
+        return false;
+      }
+    }
+    for (int i = m; i < w.length; i++) {
+      if (w[i] != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * The hash code is that of {@code java.util.BitSet} with the same
+   * members
+   */
+  @Override
+  public int hashCode() {
+    long h = 1234;
+    for (int i = words.length; --i >= 0; ) {
+      h ^= words[i] * (i + 1);
+    }
+    return (int) ((h >> 32) ^ h);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("{");
+    for (int i = nextSetBit(0); i >= 0; i = nextSetBit(i + 1)) {
+      if (sb.length() > 1) {
+        sb.append(", ");
+      }
+      sb.append(i);
+    }
+    sb.append("}");
+    return sb.toString();
+  }
+
+  /**
+   * Returns the cardinality of the union of this target 
+   * {@code XBitSet} and the argument {@code XBitSet}, without 
+   * creating the union
+   *
+   * @param  set an {@code XBitSet}
+   * @return the cardinality of the union
+  */
+  public int unionCardinality(XBitSet set) {
+    long[] w = set.words;
+    int m = Math.min(words.length, w.length);
+    int c = 0;
+    for (int i = 0; i < m; i++) {
+      c += Long.bitCount(words[i] | w[i]);
+    }
+    for (int i = m; i < words.length; i++) {
+      c += Long.bitCount(words[i]);
+    }
+    for (int i = m; i < w.length; i++) {
+      c += Long.bitCount(w[i]);
+    }
+    return c;
+  }
+
+  /**
+   * Returns the cardinality of the intersection of this target 
+   * {@code XBitSet} and the argument {@code XBitSet}, without 
+   * creating the intersection
+   *
+   * @param  set an {@code XBitSet}
+   * @return the cardinality of the intersection
+  */
+  public int intersectCardinality(XBitSet set) {
+    long[] w = set.words;
+    int m = Math.min(words.length, w.length);
+    int c = 0;
+    for (int i = 0; i < m; i++) {
+      c += Long.bitCount(words[i] & w[i]);
+    }
+    return c;
+  }
+
+  /**
+   * Returns {@code true} if this target {@code XBitSet} is a subset
+   * of the union of the two argument {@code XBitSet}s, without
+   * creating the union
+   *
+   * @param  set1 an {@code XBitSet}
+   * @param  set2 an {@code XBitSet}
+   * @return {@code true} if this set is a subset of the union
+  */
+  public boolean subsetOfUnion(XBitSet set1, XBitSet set2) {
+    long[] w1 = set1.words;
+    long[] w2 = set2.words;
+    for (int i = 0; i < words.length; i++) {
+      long u = (i < w1.length ? w1[i] : 0) | (i < w2.length ? w2[i] : 0);
+      if ((words[i] & ~u) != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns {@code true} if removing the members of the argument 
+   * {@code XBitSet} from this target {@code XBitSet} leaves
+   * the empty set, that is, if this set is a subset of the argument.
+   *
+   * @param  set an {@code XBitSet}
+   * @return {@code true} if the difference is empty
+  */
+  public boolean andNotIsEmpty(XBitSet set) {
+    long[] w = set.words;
+    int m = Math.min(words.length, w.length);
+    for (int i = 0; i < m; i++) {
+      if ((words[i] & ~w[i]) != 0) {
+        return false;
+      }
+    }
+    for (int i = m; i < words.length; i++) {
+      if (words[i] != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+  
+  /**
+   * Returns {@code true} if this target {@code XBitSet} is a subset
+   * of the argument {@code XBitSet}
+   *
+   * @param  set an {@code XBitSet}
+   * @return boolean indicating whether this {@code XBitSet} is a subset
+   *         of the argument {@code XBitSet}
+  */
+  public boolean isSubset(XBitSet set) {
+    return andNotIsEmpty(set);
+  }
+
+  /**
+   * Returns {@code true} if this target {@code XBitSet} is disjoint
+   * from the argument {@code XBitSet}
+   *
+   * @param  set an {@code XBitSet}
+   * @return boolean indicating whether this {@code XBitSet} is 
+   *  disjoint from the argument {@code XBitSet}
+  */
+  public boolean isDisjoint(XBitSet set) {
+    return !intersects(set);
+  }
+
+  /**
+   * Returns {@code true} if this target {@code XBitSet} has a 
+   * non-empty intersection with the argument {@code XBitSet}
+   *
+   * @param  set an {@code XBitSet}
+   * @return boolean indicating whether this {@code XBitSet} 
+   *  intersects with the argument {@code XBitSet}
+  */
+
+  public boolean intersects(XBitSet set) {
+    long[] w = set.words;
+    int m = Math.min(words.length, w.length);
+    for (int i = 0; i < m; i++) {
+      if ((words[i] & w[i]) != 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns {@code true} if this target {@code XBitSet} is a superset
+   * of the argument bit set
+   *
+   * @param  set an {@code XBitSet}
+   * @return boolean indicating whether this {@code XBitSet} is a superset
+   *  of the argument {@code XBitSet}
+  */
+  public boolean isSuperset(XBitSet set) {
+    return set.andNotIsEmpty(this);
+  }
+  
+  /**
+   * Returns a {@code XBitSet} that is the union of this
+   * target {@code XBitSet} and the argument {@code XBitSet}
+   *
+   * @param  set an {@code XBitSet}
+   * @return the union {@code XBitSet}
+  */
+  public XBitSet unionWith(XBitSet set) {
+    XBitSet result = this.clone();
+    result.or(set);
+    return result;
+  }
+
+  /**
+   * Returns an {@code XBitSet} that is the intersection of this
+   * target {@code XBitSet} and the argument {@code XBitSet}
+   *
+   * @param  set an {@code XBitSet}
+   * @return the intersection {@code XBitSet}
+  */
+  public XBitSet intersectWith(XBitSet set) {
+    XBitSet result = this.clone();
+    result.and(set);
+    return result;
+  }
+
+  /**
+   * Returns an {@code XBitSet} that is the result of
+   * of removing the members of the argument {@code XBitSet}
+   * from the target {@code XBitSet}.
+   * @param  set an {@code XBitSet}
+   * @return the difference {@code XBitSet}
+  */
+  public XBitSet subtract(XBitSet set) {
+    XBitSet result = this.clone();
+    result.andNot(set);
+    return result;
+  }
+  
+  /**
+   * Returns {@code true} if the target {@code XBitSet} has a member 
+   * that is smaller than the smallest member of the argument {@code XBitSet}.
+   * Both the target and the argument {@code XBitSet} must be non-empty
+   * to ensure a meaningful result.
+   * @param  set an {@code XBitSet}
+   * @return {@code true} if the target {@code XBitSet} has a member
+   * smaller than the smallest member of the argument {@code XBitSet};
+   * {@code false} otherwise 
+  */
+  public boolean hasSmaller(XBitSet set) {
+    assert !isEmpty() && !set.isEmpty();
+    return this.nextSetBit(0) < set.nextSetBit(0);
+  }
+
+  @Override
+  /**
+   * Compare the target {@code XBitSet} with the argument
+   * {@code XBitSet}, where the bit vectors are viewed as
+   * binary representation of an integer, the bit {@code i} 
+   * set meaning that the number contains {@code 2^i}.
+   * @return negative value if the target is smaller, positive if it is
+   * larger, and zero if it equals the argument  
+   */
+  public int compareTo(XBitSet set) {
+    int l1 = this.length();
+    int l2 = set.length();
+    if (l1 != l2) {
+      return l1 - l2;
+    }
+    for (int i = l1 - 1; i >= 0; i--) {
+      if (this.get(i) && !set.get(i)) return 1;
+      else if (!this.get(i) && set.get(i)) return -1;
+    }
+    return 0;
+  }
+
+  /**
+   * Converts the target {@code XBitSet} into an array
+   * that contains all the members in the set
+   * @return the array representation of the set
+   */
+  public int[] toArray() {
+    int[] result = new int[cardinality()];
+    int k = 0;
+    for (int i = nextSetBit(0); i >=0; i= nextSetBit(i + 1)) {
+      result[k++] = i;
+    }
+    return result;
+  }
+  
+  /**
+   * Checks if this target bit set has an element
+   * that is smaller than every element in 
+   * the argument bit set
+   * @param vs bit set 
+   * @return {@code true} if this bit set has an element
+   * smaller than every element in {@code vs}
+   */
+  public boolean hasSmallerVertexThan(XBitSet vs) {
+    if (this.isEmpty()) return false;
+    else if (vs.isEmpty()) return true;
+    else return nextSetBit(0) < vs.nextSetBit(0);
+  }
+
+  /**
+   * holds the reference to an instance of the {@code DescendingComparator}
+   * for {@code XBitSet}
+   */
+  public static final Comparator<XBitSet> descendingComparator =
+      new DescendingComparator();
+
+  /**
+   * holds the reference to an instance of the {@code AscendingComparator}
+   * for {@code XBitSet}
+   */
+  public static final Comparator<XBitSet> ascendingComparator =
+      new AscendingComparator();
+  
+  /**
+   * holds the reference to an instance of the {@code CardinalityComparator}
+   * for {@code XBitSet}
+   */
+  public static final Comparator<XBitSet> cardinalityComparator =
+      new CardinalityComparator();
+  
+  /**
+   * A comparator for {@code XBitSet}. The {@code compare}
+   * method compares the two vectors in the lexicographic order 
+   * where the highest bit is the most significant. 
+   */
+  public static class DescendingComparator implements Comparator<XBitSet> {
+    @Override
+    public int compare(XBitSet s1, XBitSet s2) {
+      int l1 = s1.length();
+      int l2 = s2.length();
+      if (l1 != l2) {
+        return l1 - l2;
+      }
+      for (int i = l1 - 1; i >= 0; i--) {
+        if (s1.get(i) && !s2.get(i)) return 1;
+        else if (!s1.get(i) && s2.get(i)) return -1;
+      }
+      return 0;
+    }
+  }
+
+  /**
+   * A comparator for {@code XBitSet}. The {@code compare} method compares
+   * the two vectors in the lexicographic order where the
+   * lowest bit is the most significant. 
+   */
+  public static class AscendingComparator implements Comparator<XBitSet> {
+    @Override
+    public int compare(XBitSet s1, XBitSet s2) {
+      int l1 = s1.length();
+      int l2 = s2.length();
+
+      for (int i = 0; i < Math.min(l1,  l2); i++) {
+        if (s1.get(i) && !s2.get(i)) return 1;
+        else if (!s1.get(i) && s2.get(i)) return -1;
+      }
+      return l1 - l2;
+    }
+  }
+  
+  /**
+   * A comparator for {@code XBitSet}. The {@code compare} method compares
+   * the two sets in terms of the cardinality. In case of
+   * a tie, the two sets are compared by the {@code AscendingComparator} 
+   */
+  public static class CardinalityComparator implements Comparator<XBitSet> {
+    @Override
+    public int compare(XBitSet s1, XBitSet s2) {
+      int c1 = s1.cardinality();
+      int c2 = s2.cardinality();
+      if (c1 != c2) {
+        return c1 - c2;
+      }
+      else 
+        return ascendingComparator.compare(s1, s2);
+    }
+  }
+}
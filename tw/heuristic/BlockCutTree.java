@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2017, Hisao Tamaki and Hiromu Ohtsuka, Keitaro Makii
+ */
+
+package tw.heuristic;
+
+import java.util.ArrayList;
+
+/**
+ * The block-cut tree of a connected graph: the biconnected 
+ * components, or blocks, of the graph and its articulations,
+ * each articulation being adjacent to the blocks containing it.
+ * Obtained by {@code Graph.getBlockCutTree}.
+ */
+public class BlockCutTree {
+  /**
+   * the vertex sets of the blocks
+   */
+  public ArrayList<VertexSet> blocks;
+
+  /**
+   * the set of articulations
+   */
+  public VertexSet articulations;
+
+  /**
+   * {@code cutVertices[i]} lists the articulations contained in
+   * the {@code i}th block, which are its neighbors in the tree
+   */
+  public int[][] cutVertices;
+
+  BlockCutTree(ArrayList<VertexSet> blocks, VertexSet articulations) {
+    this.blocks = blocks;
+    this.articulations = articulations;
+    cutVertices = new int[blocks.size()][];
+    int[] buffer = new int[articulations.cardinality()];
+    for (int i = 0; i < blocks.size(); i++) {
+      VertexSet block = blocks.get(i);
+      int k = 0;
+      for (int v = block.nextSetBit(0); v >= 0; 
+          v = block.nextSetBit(v + 1)) {
+        if (articulations.get(v)) {
+          buffer[k++] = v;
+        }
+      }
+      cutVertices[i] = new int[k];
+      System.arraycopy(buffer, 0, cutVertices[i], 0, k);
+    }
+  }
+}
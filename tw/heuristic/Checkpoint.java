@@ -0,0 +1,494 @@
+/*
+ * Copyright (c) 2017, Hiromu Ohtsuka
+*/
+
+package tw.heuristic;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+/**
+ * A binary snapshot of the heuristic decomposition of an instance,
+ * from which a later run on the same instance starts without
+ * parsing the graph, reducing it, splitting it into the components
+ * and decomposing them greedily with the small cuts.
+ * <p>
+ * The snapshot holds the checksum of the input, the graph and its
+ * reduction, the reduced graph, the vertices of its components,
+ * the bags of the components with their nested bags and separators,
+ * including the safety of the separators figured out, and the best
+ * tree decomposition of the reduced graph.
+ * The graphs are in the compressed sparse row format.
+ * The file is a sequence of big-endian integers, read through
+ * a single mapping of the file, and is written to a temporary file
+ * moved into place, so that an interrupted write leaves the previous
+ * snapshot.
+ * The lengths and the vertex and bag indices read are checked before
+ * they are used, so that a corrupt file is rejected, with the run
+ * starting afresh, rather than failing the run.
+ */
+public class Checkpoint{
+  private static final int MAGIC = 0x5457434b;
+  private static final int VERSION = 1;
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private static final int SAFE = 1;
+  private static final int UNSAFE = 2;
+  private static final int WALL = 4;
+
+  final File file;
+  final long checksum;
+
+  /*
+   * the state read from the file; the reduction holds the graph
+   * of the instance
+   */
+  Reduction reduction;
+  Graph reducedGraph;
+  int lowerBound;
+  long detectSum;
+  int[][] invs;
+  Bag[] bags;
+  TreeDecomposition best;
+
+  private ByteBuffer buf;
+  private FileChannel channel;
+
+  /**
+   * @param file the file of the snapshot
+   * @param checksum the checksum of the input of the instance
+   */
+  public Checkpoint(File file, long checksum){
+    this.file = file;
+    this.checksum = checksum;
+  }
+
+  /**
+   * Computes the checksum of the input, identifying the instance
+   * of a snapshot
+   * @param input the bytes of the input, from the position to
+   * the limit, which are not changed
+   * @return the 64-bit FNV-1a hash of the input
+   */
+  public static long checksum(ByteBuffer input){
+    long h = 0xcbf29ce484222325L;
+    int i = input.position();
+    int limit = input.limit();
+    for(; i + 8 <= limit; i += 8){
+      h = (h ^ input.getLong(i)) * 0x100000001b3L;
+    }
+    for(; i < limit; i++){
+      h = (h ^ input.get(i)) * 0x100000001b3L;
+    }
+    return h;
+  }
+
+  /**
+   * Reads the snapshot of the instance from the file
+   * @param file the file of the snapshot
+   * @param checksum the checksum of the input of the instance
+   * @return the snapshot, or {@code null} if the file does not exist,
+   * is of another instance or cannot be read
+   */
+  public static Checkpoint read(File file, long checksum){
+    if(!file.exists()){
+      return null;
+    }
+    Checkpoint checkpoint = new Checkpoint(file, checksum);
+    try(FileChannel fc = FileChannel.open(file.toPath(),
+          StandardOpenOption.READ)){
+      checkpoint.buf = fc.map(FileChannel.MapMode.READ_ONLY, 0, fc.size());
+      if(!checkpoint.readState()){
+        return null;
+      }
+      return checkpoint;
+    }
+    catch(IOException | BufferUnderflowException |
+        IndexOutOfBoundsException e){
+      comment("checkpoint " + file + " not read: " + e);
+      return null;
+    }
+    finally{
+      checkpoint.buf = null;
+    }
+  }
+
+  /**
+   * Writes the snapshot to the file, replacing the previous one
+   * @param reduction the reduction of the graph of the instance
+   * @param reducedGraph the reduced graph
+   * @param lowerBound the lower bound on the treewidth
+   * @param detectSum the time in milliseconds spent on figuring out
+   * the safety of the separators
+   * @param invs the vertices of the reduced graph for the vertices
+   * of each component, or {@code null} if it is connected
+   * @param bags the bags of the components
+   * @param best the best tree decomposition of the reduced graph
+   * @return {@code true} if written
+   */
+  public boolean write(Reduction reduction, Graph reducedGraph,
+      int lowerBound, long detectSum, int[][] invs, Bag[] bags,
+      TreeDecomposition best){
+    File temporary = new File(file.getPath() + ".tmp");
+    try{
+      try(FileChannel fc = FileChannel.open(temporary.toPath(),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)){
+        channel = fc;
+        buf = ByteBuffer.allocate(BUFFER_SIZE);
+        writeState(reduction, reducedGraph, lowerBound, detectSum,
+            invs, bags, best);
+        flush();
+      }
+      Files.move(temporary.toPath(), file.toPath(),
+          StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+      return true;
+    }
+    catch(IOException e){
+      comment("checkpoint " + file + " not written: " + e);
+      temporary.delete();
+      return false;
+    }
+    finally{
+      channel = null;
+      buf = null;
+    }
+  }
+
+  private void writeState(Reduction reduction, Graph reducedGraph,
+      int lowerBound, long detectSum, int[][] invs, Bag[] bags,
+      TreeDecomposition best) throws IOException{
+    putInt(MAGIC);
+    putInt(VERSION);
+    putLong(checksum);
+
+    writeGraph(reduction.g);
+    putInt(reduction.low);
+    putInt(reduction.eliminationWidth);
+    putInt(reduction.eliminationBags.size());
+    for(int[] bag : reduction.eliminationBags){
+      writeInts(bag);
+    }
+    writeInts(reduction.inv);
+
+    writeGraph(reducedGraph);
+    putInt(lowerBound);
+    putLong(detectSum);
+
+    putInt(bags.length);
+    putInt(invs == null ? 0 : 1);
+    if(invs != null){
+      for(int[] inv : invs){
+        writeInts(inv);
+      }
+    }
+    for(Bag bag : bags){
+      writeBag(bag);
+    }
+
+    putInt(best.nb);
+    putInt(best.width);
+    int edges = 0;
+    for(int i = 1; i <= best.nb; i++){
+      writeInts(best.bags[i]);
+      for(int j = 0; j < best.degree[i]; j++){
+        if(i < best.neighbor[i][j]){
+          edges++;
+        }
+      }
+    }
+    putInt(edges);
+    for(int i = 1; i <= best.nb; i++){
+      for(int j = 0; j < best.degree[i]; j++){
+        if(i < best.neighbor[i][j]){
+          putInt(i);
+          putInt(best.neighbor[i][j]);
+        }
+      }
+    }
+  }
+
+  private boolean readState() throws IOException{
+    if(buf.remaining() < 16 || getInt() != MAGIC){
+      comment("checkpoint " + file + " not a checkpoint");
+      return false;
+    }
+    if(getInt() != VERSION){
+      comment("checkpoint " + file + " of another version");
+      return false;
+    }
+    if(buf.getLong() != checksum){
+      comment("checkpoint " + file + " of another instance");
+      return false;
+    }
+
+    Graph graph = readGraph();
+    reduction = new Reduction(graph, getInt());
+    reduction.eliminationWidth = getInt();
+    int ne = getLength();
+    reduction.eliminationBags = new ArrayList< >(ne);
+    for(int i = 0; i < ne; i++){
+      reduction.eliminationBags.add(readInts(graph.n));
+    }
+    reduction.inv = readInts(graph.n);
+
+    reducedGraph = readGraph();
+    if(reduction.inv.length != reducedGraph.n){
+      throw new IOException("reduced graph of " + reducedGraph.n +
+          " vertices for " + reduction.inv.length);
+    }
+    lowerBound = getInt();
+    detectSum = buf.getLong();
+
+    int nc = getLength();
+    Graph[] graphs = new Graph[nc];
+    if(getInt() == 0){
+      if(nc != 1){
+        throw new IOException(nc + " components without their vertices");
+      }
+      graphs[0] = reducedGraph;
+    }
+    else{
+      invs = new int[nc][];
+      int[] conv = new int[reducedGraph.n];
+      for(int i = 0; i < nc; i++){
+        invs[i] = readInts(reducedGraph.n);
+        graphs[i] = new Graph(invs[i].length);
+        Arrays.fill(conv, -1);
+        for(int k = 0; k < invs[i].length; k++){
+          conv[invs[i][k]] = k;
+        }
+        graphs[i].inheritEdges(reducedGraph, conv, invs[i]);
+      }
+    }
+    bags = new Bag[nc];
+    for(int i = 0; i < nc; i++){
+      bags[i] = new Bag(graphs[i]);
+      readBag(bags[i]);
+    }
+
+    int nb = getLength();
+    best = new TreeDecomposition(nb, getInt(), reducedGraph);
+    for(int i = 1; i <= nb; i++){
+      best.setBag(i, readInts(reducedGraph.n));
+    }
+    int edges = getLength();
+    for(int e = 0; e < edges; e++){
+      int i = getIndex(nb + 1);
+      int j = getIndex(nb + 1);
+      if(i == 0 || j == 0){
+        throw new IOException("edge of bag index 0");
+      }
+      best.addEdge(i, j);
+    }
+    return true;
+  }
+
+  private void writeGraph(Graph g) throws IOException{
+    putInt(g.n);
+    int m = 0;
+    for(int v = 0; v < g.n; v++){
+      m += g.degree[v];
+    }
+    putInt(m);
+    int offset = 0;
+    for(int v = 0; v < g.n; v++){
+      putInt(offset);
+      offset += g.degree[v];
+    }
+    putInt(offset);
+    for(int v = 0; v < g.n; v++){
+      for(int i = 0; i < g.degree[v]; i++){
+        putInt(g.targets[g.offsets[v] + i]);
+      }
+    }
+  }
+
+  private Graph readGraph() throws IOException{
+    int n = getLength();
+    int m = getLength();
+    int[] offsets = readInts(n + 1, m + 1);
+    for(int v = 0; v < n; v++){
+      if(offsets[v] > offsets[v + 1]){
+        throw new IOException("offsets decreasing at vertex " + v);
+      }
+    }
+    if(offsets[0] != 0 || offsets[n] != m){
+      throw new IOException("offsets not from 0 to " + m);
+    }
+    int[] targets = readInts(m, n);
+    Graph g = new Graph(n);
+    g.setAdjacency(offsets, targets);
+    return g;
+  }
+
+  /*
+   * writes the nested bags and the separators of the bag: the vertex
+   * sets of the nested bags, the separators with their safety and
+   * the indices of their incident bags, and then the nested bags
+   * and the separators of each nested bag
+   */
+  private void writeBag(Bag bag) throws IOException{
+    putInt(bag.optimal ? 1 : 0);
+    if(bag.nestedBags == null){
+      putInt(-1);
+      return;
+    }
+    putInt(bag.nestedBags.size());
+    IdentityHashMap< Bag, Integer > indices = new IdentityHashMap< >();
+    for(Bag nb : bag.nestedBags){
+      indices.put(nb, indices.size());
+      writeInts(nb.vertexSet.toArray());
+    }
+    putInt(bag.separators.size());
+    for(Separator s : bag.separators){
+      writeInts(s.vertexSet.toArray());
+      putInt((s.safe ? SAFE : 0) | (s.unsafe ? UNSAFE : 0) |
+          (s.wall ? WALL : 0));
+      putInt(s.incidentBags.size());
+      for(Bag b : s.incidentBags){
+        Integer index = indices.get(b);
+        if(index == null){
+          throw new IOException("separator " + s.vertexSet +
+              " incident to a bag not nested in its bag");
+        }
+        putInt(index);
+      }
+    }
+    for(Bag nb : bag.nestedBags){
+      writeBag(nb);
+    }
+  }
+
+  /*
+   * reads the nested bags and the separators of the bag, whose graph
+   * is made after its incident separators are attached
+   */
+  private void readBag(Bag bag) throws IOException{
+    bag.optimal = getInt() != 0;
+    int count = getInt();
+    if(count == -1){
+      bag.setWidth();
+      return;
+    }
+    if(bag.graph == null){
+      bag.makeLocalGraph();
+    }
+    if(count < 0 || count > buf.remaining() / 4){
+      throw new IOException("corrupt count of nested bags " + count);
+    }
+    bag.nestedBags = new ArrayList< >(count);
+    bag.separators = new ArrayList< >();
+    for(int i = 0; i < count; i++){
+      bag.addNestedBag(new VertexSet(bag.size, readInts(bag.size)));
+    }
+    int ns = getLength();
+    for(int i = 0; i < ns; i++){
+      Separator s =
+        bag.addSeparator(new VertexSet(bag.size, readInts(bag.size)));
+      int flags = getInt();
+      s.safe = (flags & SAFE) != 0;
+      s.unsafe = (flags & UNSAFE) != 0;
+      s.wall = (flags & WALL) != 0;
+      int k = getLength();
+      for(int j = 0; j < k; j++){
+        Bag b = bag.nestedBags.get(getIndex(count));
+        s.addIncidentBag(b);
+        b.addIncidentSeparator(s);
+      }
+    }
+    for(Bag nb : bag.nestedBags){
+      readBag(nb);
+    }
+    bag.setWidth();
+  }
+
+  private void writeInts(int[] a) throws IOException{
+    putInt(a.length);
+    for(int x : a){
+      putInt(x);
+    }
+  }
+
+  /*
+   * reads an array of the indices less than the bound
+   */
+  private int[] readInts(int bound) throws IOException{
+    return readInts(getLength(), bound);
+  }
+
+  private int[] readInts(int length, int bound) throws IOException{
+    if(length > buf.remaining() / 4){
+      throw new IOException("corrupt length " + length);
+    }
+    int[] a = new int[length];
+    buf.asIntBuffer().get(a);
+    buf.position(buf.position() + 4 * a.length);
+    for(int x : a){
+      if(x < 0 || x >= bound){
+        throw new IOException("index " + x + " out of range " + bound);
+      }
+    }
+    return a;
+  }
+
+  /*
+   * reads the length of a sequence of integers, checked against
+   * the bytes remaining
+   */
+  private int getLength() throws IOException{
+    int length = getInt();
+    if(length < 0 || length > buf.remaining() / 4){
+      throw new IOException("corrupt length " + length);
+    }
+    return length;
+  }
+
+  private int getIndex(int bound) throws IOException{
+    int index = getInt();
+    if(index < 0 || index >= bound){
+      throw new IOException("index " + index + " out of range " + bound);
+    }
+    return index;
+  }
+
+  private int getInt(){
+    return buf.getInt();
+  }
+
+  private void putInt(int x) throws IOException{
+    if(buf.remaining() < 4){
+      flush();
+    }
+    buf.putInt(x);
+  }
+
+  private void putLong(long x) throws IOException{
+    if(buf.remaining() < 8){
+      flush();
+    }
+    buf.putLong(x);
+  }
+
+  private void flush() throws IOException{
+    buf.flip();
+    while(buf.hasRemaining()){
+      channel.write(buf);
+    }
+    buf.clear();
+  }
+
+  private static void comment(String comment){
+    System.out.println("c " + comment);
+  }
+}
@@ -1,437 +1,589 @@
-/*
- * Copyright (c) 2017, Keitaro Makii and Hiromu Ohtsuka
-*/
-
-package tw.heuristic;
-
-import java.util.ArrayList;
-import java.util.BitSet;
-
-public class CutDecomposer{
-  public static final int LN = 2000;
-  public static final int HN = 100000;
-  public static final int HM = 1000000;
-  public static final int ONET = 400000;
-  public static final int STEP = 1000;
-  public static final long DEFAULTMAXSTEP = 500000;
-  public static int now;
-  public static int cu;
-  public static int compSize;
-  public static long count;
-  public static boolean abort;
-  private Bag whole;
-
-  private static final boolean DEBUG = false;
-
-  private class CutDivide{
-    Separator sep;
-    VertexSet c1,c2;
-    CutDivide(Separator s,VertexSet a,VertexSet b){
-      sep = s;
-      c1 = a;
-      c2 = b;
-    }
-  }
-    private class NextBag{
-      Bag bag;
-      int start;
-      NextBag(Bag b,int s){
-        bag = b;
-        start = s;
-      }
-    }
-
-  public CutDecomposer(Bag whole){
-    this.whole = whole;
-  }
-
-  public void decompose(){
-    decompose(DEFAULTMAXSTEP);
-  }
-
-  public boolean decompose(long timeMS){
-    abort = false;
-    count = 0;
-    if(whole.graph.n > ONET){
-      return true;
-    }
-
-    decomposeWithOneCuts();
-    if(getTimeMS() > timeMS){
-      whole.flatten();
-      whole.setWidth();
-      abort = true;
-      return false;
-    }
-    whole.flatten();
-
-    if(whole.graph.n <=  LN){
-      decomposeWithTwoCuts();
-      if(getTimeMS() > timeMS){
-        whole.flatten();
-        whole.setWidth();
-        abort = true;
-        return false;
-      }
-    }
-    else if(whole.graph.n <= HN  && whole.graph.numberOfEdges() <= HM){
-      if(!decomposeWithSmallCuts(2,timeMS)){
-        whole.flatten();
-        whole.setWidth();
-        abort = true;
-        return false;
-      }
-    }
-
-    if(whole.graph.n <= 30000){
-      whole.flatten();
-      if(!decomposeWithSmallCuts(3,timeMS)){
-        whole.flatten();
-        whole.setWidth();
-        abort = true;
-        return false;
-      }
-    }
-    if(whole.graph.n <= 20000){
-      whole.flatten();
-      if(!decomposeWithSmallCuts(4,timeMS)){
-        whole.flatten();
-        whole.setWidth();
-        abort = true;
-        return false;
-      }
-    }
-
-
-    whole.flatten();
-    whole.setWidth();
-
-    return true;
-  }
-
-  private static void comment(String comment){
-    System.out.println("c " + comment);
-  }
-
-  private void decomposeWithOneCuts(){
-    VertexSet articulationSet = new VertexSet();
-    ArrayList< VertexSet > bcc =
-      whole.graph.getBiconnectedComponents(articulationSet);
-
-    count += (whole.graph.n + whole.graph.numberOfEdges());
-
-    if(articulationSet.isEmpty()){
-      return;
-    }
-
-    if(DEBUG){
-      comment("detected 1-cuts");
-    }
-
-    whole.initializeForDecomposition();
-
-    for(int a = articulationSet.nextSetBit(0);
-      a >= 0; a = articulationSet.nextSetBit(a + 1)){
-      count++;
-      Separator s = whole.addSeparator(new VertexSet(new int[]{a}));
-      s.safe = true;
-    }
-
-    for(VertexSet bc : bcc){
-      count++;
-      whole.addNestedBag(bc);
-    }
-
-    for(Separator s : whole.separators){
-      for(Bag b : whole.nestedBags){
-        count++;
-        if(s.vertexSet.isSubset(b.vertexSet)){
-          b.addIncidentSeparator(s);
-          s.addIncidentBag(b);
-        }
-      }
-    }
-
-    if(DEBUG){
-      comment("decomposes with 1-cuts");
-      comment("1-cutsSize:" + articulationSet.cardinality());
-    }
-
-    return;
-  }
-
-  private boolean decomposeWithSmallCuts(int c,long timeMS){
-    if(whole.nestedBags != null && !whole.nestedBags.isEmpty()){
-      for(Bag nb : whole.nestedBags){
-        if(!decomposeWithSmallCuts(nb,c,timeMS)){
-          return false;
-        }
-      }
-    }
-    else{
-      if(!decomposeWithSmallCuts(whole,c,timeMS)){
-        return false;
-      }
-    }
-    if(DEBUG){
-      comment("decompose with small-cuts");
-    }
-    return true;
-  }
-
-  private boolean decomposeWithSmallCuts(Bag bag,int c,long timeMS){
-    if(bag != whole){
-      bag.makeLocalGraph();
-      count += bag.graph.n * (Math.log(bag.graph.n)+1) + bag.graph.numberOfEdges() * 1.2;
-    }
-    Graph lg = bag.graph;
-
-    cu = c;
-    compSize = 6+cu;
-
-    NextBag nb = new NextBag(bag,0);
-
-    while(true){
-      nb = decomposeWithSmallCuts(nb.bag,nb.start,lg.n);
-      if(getTimeMS() > timeMS){
-        return false;
-      }
-      if (nb == null){
-        return true;
-      }
-      nb.bag.makeLocalGraph();
-      lg = nb.bag.graph;
-      count += nb.bag.graph.n * (Math.log(nb.bag.graph.n)+1) + nb.bag.graph.numberOfEdges() * 1.2;
-
-      compSize = 6+cu;
-    }
-  }
-
-  private NextBag decomposeWithSmallCuts(Bag bag,int start,int end){
-    for(int i=start;i<end;i++){
-      count++;
-      now = i;
-      VertexSet v = new VertexSet(new int[]{i});
-      VertexSet left = bag.graph.neighborSet(v);
-      count += Math.log(bag.graph.n);
-      CutDivide cd = decomposeWithSmallCuts(bag,v,new VertexSet(),left);
-      if(cd != null){
-        Bag nest1 = bag.addNestedBag(cd.c1);
-        nest1.addIncidentSeparator(cd.sep);
-        cd.sep.addIncidentBag(nest1);
-
-        Bag nest2 = bag.addNestedBag(cd.c2);
-        nest2.addIncidentSeparator(cd.sep);
-        cd.sep.addIncidentBag(nest2);
-
-        return new NextBag(nest2,start);
-      }
-      else{
-        start++;
-      }
-    }
-    return null;
-  }
-
-  private CutDivide decomposeWithSmallCuts(Bag bag,VertexSet comp,VertexSet cand,VertexSet left){
-    int addSize = comp.cardinality() + left.cardinality();
-    int candSize = cand.cardinality();
-    count += addSize + candSize;
-    if(addSize > compSize || bag.graph.n <= (addSize + candSize)){
-      return null;
-    }
-    if(left.isEmpty()){
-      bag.initializeForDecomposition();
-      Separator sep = bag.addSeparator(cand);
-      sep.figureOutSafetyBySPT();
-      count += sep.getSteps() + bag.graph.n / 15;
-      if(sep.safe){
-        count += bag.graph.n;
-        VertexSet big = bag.graph.all.clone();
-        big.andNot(comp);
-        comp.or(cand);
-        return new CutDivide(sep,comp,big);
-      }
-      else{
-        if(bag == whole){
-          bag.nestedBags.clear();
-          bag.separators.remove(sep);
-        }
-        else{
-          bag.nestedBags = null;
-          bag.separators = null;
-        }
-      }
-      return null;
-    }
-
-    int next = left.nextSetBit(0);
-    if(next == -1){
-      return null;
-    }
-    if(candSize < cu){
-      count++;
-      cand.set(next);
-      left.clear(next);
-      CutDivide cd = decomposeWithSmallCuts(bag,comp,cand,left);
-      if(cd != null){
-        return cd;
-      }
-      cand.clear(next);
-      left.set(next);
-    }
-    if(next < now){
-      return null;
-    }
-
-    count++;
-    comp.set(next);
-    left = bag.graph.neighborSet(comp);
-    left = left.subtract(cand);
-    count += (bag.graph.n / (Math.log(bag.graph.n)+1));
-    CutDivide cd = decomposeWithSmallCuts(bag,comp,cand,left);
-    if(cd != null){
-      return cd;
-    }
-    return null;
-  }
-
-  private void decomposeWithTwoCuts(){
-    if(whole.nestedBags != null && !whole.nestedBags.isEmpty()){
-      for(Bag nb : whole.nestedBags){
-        nb.makeLocalGraph();
-        count += nb.graph.n;
-        decomposeWithTwoCuts(nb);
-      }
-    }
-    else{
-      decomposeWithTwoCuts(whole);
-    }
-    if(DEBUG){
-      comment("decomposed with 2-cuts");
-    }
-  }
-
-  private void decomposeWithTwoCuts(Bag parent){
-    ArrayList<VertexSet> art = new ArrayList<VertexSet>();
-    Graph lg = parent.graph;
-    if(lg.n <= 1){
-      return;
-    }
-//    count += lg.n * Math.log(lg.n) + lg.numberOfEdges();
-    count += lg.n * lg.n / Math.log(lg.n) + lg.numberOfEdges();
-    for(int i=0;i<lg.n;i++){
-      count++;
-      VertexSet vs = new VertexSet(lg.n);
-      vs.set(i);
-      BitSet almostAll = new BitSet(lg.n);
-      almostAll.set(0,lg.n);
-      almostAll.clear(i);
-      VertexSet twoArt = lg.articulations(almostAll);
-//      count += lg.n + lg.numberOfEdges();
-      for(int j=twoArt.nextSetBit(i+1);j!=-1;j=twoArt.nextSetBit(j+1)){
-        count++;
-        VertexSet twoVs = vs.clone();
-        twoVs.set(j);
-        art.add(twoVs);
-      }
-    }
-
-    if(art.size() == 0){
-      parent.validate();
-      return;
-    }
-
-    if(DEBUG){
-      comment("detected 2-cuts");
-    }
-
-    parent.initializeForDecomposition();
-
-    VertexSet sep = art.get(0);
-    ArrayList<VertexSet> comp = lg.getComponents(sep);
-    Separator s = parent.addSeparator(sep);
-    s.safe = true;
-    count += lg.n;
-
-    art.remove(0);
-
-    for(VertexSet ver:comp){
-      ver.or(sep);
-      Bag b = parent.addNestedBag(ver);
-      b.initializeForDecomposition();
-      b.addIncidentSeparator(s);
-      s.addIncidentBag(b);
-      b.makeLocalGraph();
-
-      ArrayList<VertexSet> nextart = new ArrayList<VertexSet>();
-      for(VertexSet oldart:art){
-        count++;
-        if(oldart.isSubset(ver)){
-          count++;
-          VertexSet na = new VertexSet();
-          for(int i=oldart.nextSetBit(0);i!=-1;i=oldart.nextSetBit(i+1)){
-            na.set(b.conv[i]);
-          }
-          nextart.add(na);
-        }
-      }
-      decomposeWithTwoCuts(b,nextart);
-    }
-  }
-
-  private void decomposeWithTwoCuts(Bag parent,ArrayList<VertexSet> art){
-    if(art.size() == 0){
-      count++;
-      if(DEBUG){
-        parent.validate();
-      }
-      parent.nestedBags = null;
-      parent.separators = null;
-      return;
-    }
-
-    VertexSet sep = art.get(0);
-    ArrayList<VertexSet> comp = parent.graph.getComponents(sep);
-    count += parent.graph.n;
-    Separator s = parent.addSeparator(sep);
-    s.safe = true;
-
-    art.remove(0);
-
-    for(VertexSet ver:comp){
-      ver.or(sep);;
-      Bag b = parent.addNestedBag(ver);
-      b.initializeForDecomposition();
-      b.addIncidentSeparator(s);
-      s.addIncidentBag(b);
-      b.makeLocalGraph();
-//      count += Math.log(parent.graph.n);
-      ArrayList<VertexSet> nextart = new ArrayList<VertexSet>();
-      for(VertexSet oldart:art){
-        count++;
-        if(oldart.isSubset(ver)){
-          count++;
-          VertexSet na = new VertexSet();
-          for(int i=oldart.nextSetBit(0);i!=-1;i=oldart.nextSetBit(i+1)){
-            na.set(b.conv[i]);
-          }
-          nextart.add(na);
-        }
-      }
-      decomposeWithTwoCuts(b,nextart);
-    }
-  }
-
-  public long getTimeMS(){
-    return count/1000;
-  }
-
-  public boolean isAborted(){
-    return abort;
-  }
-
-  public static void main(String[] args){
-
-  }
-}
+/*
+ * Copyright (c) 2017, Keitaro Makii and Hiromu Ohtsuka
+*/
+
+package tw.heuristic;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CutDecomposer{
+  public static final int STEP = 1000;
+  public static final long DEFAULTMAXSTEP = 500000;
+  private long count;
+  private boolean abort;
+  private int parallelism = 1;
+  private Bag whole;
+
+  private static final boolean DEBUG = false;
+
+  private static class CutDivide{
+    VertexSet sep;
+    VertexSet c1,c2;
+    CutDivide(VertexSet s,VertexSet a,VertexSet b){
+      sep = s;
+      c1 = a;
+      c2 = b;
+    }
+  }
+    private class NextBag{
+      Bag bag;
+      int start;
+      NextBag(Bag b,int s){
+        bag = b;
+        start = s;
+      }
+    }
+
+  /*
+   * search for a safe separator of at most cu vertices cutting off
+   * a small connected set whose smallest vertex is now; all the
+   * state of the search is its own, so searches from different
+   * start vertices may run concurrently, each on its own copy
+   * of the graph
+   */
+  private static class SmallCutSearch{
+    Graph graph;
+    int now;
+    int cu;
+    int compSize;
+    long steps;
+    AtomicInteger found;
+    CutDivide result;
+
+    SmallCutSearch(Graph graph,int now,int cu,AtomicInteger found){
+      this.graph = graph;
+      this.now = now;
+      this.cu = cu;
+      this.compSize = 6 + cu;
+      this.found = found;
+    }
+
+    SmallCutSearch run(){
+      steps++;
+      VertexSet v = new VertexSet(new int[]{now});
+      VertexSet left = graph.neighborSet(v);
+      steps += Math.log(graph.n);
+      result = search(v,new VertexSet(),left);
+      if(result != null && found != null){
+        found.accumulateAndGet(now,Math::min);
+      }
+      return this;
+    }
+
+    private CutDivide search(VertexSet comp,VertexSet cand,VertexSet left){
+      if(found != null && found.get() < now){
+        return null;
+      }
+      int addSize = comp.cardinality() + left.cardinality();
+      int candSize = cand.cardinality();
+      steps += addSize + candSize;
+      if(addSize > compSize || graph.n <= (addSize + candSize)){
+        return null;
+      }
+      if(left.isEmpty()){
+        SafeSeparator ss = new SafeSeparator(graph);
+        int safeSteps = ss.decideSafeness(cand);
+        steps += Math.abs(safeSteps) + graph.n / 15;
+        if(safeSteps > 0){
+          steps += graph.n;
+          VertexSet big = graph.all.clone();
+          big.andNot(comp);
+          comp.or(cand);
+          return new CutDivide(cand,comp,big);
+        }
+        return null;
+      }
+
+      int next = left.nextSetBit(0);
+      if(next == -1){
+        return null;
+      }
+      if(candSize < cu){
+        steps++;
+        cand.set(next);
+        left.clear(next);
+        CutDivide cd = search(comp,cand,left);
+        if(cd != null){
+          return cd;
+        }
+        cand.clear(next);
+        left.set(next);
+      }
+      if(next < now){
+        return null;
+      }
+
+      steps++;
+      comp.set(next);
+      left = graph.neighborSet(comp);
+      left = left.subtract(cand);
+      steps += (graph.n / (Math.log(graph.n)+1));
+      return search(comp,cand,left);
+    }
+  }
+
+  public CutDecomposer(Bag whole){
+    this.whole = whole;
+  }
+
+  /**
+   * Sets the number of threads searching for small cuts from
+   * different start vertices; 1, the default, searches sequentially
+   * @param parallelism the number of threads
+   */
+  public void setParallelism(int parallelism){
+    this.parallelism = Math.max(1,parallelism);
+  }
+
+  public void decompose(){
+    decompose(DEFAULTMAXSTEP);
+  }
+
+  public boolean decompose(long timeMS){
+    abort = false;
+    count = 0;
+
+    decomposeWithOneCuts();
+    if(getTimeMS() > timeMS){
+      whole.flatten();
+      whole.setWidth();
+      abort = true;
+      return false;
+    }
+    whole.flatten();
+
+    decomposeWithTwoCuts();
+    if(getTimeMS() > timeMS){
+      whole.flatten();
+      whole.setWidth();
+      abort = true;
+      return false;
+    }
+
+    if(whole.graph.n <= 30000){
+      whole.flatten();
+      if(!decomposeWithSmallCuts(3,timeMS)){
+        whole.flatten();
+        whole.setWidth();
+        abort = true;
+        return false;
+      }
+    }
+    if(whole.graph.n <= 20000){
+      whole.flatten();
+      if(!decomposeWithSmallCuts(4,timeMS)){
+        whole.flatten();
+        whole.setWidth();
+        abort = true;
+        return false;
+      }
+    }
+
+
+    whole.flatten();
+    whole.setWidth();
+
+    return true;
+  }
+
+  private static void comment(String comment){
+    System.out.println("c " + comment);
+  }
+
+  private void decomposeWithOneCuts(){
+    BlockCutTree bct = whole.graph.getBlockCutTree();
+    VertexSet articulationSet = bct.articulations;
+
+    count += (whole.graph.n + whole.graph.numberOfEdges());
+
+    if(articulationSet.isEmpty()){
+      return;
+    }
+
+    if(DEBUG){
+      comment("detected 1-cuts");
+    }
+
+    whole.initializeForDecomposition();
+
+    Separator[] separatorAt = new Separator[whole.graph.n];
+    for(int a = articulationSet.nextSetBit(0);
+      a >= 0; a = articulationSet.nextSetBit(a + 1)){
+      count++;
+      Separator s = whole.addSeparator(new VertexSet(new int[]{a}));
+      s.safe = true;
+      separatorAt[a] = s;
+    }
+
+    for(int i=0;i<bct.blocks.size();i++){
+      count++;
+      Bag b = whole.addNestedBag(bct.blocks.get(i));
+      for(int a : bct.cutVertices[i]){
+        count++;
+        Separator s = separatorAt[a];
+        b.addIncidentSeparator(s);
+        s.addIncidentBag(b);
+      }
+    }
+
+    if(DEBUG){
+      comment("decomposes with 1-cuts");
+      comment("1-cutsSize:" + articulationSet.cardinality());
+    }
+
+    return;
+  }
+
+  private boolean decomposeWithSmallCuts(int c,long timeMS){
+    ExecutorService executor = null;
+    if(parallelism > 1){
+      executor = Executors.newFixedThreadPool(parallelism,r -> {
+        Thread t = new Thread(r,"small-cuts");
+        t.setDaemon(true);
+        return t;
+      });
+    }
+    try{
+      if(whole.nestedBags != null && !whole.nestedBags.isEmpty()){
+        for(Bag nb : whole.nestedBags){
+          if(!decomposeWithSmallCuts(nb,c,timeMS,executor)){
+            return false;
+          }
+        }
+      }
+      else{
+        if(!decomposeWithSmallCuts(whole,c,timeMS,executor)){
+          return false;
+        }
+      }
+    }
+    finally{
+      if(executor != null){
+        executor.shutdownNow();
+      }
+    }
+    if(DEBUG){
+      comment("decompose with small-cuts");
+    }
+    return true;
+  }
+
+  private boolean decomposeWithSmallCuts(Bag bag,int c,long timeMS,
+    ExecutorService executor){
+    if(bag != whole){
+      bag.makeLocalGraph();
+      count += bag.graph.n * (Math.log(bag.graph.n)+1) + bag.graph.numberOfEdges() * 1.2;
+    }
+    Graph lg = bag.graph;
+
+    NextBag nb = new NextBag(bag,0);
+
+    while(true){
+      nb = decomposeWithSmallCuts(nb.bag,nb.start,lg.n,c,executor);
+      if(getTimeMS() > timeMS){
+        return false;
+      }
+      if (nb == null){
+        return true;
+      }
+      nb.bag.makeLocalGraph();
+      lg = nb.bag.graph;
+      count += nb.bag.graph.n * (Math.log(nb.bag.graph.n)+1) + nb.bag.graph.numberOfEdges() * 1.2;
+    }
+  }
+
+  private NextBag decomposeWithSmallCuts(Bag bag,int start,int end,int c,
+    ExecutorService executor){
+    for(int i=start;i<end;i++){
+      SmallCutSearch search = executor == null ?
+        new SmallCutSearch(bag.graph,i,c,null).run() :
+        searchInParallel(bag.graph,i,end,c,executor);
+      i = search.now;
+      count += search.steps;
+      CutDivide cd = search.result;
+      if(cd != null){
+        bag.initializeForDecomposition();
+        Separator sep = bag.addSeparator(cd.sep);
+        sep.safe = true;
+
+        Bag nest1 = bag.addNestedBag(cd.c1);
+        nest1.addIncidentSeparator(sep);
+        sep.addIncidentBag(nest1);
+
+        Bag nest2 = bag.addNestedBag(cd.c2);
+        nest2.addIncidentSeparator(sep);
+        sep.addIncidentBag(nest2);
+
+        return new NextBag(nest2,i);
+      }
+    }
+    return null;
+  }
+
+  /*
+   * runs the searches from the start vertices start, start + 1, ...
+   * on the executor, each on a copy of the graph owned by its
+   * thread, and returns the search from the smallest start vertex
+   * that finds a cut, or the last search if none does, with the
+   * steps of all the searches from the smaller start vertices added,
+   * so that the cut and the step count are the same as in the
+   * sequential search
+   */
+  private SmallCutSearch searchInParallel(Graph g,int start,int end,int c,
+    ExecutorService executor){
+    ThreadLocal<Graph> copies = ThreadLocal.withInitial(g::copy);
+    AtomicInteger found = new AtomicInteger(end);
+    ArrayDeque<Future<SmallCutSearch>> window = new ArrayDeque<>();
+    int windowSize = 4 * parallelism;
+    int next = start;
+    long steps = 0;
+    try{
+      SmallCutSearch search = null;
+      for(int i=start;i<end;i++){
+        while(next < end && next - i < windowSize){
+          int now = next++;
+          window.add(executor.submit(() ->
+              new SmallCutSearch(copies.get(),now,c,found).run()));
+        }
+        search = window.poll().get();
+        steps += search.steps;
+        if(search.result != null){
+          break;
+        }
+      }
+      search.steps = steps;
+      return search;
+    }
+    catch(InterruptedException | ExecutionException e){
+      throw new RuntimeException(e);
+    }
+    finally{
+      found.set(-1);
+      for(Future<SmallCutSearch> f : window){
+        f.cancel(false);
+      }
+    }
+  }
+
+  /*
+   * decomposes each block, or the whole graph if it is biconnected,
+   * along its separation pairs; the pieces of a block are nested
+   * directly in the whole bag and the 1-cut separators incident to
+   * the block are moved to the pieces containing their vertices
+   */
+  private void decomposeWithTwoCuts(){
+    if(whole.nestedBags != null && !whole.nestedBags.isEmpty()){
+      ArrayList<Bag> blocks = whole.nestedBags;
+      whole.nestedBags = new ArrayList<>();
+      Set<Bag> decomposed = new HashSet<>();
+      int[] conv = new int[whole.graph.n];
+      Arrays.fill(conv,-1);
+      for(Bag block : blocks){
+        if(block.size <= 3){
+          whole.nestedBags.add(block);
+          continue;
+        }
+        int[] inv = block.vertexSet.toArray();
+        for(int i=0;i<inv.length;i++){
+          conv[inv[i]] = i;
+        }
+        Graph lg = new Graph(inv.length);
+        lg.inheritEdges(whole.graph,conv,inv);
+        for(int v : inv){
+          conv[v] = -1;
+        }
+        count += lg.n;
+
+        Bag[] pieceAt = new Bag[lg.n];
+        if(!decomposeWithTwoCuts(lg,inv,pieceAt)){
+          whole.nestedBags.add(block);
+          continue;
+        }
+        decomposed.add(block);
+        for(Separator s : block.incidentSeparators){
+          count++;
+          int a = s.vertexSet.nextSetBit(0);
+          Bag piece = pieceAt[Arrays.binarySearch(inv,a)];
+          piece.addIncidentSeparator(s);
+          s.addIncidentBag(piece);
+        }
+      }
+      if(!decomposed.isEmpty()){
+        for(Separator s : whole.separators){
+          s.incidentBags.removeIf(decomposed::contains);
+        }
+      }
+    }
+    else{
+      decomposeWithTwoCuts(whole.graph,null,null);
+    }
+    whole.validate();
+    if(DEBUG){
+      comment("decomposed with 2-cuts");
+    }
+  }
+
+  /*
+   * decomposes the biconnected graph along the separation pairs
+   * given by its SPQR tree: a nested bag of the whole bag for each
+   * triconnected component and for each triangle of a fan
+   * triangulation of each polygon, with a safe separator for each
+   * virtual edge, shared by all the bags incident to a bond.
+   * The vertices of the graph are mapped to those of the whole
+   * graph by inv, or identically if inv is null, and pieceAt, if
+   * given, is filled with a bag containing each vertex.
+   * Returns false, leaving the whole bag untouched, if the graph
+   * has no separation pair
+   */
+  private boolean decomposeWithTwoCuts(Graph lg,int[] inv,Bag[] pieceAt){
+    if(lg.n <= 3){
+      return false;
+    }
+    TriconnectedComponents tc = new TriconnectedComponents(lg);
+    count += lg.n + lg.numberOfEdges();
+
+    if(tc.virtualEdges.isEmpty() && (tc.components.isEmpty() ||
+      tc.components.get(0).type != TriconnectedComponents.POLYGON ||
+      tc.components.get(0).vertices.length <= 3)){
+      return false;
+    }
+
+    if(DEBUG){
+      comment("detected 2-cuts");
+    }
+
+    if(inv == null){
+      whole.initializeForDecomposition();
+    }
+
+    Map<TriconnectedComponents.VirtualEdge, Bag[]> incident =
+      new HashMap<>();
+    int[] position = new int[lg.n];
+    for(TriconnectedComponents.Component c : tc.components){
+      if(c.type == TriconnectedComponents.BOND){
+        continue;
+      }
+      count += c.vertices.length;
+      if(c.type == TriconnectedComponents.TRICONNECTED){
+        Bag b = whole.addNestedBag(
+            new VertexSet(whole.graph.n,map(c.vertices,inv)));
+        setPiece(pieceAt,c.vertices,b);
+        for(TriconnectedComponents.VirtualEdge ve : c.virtualEdges){
+          setIncidentBag(incident,ve,c,b);
+        }
+        continue;
+      }
+
+      int[] cycle = c.vertices;
+      int k = cycle.length;
+      Bag[] triangles = new Bag[k - 1];
+      for(int i=1;i<=k-2;i++){
+        int[] triangle = new int[]{cycle[0],cycle[i],cycle[i + 1]};
+        triangles[i] = whole.addNestedBag(
+            new VertexSet(map(triangle,inv)));
+        setPiece(pieceAt,triangle,triangles[i]);
+        if(i >= 2){
+          addSafeSeparator(map(new int[]{cycle[0],cycle[i]},inv),
+              triangles[i - 1],triangles[i]);
+        }
+      }
+      for(int i=0;i<k;i++){
+        position[cycle[i]] = i;
+      }
+      for(TriconnectedComponents.VirtualEdge ve : c.virtualEdges){
+        int p = Math.min(position[ve.u],position[ve.v]);
+        int q = Math.max(position[ve.u],position[ve.v]);
+        Bag b = (p == 0 && q == k - 1) ?
+          triangles[k - 2] : triangles[Math.max(p,1)];
+        setIncidentBag(incident,ve,c,b);
+      }
+    }
+
+    for(TriconnectedComponents.VirtualEdge ve : tc.virtualEdges){
+      if(ve.c1.type != TriconnectedComponents.BOND &&
+        ve.c2.type != TriconnectedComponents.BOND){
+        Bag[] bags = incident.get(ve);
+        addSafeSeparator(map(new int[]{ve.u,ve.v},inv),bags[0],bags[1]);
+      }
+    }
+    for(TriconnectedComponents.Component c : tc.components){
+      if(c.type == TriconnectedComponents.BOND){
+        Bag[] bags = new Bag[c.virtualEdges.size()];
+        for(int i=0;i<bags.length;i++){
+          TriconnectedComponents.VirtualEdge ve = c.virtualEdges.get(i);
+          bags[i] = incident.get(ve)[ve.c1 == c ? 1 : 0];
+        }
+        addSafeSeparator(map(c.vertices,inv),bags);
+      }
+    }
+    count += tc.virtualEdges.size();
+
+    return true;
+  }
+
+  private static int[] map(int[] vertices,int[] inv){
+    if(inv == null){
+      return vertices;
+    }
+    int[] result = new int[vertices.length];
+    for(int i=0;i<vertices.length;i++){
+      result[i] = inv[vertices[i]];
+    }
+    return result;
+  }
+
+  private static void setPiece(Bag[] pieceAt,int[] vertices,Bag b){
+    if(pieceAt == null){
+      return;
+    }
+    for(int v : vertices){
+      if(pieceAt[v] == null){
+        pieceAt[v] = b;
+      }
+    }
+  }
+
+  private static void setIncidentBag(
+    Map<TriconnectedComponents.VirtualEdge, Bag[]> incident,
+    TriconnectedComponents.VirtualEdge ve,
+    TriconnectedComponents.Component c,Bag b){
+    Bag[] bags = incident.get(ve);
+    if(bags == null){
+      bags = new Bag[2];
+      incident.put(ve,bags);
+    }
+    bags[ve.c1 == c ? 0 : 1] = b;
+  }
+
+  private void addSafeSeparator(int[] vertices,Bag... bags){
+    Separator s = whole.addSeparator(new VertexSet(vertices));
+    s.safe = true;
+    for(Bag b : bags){
+      b.addIncidentSeparator(s);
+      s.addIncidentBag(b);
+    }
+  }
+
+  public long getTimeMS(){
+    return count/1000;
+  }
+
+  public boolean isAborted(){
+    return abort;
+  }
+
+  public static void main(String[] args){
+
+  }
+}
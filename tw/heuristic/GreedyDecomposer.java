@@ -15,14 +15,26 @@ import java.util.Comparator;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.Queue;
+import java.util.Random;
 import java.util.Set;
-import java.util.TreeSet;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.List;
 
 public class GreedyDecomposer {
+	/*
+	 * fill: the fewest fill edges, evaluated exactly on small graphs
+	 * and lazily on larger ones; defect: the fewest fill edges, that
+	 * is the defect of the neighborhood, always kept exactly; degree:
+	 * the minimum degree of MinDegreeDecomposer. Graphs of more than
+	 * GRAPH_EDGE_SIZE edges are eliminated by the minimum degree in
+	 * any mode.
+	 */
+	public static enum Mode {
+		fill, degree, defect
+	}
+
 	//  static final boolean VERBOSE = true;
 	private static final boolean VERBOSE = false;
 	private static boolean DEBUG = false;
@@ -35,14 +47,32 @@ public class GreedyDecomposer {
 
 	Bag whole;
 
+	Mode mode;
+
+	Random random;
+
 	Map<Integer, Set<Separator>> frontier;
 
 	VertexSet remaining;
 
-	TreeSet<Pair> minCostSet;
+	VertexHeap minCostHeap;
+
+	/*
+	 * the adjacency of the filled graph in the min-fill modes:
+	 * adjacency[v][0], ..., adjacency[v][adjacencySize[v] - 1]
+	 * are the neighbors of v, among which the eliminated vertices
+	 * are dropped when the row is next scanned
+	 */
+	int[][] adjacency;
+	int[] adjacencySize;
 
-	Edge[] edges;
-	int[] oldFill;
+	/* the remaining vertices and a scratch set, as words */
+	long[] alive;
+	long[] mark;
+
+	/* the fill counts, maintained incrementally in the exact mode */
+	int[] fill;
+	boolean addFill;
 
 	boolean modeMinDegree;
 	boolean modeExact;
@@ -54,8 +84,20 @@ public class GreedyDecomposer {
   static final long STEPS_PER_MS = 1;
 
 	public GreedyDecomposer(Bag whole) {
+		this(whole, Mode.fill, null);
+	}
+
+	/**
+	 * @param whole the bag to be decomposed
+	 * @param mode the criterion of the vertex to be eliminated
+	 * @param random the source of the random tie-breaks, or
+	 * {@code null} for the ties to be broken by the vertex numbers
+	 */
+	public GreedyDecomposer(Bag whole, Mode mode, Random random) {
 		this.whole = whole;
-		this.g = whole.graph.copy();
+		this.g = whole.graph;
+		this.mode = mode;
+		this.random = random;
 	}
 
 	public void decompose() {
@@ -95,10 +137,10 @@ public class GreedyDecomposer {
 		}
 		sum /= 2;
 
-		if(sum <= GRAPH_EDGE_SIZE) {
+		if(sum <= GRAPH_EDGE_SIZE && mode != Mode.degree) {
 			modeMinDegree = false;
 			//if(g.n <= GRAPH_VERTEX_SIZE) {
-			if(sum <= GRAPH_VERTEX_SIZE) {
+			if(sum <= GRAPH_VERTEX_SIZE || mode == Mode.defect) {
 				modeExact = true;
 			}
 			else {
@@ -133,29 +175,44 @@ public class GreedyDecomposer {
 
 		remaining = (VertexSet) g.all.clone();
 
-		minCostSet = new TreeSet<>();
+		alive = new long[(g.n + 63) / 64];
+		for(int v = 0; v < g.n; v++) {
+			alive[v >>> 6] |= 1L << v;
+		}
+		mark = new long[alive.length];
+
+		adjacency = new int[g.n][];
+		adjacencySize = new int[g.n];
+		for(int v = 0; v < g.n; v++) {
+			int d = g.degree[v];
+			adjacency[v] = new int[Math.max(d, 4)];
+			System.arraycopy(g.targets, g.offsets[v], adjacency[v], 0, d);
+			adjacencySize[v] = d;
+		}
+
+		minCostHeap = new VertexHeap(g.n, random);
 
 		if(modeExact) {
-			oldFill = new int[g.n];
+			fill = new int[g.n];
 		}
 
 		for(int v = 0; v < g.n; v++) {
-			int cost = 0;
-			if(modeMinDegree) {
-				cost = g.degree[v];
-			}
-			else {
-				cost = costOf(v);
-			}
-			Pair p = new Pair(v, cost);
-			minCostSet.add(p);
+			int cost = costOf(v);
+			minCostHeap.add(v, cost);
 			if(modeExact) {
-				oldFill[v] = cost;
+				fill[v] = cost;
 			}
 		}
 	}
 
 	private void mainDecompose() {
+		if(modeMinDegree) {
+			MinDegreeDecomposer mdd = new MinDegreeDecomposer(whole, random);
+			abort = !mdd.decompose(timeOn ? timeLimit : Long.MAX_VALUE);
+			step += mdd.getSteps();
+			return;
+		}
+
 		initialize();
 
 		while (!remaining.isEmpty()) {
@@ -166,24 +223,23 @@ public class GreedyDecomposer {
 
 			int vmin;
 			if(modeExact) {
-				Pair p = minCostSet.first();
-				minCostSet.remove(p);
-				vmin = p.v;
-				int cost = fillCount(vmin);
+				vmin = minCostHeap.poll();
+				addFill = true;
 			}
 			else {
 				vmin = delayProcess();
 			}
 
+			int[] neighbors = remainingNeighbors(vmin);
+
 			Set<Separator> vminInSeparators = frontier.get(vmin);
 			if(vminInSeparators.size() == 1) {
-				VertexSet neighborSet = g.neighborSet[vmin].intersectWith(remaining);
 				Separator	uniqueSeparator = null;
 				for(Separator s : vminInSeparators) {
 					uniqueSeparator = s;
 				}
 
-				if(neighborSet.isSubset(uniqueSeparator.vertexSet)) {
+				if(isSubset(neighbors, uniqueSeparator.vertexSet)) {
 					uniqueSeparator.removeVertex(vmin);
 					if(uniqueSeparator.vertexSet.isEmpty()) {
 						whole.separators.remove(uniqueSeparator);
@@ -191,38 +247,17 @@ public class GreedyDecomposer {
 							b.incidentSeparators.remove(uniqueSeparator);
 						}
 					}
-					remaining.clear(vmin);
-
-					if(!modeMinDegree && modeExact) {
-						VertexSet vs = g.neighborSet[vmin].intersectWith(remaining);
-						VertexSet updateSet = g.closedNeighborSet(vs);
-						updateSet.and(remaining);
-						updateProcess(updateSet);
-					}
+					eliminate(vmin, neighbors);
 					continue;
 				}
 			}
 
-			VertexSet toBeAClique = new VertexSet(g.n);
-			toBeAClique.set(vmin);
-			toBeAClique.or(g.neighborSet[vmin].intersectWith(remaining));
+			int[] clique = Arrays.copyOf(neighbors, neighbors.length + 1);
+			clique[neighbors.length] = vmin;
+			VertexSet toBeAClique = new VertexSet(g.n, clique);
 			Bag bag = whole.addNestedBag(toBeAClique);
 
-			VertexSet sep = toBeAClique.subtract(new VertexSet(new int[]{vmin}));
-
-			if(modeMinDegree) {
-				for(int v = sep.nextSetBit(0); v >= 0; v = sep.nextSetBit(v + 1)) {
-					g.neighborSet[v].or(sep);
-					g.neighborSet[v].clear(v);
-				}
-			}
-			else {
-				if(edges != null) {
-					for(Edge e : edges) {
-						g.addEdge(e.v, e.w);
-					}
-				}
-			}
+			VertexSet sep = new VertexSet(g.n, neighbors);
 
 			if (!sep.isEmpty()) {
 				Separator separator = whole.addSeparator(sep);
@@ -247,146 +282,195 @@ public class GreedyDecomposer {
 			}
 			frontier.remove(vmin, vminInSeparators);
 
-			remaining.clear(vmin);
-
-			if(!modeMinDegree && modeExact) {
-				VertexSet vs = g.neighborSet[vmin].intersectWith(remaining);
-				VertexSet updateSet = g.closedNeighborSet(vs);
-				updateSet.and(remaining);
-				updateProcess(updateSet);
+			eliminate(vmin, neighbors);
+			if(addFill) {
+				addFillEdges(neighbors);
 			}
 		}
 
 		whole.setWidth();
 	}
 
-	private void updateProcess(VertexSet updateSet) {
-		for(int v = updateSet.nextSetBit(0); v >= 0; v = updateSet.nextSetBit(v + 1)) {
-			int fill = fillCount(v);
-
-			Pair old = new Pair(v, oldFill[v]);
-			Pair update = new Pair(v, fill);
+	/*
+	 * the remaining neighbors of v, in increasing order
+	 */
+	private int[] remainingNeighbors(int v) {
+		compact(v);
+		int[] result = Arrays.copyOf(adjacency[v], adjacencySize[v]);
+		Arrays.sort(result);
+		return result;
+	}
 
-			minCostSet.remove(old);
-			minCostSet.add(update);
-			oldFill[v] = fill;
+	private static boolean isSubset(int[] vertices, VertexSet set) {
+		for(int v : vertices) {
+			if(!set.get(v)) {
+				return false;
+			}
 		}
+		return true;
 	}
 
-	private int delayProcess() {
-		Pair p = minCostSet.first();
-		for(;;) {
-			if(p.cost == 0) {
-				minCostSet.remove(p);
-				edges = null;
-				break;
-			}
-			int cost = costOf(p.v);
-			if(cost <= p.cost) {
-				minCostSet.remove(p);
-				break;
-			}
-			else {
-				minCostSet.remove(p);
-				Pair q = new Pair(p.v, cost);
-				minCostSet.add(q);
-				p = null;
-				p = minCostSet.first();
-			}
+	private boolean isAlive(int v) {
+		return (alive[v >>> 6] & (1L << v)) != 0;
+	}
+
+	private boolean isMarked(int v) {
+		return (mark[v >>> 6] & (1L << v)) != 0;
+	}
+
+	private void setMarks(int[] vertices, int size) {
+		for(int i = 0; i < size; i++) {
+			mark[vertices[i] >>> 6] |= 1L << vertices[i];
 		}
-		return p.v;
 	}
 
-	private int costOf(int v) {
-    ++step;
-		if(modeMinDegree) {
-			return degreeOf(v);
+	private void clearMarks(int[] vertices, int size) {
+		for(int i = 0; i < size; i++) {
+			mark[vertices[i] >>> 6] &= ~(1L << vertices[i]);
 		}
-		else {
-			return fillCount(v);
+	}
+
+	/*
+	 * drops the eliminated vertices from the adjacency row of v
+	 */
+	private void compact(int v) {
+		int[] row = adjacency[v];
+		int k = 0;
+		for(int i = 0; i < adjacencySize[v]; i++) {
+			if(isAlive(row[i])) {
+				row[k++] = row[i];
+			}
 		}
+		adjacencySize[v] = k;
 	}
 
-	private int degreeOf(int v) {
-		VertexSet vs = g.neighborSet[v].intersectWith(remaining);
-		return vs.cardinality();
+	private void addAdjacency(int v, int w) {
+		if(adjacencySize[v] == adjacency[v].length) {
+			adjacency[v] = Arrays.copyOf(adjacency[v], 2 * adjacencySize[v]);
+		}
+		adjacency[v][adjacencySize[v]++] = w;
 	}
 
-	private int fillCount(int v) {
-		VertexSet vNeighborSet = remaining.intersectWith(g.neighborSet[v]);
-		ArrayList<Edge> addEdges = new ArrayList<>();
+	/*
+	 * the number of the neighbors of v in the marked set,
+	 * the row of v being compacted
+	 */
+	private int countMarkedNeighbors(int v) {
+		compact(v);
+		int[] row = adjacency[v];
 		int count = 0;
-
-		for(int w = vNeighborSet.nextSetBit(0); w >= 0; w = vNeighborSet.nextSetBit(w + 1)) {
-			VertexSet noNeighborSet = vNeighborSet.subtract(vNeighborSet.intersectWith(g.neighborSet[w]));
-			noNeighborSet.and(remaining);
-			noNeighborSet.clear(w);
-			for(int x = noNeighborSet.nextSetBit(w); x >= 0; x = noNeighborSet.nextSetBit(x + 1)) {
-				Edge e = new Edge(w, x);
-				addEdges.add(e);
+		for(int i = 0; i < adjacencySize[v]; i++) {
+			if(isMarked(row[i])) {
 				count++;
 			}
 		}
-		edges = addEdges.toArray(new Edge[0]);
 		return count;
 	}
 
-	private	class Pair implements Comparable<Pair> {
-		int v;
-		int cost;
-
-		Pair(int v, int cost) {
-			this.v = v;
-			this.cost = cost;
+	/*
+	 * removes v, whose remaining neighbors are given, from the
+	 * remaining vertices; in the exact mode, the fill count of each
+	 * neighbor u loses the pairs of v and a neighbor of u not
+	 * adjacent to v
+	 */
+	private void eliminate(int v, int[] neighbors) {
+		if(modeExact) {
+			setMarks(neighbors, neighbors.length);
+			for(int u : neighbors) {
+				int common = countMarkedNeighbors(u);
+				updateFill(u, fill[u] - (adjacencySize[u] - 1 - common));
+			}
+			clearMarks(neighbors, neighbors.length);
 		}
+		remaining.clear(v);
+		alive[v >>> 6] &= ~(1L << v);
+	}
 
-		@Override
-			public int compareTo(Pair p){
-				if(cost != p.cost){
-					return Integer.compare(cost, p.cost);
+	/*
+	 * makes the given vertices a clique; in the exact mode, adding an
+	 * edge wx takes the pair of w and x off the fill count of each
+	 * common neighbor, and adds to the fill count of w the pairs of x
+	 * and a neighbor of w not adjacent to x, and symmetrically for x
+	 */
+	private void addFillEdges(int[] vertices) {
+		for(int i = 0; i < vertices.length; i++) {
+			int w = vertices[i];
+			compact(w);
+			setMarks(adjacency[w], adjacencySize[w]);
+			for(int j = i + 1; j < vertices.length; j++) {
+				int x = vertices[j];
+				if(isMarked(x)) {
+					continue;
 				}
-				return Integer.compare(v, p.v);
-			}
-
-		@Override
-			public boolean equals(Object obj){
-				if(!(obj instanceof Pair)){
-					return false;
+				if(modeExact) {
+					compact(x);
+					int common = 0;
+					int[] row = adjacency[x];
+					for(int k = 0; k < adjacencySize[x]; k++) {
+						int y = row[k];
+						if(isMarked(y)) {
+							common++;
+							updateFill(y, fill[y] - 1);
+						}
+					}
+					updateFill(w, fill[w] + adjacencySize[w] - common);
+					updateFill(x, fill[x] + adjacencySize[x] - common);
 				}
-				Pair p = (Pair)obj;
-				return v == p.v &&
-					cost == p.cost;
-			}
-
-		@Override
-			public String toString() {
-				return "v : " + v + ", cost : " + cost;
+				addAdjacency(w, x);
+				addAdjacency(x, w);
+				mark[x >>> 6] |= 1L << x;
 			}
+			clearMarks(adjacency[w], adjacencySize[w]);
+		}
 	}
 
-	private	class Edge {
-		int v;
-		int w;
+	private void updateFill(int v, int f) {
+		fill[v] = f;
+		minCostHeap.update(v, f);
+	}
 
-		public Edge(int v, int w) {
-			this.v = v;
-			this.w = w;
+	private int delayProcess() {
+		for(;;) {
+			int v = minCostHeap.peek();
+			int c = minCostHeap.costOf(v);
+			if(c == 0) {
+				minCostHeap.poll();
+				addFill = false;
+				return v;
+			}
+			int cost = costOf(v);
+			if(cost <= c) {
+				minCostHeap.poll();
+				addFill = true;
+				return v;
+			}
+			minCostHeap.update(v, cost);
 		}
+	}
 
-		@Override
-			public boolean equals(Object obj) {
-				if(!(obj instanceof Edge)){
-					return false;
-				}
-				Edge e = (Edge) obj;
-				return (v == e.v && w == e.w) || (v == e.w && w == e.v);
-			}
+	private int costOf(int v) {
+    ++step;
+		return fillCount(v);
+	}
 
-		@Override
-			public int hashCode() {
-				int seed = 1234;
-				return seed ^ v ^ w;
-			}
+	/*
+	 * the number of the pairs of remaining neighbors of v not
+	 * adjacent to each other, which is the number of pairs minus the
+	 * number of edges among the neighbors, counted through a word
+	 * mask of the neighbors without allocation
+	 */
+	private int fillCount(int v) {
+		compact(v);
+		int[] row = adjacency[v];
+		int k = adjacencySize[v];
+		setMarks(row, k);
+		long degrees = 0;
+		for(int i = 0; i < k; i++) {
+			degrees += countMarkedNeighbors(row[i]);
+		}
+		clearMarks(row, k);
+		return (int) Math.min(Integer.MAX_VALUE,
+				(long) k * (k - 1) / 2 - degrees / 2);
 	}
 
 	private static void test() {
@@ -7,7 +7,9 @@ package tw.heuristic;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.ByteBuffer;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -19,6 +21,9 @@ import java.util.Set;
 import java.util.HashSet;
 import java.util.Random;
 import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class MainDecomposer{
   public static enum Mode{
@@ -29,14 +34,41 @@ public class MainDecomposer{
   public static final int MAX_MULTIPLICITY = 1;
   public static final long CUT_D_TIME_MS = 300000;
   public static final long DETECT_TIME_MS = 10000;
+  public static final long LOWER_BOUND_STEPS = 100000000;
 
   private static Random random;
   private static Graph wholeGraph;
-  private static TreeDecomposition best;
+  private static volatile SolutionStore store;
   private static int[][] invs;
   private static Bag[] bags;
   private static long detectSum;
   private static long startTime;
+  private static int parallelism = 1;
+
+  /*
+   * the lower bound on the width of the whole graph: the improvement
+   * stops when the width of the best decomposition meets it, and
+   * the decomposers do not try the widths below it
+   */
+  private static int lowerBound;
+
+  /*
+   * the workers generating randomized greedy decompositions while
+   * the main thread improves, and the best decomposition of each
+   * component found by them and not yet adopted
+   */
+  private static ExecutorService portfolio;
+  private static Bag[] candidates;
+
+  /*
+   * the reduction of the graph being decomposed, and the snapshot to
+   * be saved, if any, with the width and the detection time when it
+   * was last saved
+   */
+  private static Reduction reduction;
+  private static Checkpoint checkpoint;
+  private static int savedWidth;
+  private static long savedDetectSum;
 
   private static final boolean DEBUG = false;
 
@@ -50,8 +82,17 @@ public class MainDecomposer{
         }
     };
 
+  /**
+   * @return the latest best tree decomposition lifted to the original
+   * graph, without waiting for the one being converted or lifted,
+   * or {@code null} if none
+   */
   public static TreeDecomposition getBestTreeDecompositionSoFar(){
-    return best;
+    SolutionStore s = store;
+    if(s == null){
+      return null;
+    }
+    return s.getLifted();
   }
 
   private static void commit(){
@@ -63,70 +104,11 @@ public class MainDecomposer{
       comment("commit");
     }
 
-    Bag[] copiedBags = new Bag[bags.length];
-    for(int i = 0; i < copiedBags.length; i++){
-      copiedBags[i] = (Bag)bags[i].clone();
-    }
-
-    if(bags.length == 1){
-      // trivial tree decomposition
-      if(copiedBags[0].nestedBags == null || copiedBags[0].nestedBags.isEmpty()){
-        TreeDecomposition trivial =
-          new TreeDecomposition(0, copiedBags[0].graph.n - 1, copiedBags[0].graph);
-        trivial.addBag(copiedBags[0].graph.all.toArray());
-        if(best == null || trivial.width < best.width){
-          best = trivial;
-          comment("width = " + best.width);
-          printTime();
-        }
-        return;
-      }
-
-      copiedBags[0].flatten();
-      TreeDecomposition td = copiedBags[0].toTreeDecomposition();
-      setWidth(td);
-
-      if(best == null || td.width < best.width){
-        best = td;
-        comment("width = " + best.width);
-        printTime();
-      }
-
-      return;
-    }
-
-    TreeDecomposition td = new TreeDecomposition(0, 0, wholeGraph);
-    for(int i = 0; i < copiedBags.length; i++){
-      // trivial tree decomposition
-      if(copiedBags[i].nestedBags == null || copiedBags[i].nestedBags.isEmpty()){
-        TreeDecomposition trivial =
-          new TreeDecomposition(0, copiedBags[i].graph.n - 1, copiedBags[i].graph);
-        trivial.addBag(copiedBags[i].graph.all.toArray());
-        td.combineWith(trivial, invs[i], null);
-      }
-      else{
-        copiedBags[i].flatten();
-        td.combineWith(copiedBags[i].toTreeDecomposition(), invs[i], null);
-      }
-    }
-    setWidth(td);
-
-    if(best == null || td.width < best.width){
-      best = td;
-      comment("width = " + best.width);
-      printTime();
-    }
+    store.commit(wholeGraph, bags, invs);
   }
 
-  private static void setWidth(TreeDecomposition td){
-    if(td == null){
-      return;
-    }
-    int width = -1;
-    for(int i = 1; i <= td.nb; i++){
-      width = Math.max(width, td.bags[i].length - 1);
-    }
-    td.width = width;
+  private static void commit(TreeDecomposition td){
+    store.offer(td);
   }
 
   private static void comment(String comment){
@@ -138,29 +120,64 @@ public class MainDecomposer{
   }
 
   private static void initializeForDecomposition(Graph graph, long seed){
-    wholeGraph = graph;
-    best = null;
+    stopGreedyPortfolio();
+    if(store != null){
+      store.close();
+    }
     bags = null;
     invs = null;
     detectSum = 0;
+    lowerBound = 0;
+    reduction = null;
+    savedWidth = Integer.MIN_VALUE;
     random = new Random(seed);
     startTime = System.currentTimeMillis();
 
-    // trivial tree decomposition
-    best = new TreeDecomposition(0, wholeGraph.n - 1, wholeGraph);
-    best.addBag(wholeGraph.all.toArray());
+    setWholeGraph(graph, null);
 
     if(DEBUG){
       comment("seed = " + seed);
     }
   }
 
+  /*
+   * sets the graph to be decomposed, reduced by the given reduction
+   * if not null, with its trivial tree decomposition as the best
+   */
+  private static void setWholeGraph(Graph graph, Reduction reduction){
+    wholeGraph = graph;
+
+    // trivial tree decomposition
+    TreeDecomposition trivial =
+      new TreeDecomposition(0, wholeGraph.n - 1, wholeGraph);
+    if(wholeGraph.n > 0){
+      trivial.addBag(wholeGraph.all.toArray());
+    }
+    SolutionStore previous = store;
+    store = new SolutionStore(trivial, startTime, reduction);
+    if(previous != null){
+      previous.close();
+    }
+  }
+
   public static TreeDecomposition decompose(Graph graph, long seed){
     initializeForDecomposition(graph, seed);
 
     if(graph.n == 0){
-      best = new TreeDecomposition(0, -1, graph);
-      return best;
+      return store.flush();
+    }
+
+    lowerBound = LowerBound.compute(graph, LOWER_BOUND_STEPS);
+    reduction = new Reduction(graph, lowerBound);
+    graph = reduction.reduce();
+    lowerBound = reduction.getLow();
+    setWholeGraph(graph, reduction);
+    if(DEBUG){
+      comment(reduction.getEliminatedCount() + " vertices eliminated");
+    }
+
+    if(graph.n == 0){
+      return store.flush();
     }
 
     ArrayList< VertexSet > components = graph.getComponents(new VertexSet());
@@ -169,9 +186,7 @@ public class MainDecomposer{
 
     if(nc == 1){
       if(graph.n <= 2){
-        best = new TreeDecomposition(0, graph.n - 1, graph);
-        best.addBag(graph.all.toArray());
-        return best;
+        return store.flush();
       }
 
       bags = new Bag[1];
@@ -181,26 +196,22 @@ public class MainDecomposer{
         commit();
       }
 
-      if(bags[0].countSafeSeparators() == 0){
-        decomposeGreedy(bags[0]);
-      }
-      else{
-        for(Bag nb : bags[0].nestedBags){
-          nb.makeRefinable();
-          decomposeGreedy(nb);
-        }
-        bags[0].flatten();
-      }
+      startGreedyPortfolio(seed);
+
+      decomposeGreedyWithSafeSeparators(bags[0], GreedyDecomposer.Mode.fill, null);
 
       commit();
 
-      while(!bags[0].optimal){
-        improveWithSeparators(bags[0], bags[0].getWidth());
-        commit();
-        bags[0].flatten();
+      lowerBound = Math.max(lowerBound,
+          LowerBound.compute(graph, LOWER_BOUND_STEPS));
+      if(DEBUG){
+        comment("lower bound = " + lowerBound);
       }
+      saveCheckpoint();
 
-      return getBestTreeDecompositionSoFar();
+      improveComponents();
+      stopGreedyPortfolio();
+      return store.flush();
     }
 
     Graph[] graphs = new Graph[nc];
@@ -237,39 +248,120 @@ public class MainDecomposer{
 
     commit();
 
+    startGreedyPortfolio(seed);
+
     for(int i = 0; i < nc; i++){
-      if(bags[i].countSafeSeparators() == 0){
-        decomposeGreedy(bags[i]);
-      }
-      else{
-        for(Bag nb : bags[i].nestedBags){
-          nb.makeRefinable();
-          decomposeGreedy(nb);
-        }
-        bags[i].flatten();
-      }
+      decomposeGreedyWithSafeSeparators(bags[i], GreedyDecomposer.Mode.fill, null);
     }
 
     commit();
 
+    for(int i = 0; i < nc; i++){
+      lowerBound = Math.max(lowerBound,
+          LowerBound.compute(graphs[i], LOWER_BOUND_STEPS));
+    }
+    if(DEBUG){
+      comment("lower bound = " + lowerBound);
+    }
+    saveCheckpoint();
+
+    improveComponents();
+    stopGreedyPortfolio();
+    return store.flush();
+  }
+
+  /**
+   * Decomposes the graph of the given snapshot, starting from the
+   * reduction, the decompositions of the components and the best
+   * decomposition in the snapshot, which is saved as improved
+   * @param checkpoint the snapshot read
+   * @param seed the seed of the random choices
+   * @return the best tree decomposition found
+   */
+  public static TreeDecomposition decompose(Checkpoint checkpoint, long seed){
+    initializeForDecomposition(checkpoint.reduction.g, seed);
+    MainDecomposer.checkpoint = checkpoint;
+
+    reduction = checkpoint.reduction;
+    lowerBound = checkpoint.lowerBound;
+    detectSum = checkpoint.detectSum;
+    setWholeGraph(checkpoint.reducedGraph, reduction);
+    commit(checkpoint.best);
+    invs = checkpoint.invs;
+    bags = checkpoint.bags;
+    savedWidth = store.getWidth();
+    savedDetectSum = detectSum;
+    if(DEBUG){
+      comment("lower bound = " + lowerBound);
+    }
+
+    startGreedyPortfolio(seed);
+    improveComponents();
+    stopGreedyPortfolio();
+    return store.flush();
+  }
+
+  /*
+   * improves the decompositions of the components, the widest first,
+   * until each is optimal or the best decomposition meets the lower
+   * bound
+   */
+  private static void improveComponents(){
     PriorityQueue< Bag > queue =
-      new PriorityQueue< >(nc, WIDTH_DESCENDING_ORDER);
+      new PriorityQueue< >(bags.length, WIDTH_DESCENDING_ORDER);
 
-    for(int i = 0; i < nc; i++){
-      queue.offer(bags[i]);
+    for(int i = 0; i < bags.length; i++){
+      checkOptimality(bags[i]);
+      if(!bags[i].optimal){
+        queue.offer(bags[i]);
+      }
     }
 
-    while(!queue.isEmpty()){
+    while(!queue.isEmpty() && store.getWidth() > lowerBound){
       Bag b = queue.poll();
+      for(int i = 0; i < bags.length; i++){
+        if(bags[i] == b){
+          adoptGreedy(i);
+        }
+      }
       improveWithSeparators(b, b.getWidth());
       commit();
       b.flatten();
+      checkOptimality(b);
+      saveCheckpoint();
       if(!b.optimal){
         queue.offer(b);
       }
     }
+  }
 
-    return getBestTreeDecompositionSoFar();
+  /*
+   * saves the snapshot, if any, unless neither the best width nor
+   * the safety of the separators has changed since the last save
+   */
+  private static void saveCheckpoint(){
+    if(checkpoint == null){
+      return;
+    }
+    TreeDecomposition best = store.convert();
+    if(best.width == savedWidth && detectSum == savedDetectSum){
+      return;
+    }
+    if(checkpoint.write(reduction, wholeGraph, lowerBound, detectSum,
+          invs, bags, best)){
+      savedWidth = best.width;
+      savedDetectSum = detectSum;
+    }
+  }
+
+  /*
+   * marks the bag optimal if it, or the best decomposition so far,
+   * is not wider than the lower bound
+   */
+  private static void checkOptimality(Bag bag){
+    if(bag.getWidth() <= lowerBound || store.getWidth() <= lowerBound){
+      bag.optimal = true;
+    }
   }
 
   private static void improveWithSeparators(Bag bag, int k){
@@ -319,7 +411,8 @@ public class MainDecomposer{
     }
 
     if(bag.nestedBags == null){
-      tryDecomposeExactly(bag, bag.graph.minDegree(), k - 1, k - 1);
+      tryDecomposeExactly(bag,
+          Math.max(bag.graph.minDegree(), lowerBound), k - 1, k - 1);
       return bag.getWidth() <= k - 1;
     }
 
@@ -595,9 +688,130 @@ public class MainDecomposer{
     mfd.decompose();
   }
 
+  private static void decomposeGreedyWithSafeSeparators(Bag bag,
+      GreedyDecomposer.Mode mode, Random random){
+    if(bag.countSafeSeparators() == 0){
+      bag.initializeForDecomposition();
+      new GreedyDecomposer(bag, mode, random).decompose();
+    }
+    else{
+      for(Bag nb : bag.nestedBags){
+        nb.makeRefinable();
+        nb.initializeForDecomposition();
+        new GreedyDecomposer(nb, mode, random).decompose();
+      }
+      bag.flatten();
+    }
+  }
+
+  /*
+   * starts parallelism - 1 workers, each decomposing the components
+   * in turn by the greedy modes in turn with its own random
+   * tie-breaks, starting from the safe separators found so far;
+   * a decomposition of a smaller width is published at once if the
+   * graph is connected, and is otherwise adopted by the main thread
+   * on its next round for the component
+   */
+  private static void startGreedyPortfolio(long seed){
+    if(parallelism <= 1){
+      return;
+    }
+
+    Bag[] templates = new Bag[bags.length];
+    for(int i = 0; i < bags.length; i++){
+      templates[i] = snapshot(bags[i], bags[i].graph.copy());
+    }
+    candidates = new Bag[bags.length];
+
+    AtomicLong runs = new AtomicLong();
+    portfolio = Executors.newFixedThreadPool(parallelism - 1, r -> {
+      Thread t = new Thread(r, "greedy-portfolio");
+      t.setDaemon(true);
+      return t;
+    });
+    for(int t = 0; t < parallelism - 1; t++){
+      portfolio.execute(() -> runGreedyPortfolio(templates, seed, runs));
+    }
+  }
+
+  private static void runGreedyPortfolio(Bag[] templates, long seed, AtomicLong runs){
+    GreedyDecomposer.Mode[] modes = GreedyDecomposer.Mode.values();
+    Graph[] graphs = new Graph[templates.length];
+    while(!Thread.currentThread().isInterrupted()){
+      long r = runs.getAndIncrement();
+      int i = (int)(r % templates.length);
+      GreedyDecomposer.Mode mode = modes[(int)(r / templates.length % modes.length)];
+      if(graphs[i] == null){
+        graphs[i] = templates[i].graph.copy();
+      }
+
+      Bag bag = snapshot(templates[i], graphs[i]);
+      decomposeGreedyWithSafeSeparators(bag, mode, new Random(seed + r + 1));
+
+      if(templates.length == 1 && bag.getWidth() < store.getWidth()){
+        commit(bag.toTreeDecomposition());
+      }
+      synchronized(MainDecomposer.class){
+        if(candidates != null && (candidates[i] == null ||
+              bag.getWidth() < candidates[i].getWidth())){
+          candidates[i] = bag;
+        }
+      }
+    }
+  }
+
+  private static void stopGreedyPortfolio(){
+    if(portfolio != null){
+      portfolio.shutdownNow();
+      portfolio = null;
+    }
+    synchronized(MainDecomposer.class){
+      candidates = null;
+    }
+  }
+
+  /*
+   * replaces the decomposition of the i-th component with the one
+   * found by the workers, if it is of a smaller width
+   */
+  private static boolean adoptGreedy(int i){
+    Bag candidate;
+    synchronized(MainDecomposer.class){
+      if(candidates == null || candidates[i] == null){
+        return false;
+      }
+      candidate = candidates[i];
+      candidates[i] = null;
+    }
+    if(candidate.getWidth() >= bags[i].getWidth()){
+      return false;
+    }
+
+    if(DEBUG){
+      comment("adopt greedy width = " + candidate.getWidth());
+    }
+    Graph graph = bags[i].graph;
+    replace(candidate, bags[i]);
+    bags[i].graph = graph;
+    return true;
+  }
+
+  /*
+   * a copy of the bag on the given copy of its graph sharing no
+   * vertex set with the bag, as the binary operations on vertex sets
+   * may convert their arguments, to be decomposed on another thread
+   */
+  private static Bag snapshot(Bag bag, Graph graph){
+    Bag result = bag.deepClone();
+    result.graph = graph;
+    result.vertexSet = graph.all;
+    return result;
+  }
+
   private static boolean decomposeWithSmallCuts(Bag bag){
     bag.initializeForDecomposition();
     CutDecomposer cd = new CutDecomposer(bag);
+    cd.setParallelism(parallelism);
     cd.decompose(CUT_D_TIME_MS);
     if(DEBUG){
       comment("finish cut decompose");
@@ -733,7 +947,7 @@ public class MainDecomposer{
 
         case pathDecomposition :
           PathDecomposer pd = new PathDecomposer(triedBag, 
-              triedBag.graph.minDegree(), k - 1);
+              Math.max(triedBag.graph.minDegree(), lowerBound), k - 1);
           if(pd.decompose(time - sum)){
             success = true;
           }
@@ -742,7 +956,8 @@ public class MainDecomposer{
 
         case treeDecomposition :
           MTDecomposerHeuristic mtd = new MTDecomposerHeuristic(
-              triedBag, triedBag.graph.minDegree(), k - 1, null, null, time - sum);
+              triedBag, Math.max(triedBag.graph.minDegree(), lowerBound),
+              k - 1, null, null, time - sum);
           mtd.setMaxMultiplicity(MAX_MULTIPLICITY);
           if(mtd.decompose()){
             success = true;
@@ -829,6 +1044,37 @@ public class MainDecomposer{
     }
   }
 
+  /*
+   * decomposes the graph from the standard input, starting from its
+   * snapshot in the file if any, and otherwise saving the snapshot
+   * to the file
+   */
+  private static void decomposeWithCheckpoint(File file, long seed){
+    ByteBuffer input;
+    try{
+      input = GraphReader.readInput(System.in);
+    }
+    catch(IOException e){
+      e.printStackTrace();
+      return;
+    }
+    long checksum = Checkpoint.checksum(input);
+    Checkpoint read = Checkpoint.read(file, checksum);
+    if(read != null){
+      comment("read checkpoint");
+
+      decompose(read, seed);
+      return;
+    }
+
+    Graph graph = new GraphReader(input).parse();
+
+    comment("read Graph");
+
+    checkpoint = new Checkpoint(file, checksum);
+    decompose(graph, seed);
+  }
+
   private MainDecomposer(){}
 
   public static void main(String[] args){
@@ -852,15 +1098,30 @@ public class MainDecomposer{
         });
 
     long seed = 42;
-    if(args.length >= 2 && "-s".equals(args[0])){
-      seed = Long.parseLong(args[1]);
+    File checkpointFile = null;
+    for(int i = 0; i < args.length; i++){
+      if("-s".equals(args[i]) && i + 1 < args.length){
+        seed = Long.parseLong(args[++i]);
+      }
+      else if("-p".equals(args[i]) && i + 1 < args.length){
+        parallelism = Integer.parseInt(args[++i]);
+        SafetyChecker.setParallelism(parallelism);
+      }
+      else if("-c".equals(args[i]) && i + 1 < args.length){
+        checkpointFile = new File(args[++i]);
+      }
     }
 
-    Graph graph = Graph.readGraph(System.in);
+    if(checkpointFile == null){
+      Graph graph = Graph.readGraph(System.in);
 
-    comment("read Graph");
+      comment("read Graph");
 
-    decompose(graph, seed);
+      decompose(graph, seed);
+    }
+    else{
+      decomposeWithCheckpoint(checkpointFile, seed);
+    }
 
     printTime();
   }
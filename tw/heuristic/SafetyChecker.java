@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2017, Hiromu Ohtsuka
+*/
+
+package tw.heuristic;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Decides the safety of separators of a graph by {@code SafeSeparator}
+ * within a budget, caching the verdicts by the vertex sets of the
+ * separators.
+ * <p>
+ * A separator with the vertex set of one already tested, such as
+ * one created again by an improvement, is decided without a test and
+ * at no cost. The separators not yet decided are tested in the
+ * increasing order of the number of edges missing from them, so that
+ * the budget is spent on as many of the cheap tests as possible.
+ * <p>
+ * With more than one thread, the tests are run ahead on a pool
+ * shared by the checkers, each thread testing on its own copy of
+ * the graph, as the binary operations on vertex sets may convert
+ * their arguments. The budget is charged in the sorted order, the
+ * results of the tests beyond it being discarded, so that the
+ * verdicts are those of the sequential tests.
+ */
+public class SafetyChecker{
+  final Graph graph;
+
+  private final Map< VertexSet, Boolean > verdicts = new HashMap< >();
+
+  /* the tester of each thread of the pool, on its copy of the graph */
+  private final ThreadLocal< SafeSeparator > testers;
+
+  private static int parallelism = 1;
+  private static ExecutorService executor;
+
+  /**
+   * @param graph the graph of the separators to be checked
+   */
+  public SafetyChecker(Graph graph){
+    this.graph = graph;
+    testers = ThreadLocal.withInitial(() -> new SafeSeparator(graph.copy()));
+  }
+
+  /**
+   * Sets the number of threads for the tests of all the checkers
+   * @param parallelism the number of threads
+   */
+  public static synchronized void setParallelism(int parallelism){
+    SafetyChecker.parallelism = Math.max(1, parallelism);
+  }
+
+  private static synchronized ExecutorService getExecutor(){
+    if(executor == null){
+      executor = Executors.newFixedThreadPool(parallelism, r -> {
+        Thread t = new Thread(r, "safety-checker");
+        t.setDaemon(true);
+        return t;
+      });
+    }
+    return executor;
+  }
+
+  /**
+   * Decides the safety of the given separators of the graph, marking
+   * each as safe or unsafe, until the budget is exceeded
+   * @param separators the separators
+   * @param timeMS the budget, in the time units of {@code Bag}
+   * @return the time spent
+   */
+  public long figureOutSafety(List< Separator > separators, long timeMS){
+    Map< VertexSet, List< Separator > > toTest = new LinkedHashMap< >();
+    for(Separator separator : separators){
+      if(separator.safe || separator.unsafe){
+        continue;
+      }
+      Boolean verdict = verdicts.get(separator.vertexSet);
+      if(verdict != null){
+        setSafety(separator, verdict);
+      }
+      else{
+        toTest.computeIfAbsent(separator.vertexSet,
+            s -> new ArrayList< >()).add(separator);
+      }
+    }
+
+    ArrayList< VertexSet > sets = new ArrayList< >(toTest.keySet());
+    Map< VertexSet, Integer > missings = new HashMap< >();
+    for(VertexSet s : sets){
+      missings.put(s, countMissings(s));
+    }
+    sets.sort(Comparator.comparingInt(missings::get));
+
+    if(parallelism > 1 && sets.size() > 1){
+      return testInParallel(sets, toTest, timeMS);
+    }
+
+    long sum = 0;
+    for(VertexSet s : sets){
+      if(sum > timeMS){
+        return sum;
+      }
+      sum += record(s, new SafeSeparator(graph).decideSafeness(s), toTest);
+    }
+    return sum;
+  }
+
+  /*
+   * tests the vertex sets, in the given order, on the pool, keeping
+   * up to a window of tests running ahead of the one being charged
+   */
+  private long testInParallel(ArrayList< VertexSet > sets,
+      Map< VertexSet, List< Separator > > toTest, long timeMS){
+    ExecutorService executor = getExecutor();
+    ArrayDeque< Future< Integer > > window = new ArrayDeque< >();
+    int windowSize = 4 * parallelism;
+    int next = 0;
+    long sum = 0;
+    try{
+      for(int i = 0; i < sets.size(); i++){
+        if(sum > timeMS){
+          return sum;
+        }
+        while(next < sets.size() && next - i < windowSize){
+          VertexSet s = sets.get(next++).clone();
+          window.add(executor.submit(() -> testers.get().decideSafeness(s)));
+        }
+        sum += record(sets.get(i), window.poll().get(), toTest);
+      }
+      return sum;
+    }
+    catch(InterruptedException | ExecutionException e){
+      throw new RuntimeException(e);
+    }
+    finally{
+      for(Future< Integer > f : window){
+        f.cancel(false);
+      }
+    }
+  }
+
+  /*
+   * records the verdict of the test of s and returns its cost
+   */
+  private long record(VertexSet s, int steps,
+      Map< VertexSet, List< Separator > > toTest){
+    boolean safe = steps > 0;
+    verdicts.put(s.clone(), safe);
+    for(Separator separator : toTest.get(s)){
+      setSafety(separator, safe);
+    }
+    return (long)Math.abs(steps) * graph.n / 10000;
+  }
+
+  private static void setSafety(Separator separator, boolean safe){
+    separator.safe = safe;
+    separator.unsafe = !safe;
+  }
+
+  /*
+   * the number of the pairs of vertices of s not adjacent to each other
+   */
+  private int countMissings(VertexSet s){
+    int count = 0;
+    for(int v = s.nextSetBit(0); v >= 0; v = s.nextSetBit(v + 1)){
+      count += s.subtract(graph.neighborSet(v)).cardinality() - 1;
+    }
+    return count / 2;
+  }
+}
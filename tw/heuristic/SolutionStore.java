@@ -0,0 +1,255 @@
+/*
+ * Copyright (c) 2017, Hiromu Ohtsuka
+*/
+
+package tw.heuristic;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The best tree decomposition found so far, shared by the threads
+ * of the heuristic decomposition.
+ * <p>
+ * A tree decomposition is published as a whole by replacing the
+ * reference to the best one, and is not modified after it is
+ * offered, so that a reader, such as the shutdown hook, always gets
+ * a complete decomposition without locking.
+ * <p>
+ * The decomposition by bags being improved is committed as a copy,
+ * taken on the committing thread only if its width is smaller than
+ * that of the best one and of the copies already committed. The
+ * copy is flattened and converted into a tree decomposition on a
+ * background thread, the latest copy superseding any other not yet
+ * converted.
+ * <p>
+ * The decompositions are of the graph reduced by a {@code Reduction},
+ * if any, and each published one is lifted to the original graph on
+ * the background thread, the lifted decomposition being kept so that
+ * the shutdown hook only has to print it.
+ */
+public class SolutionStore{
+  private final AtomicReference< TreeDecomposition > best;
+  private final AtomicReference< Lifted > lifted;
+  private final AtomicReference< Snapshot > pending;
+  private final AtomicInteger committedWidth;
+  private final ExecutorService converter;
+  private final Object conversionLock;
+  private final Object liftLock;
+  private final long startTime;
+  private final Reduction reduction;
+
+  private static class Snapshot{
+    final Graph graph;
+    final Bag[] bags;
+    final int[][] invs;
+
+    Snapshot(Graph graph, Bag[] bags, int[][] invs){
+      this.graph = graph;
+      this.bags = bags;
+      this.invs = invs;
+    }
+  }
+
+  private static class Lifted{
+    final TreeDecomposition source;
+    final TreeDecomposition td;
+
+    Lifted(TreeDecomposition source, TreeDecomposition td){
+      this.source = source;
+      this.td = td;
+    }
+  }
+
+  /**
+   * @param initial the tree decomposition to start with
+   * @param startTime the time in milliseconds from which the times
+   * of the improvements are reported
+   * @param reduction the reduction of the graph decomposed, or
+   * {@code null} if not reduced
+   */
+  public SolutionStore(TreeDecomposition initial, long startTime,
+      Reduction reduction){
+    best = new AtomicReference< >(initial);
+    pending = new AtomicReference< >();
+    committedWidth = new AtomicInteger(initial.width);
+    converter = Executors.newSingleThreadExecutor(r -> {
+      Thread t = new Thread(r, "solution-store");
+      t.setDaemon(true);
+      return t;
+    });
+    conversionLock = new Object();
+    liftLock = new Object();
+    this.startTime = startTime;
+    this.reduction = reduction;
+    lifted = new AtomicReference< >(new Lifted(initial, lift(initial)));
+  }
+
+  public TreeDecomposition get(){
+    return best.get();
+  }
+
+  public int getWidth(){
+    return best.get().width;
+  }
+
+  /**
+   * Publishes a tree decomposition if its width is smaller than that
+   * of the best one; the decomposition must not be modified afterwards
+   * @param td the tree decomposition
+   * @return {@code true} if published
+   */
+  public boolean offer(TreeDecomposition td){
+    setWidth(td);
+    while(true){
+      TreeDecomposition current = best.get();
+      if(current != null && td.width >= current.width){
+        return false;
+      }
+      if(best.compareAndSet(current, td)){
+        synchronized(this){
+          comment("width = " + (reduction == null ? td.width :
+                Math.max(td.width, reduction.getEliminationWidth())));
+          comment("time = " + (System.currentTimeMillis() - startTime) + " ms");
+        }
+        converter.execute(this::liftBest);
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Commits the decompositions by bags of the components of a graph
+   * @param graph the graph
+   * @param bags the bags of the components, each decomposed into its
+   * nested bags or not yet decomposed
+   * @param invs the vertices of the graph for the vertices of each
+   * component, or {@code null} if the graph is connected
+   */
+  public void commit(Graph graph, Bag[] bags, int[][] invs){
+    int width = -1;
+    for(Bag bag : bags){
+      if(bag.nestedBags == null || bag.nestedBags.isEmpty()){
+        width = Math.max(width, bag.graph.n - 1);
+      }
+      else{
+        width = Math.max(width, bag.getWidth());
+      }
+    }
+    if(width >= Math.min(committedWidth.get(), getWidth())){
+      return;
+    }
+    committedWidth.accumulateAndGet(width, Math::min);
+
+    Bag[] copiedBags = new Bag[bags.length];
+    for(int i = 0; i < bags.length; i++){
+      copiedBags[i] = bags[i].deepClone();
+    }
+    pending.set(new Snapshot(graph, copiedBags, invs));
+    converter.execute(this::convertPending);
+  }
+
+  /**
+   * Converts the copy committed and not yet converted, if any, and
+   * lifts the best tree decomposition, if not yet lifted, on
+   * the calling thread, waiting for a conversion or lifting in progress
+   * @return the best tree decomposition, lifted to the original graph
+   * if reduced
+   */
+  public TreeDecomposition flush(){
+    convertPending();
+    liftBest();
+    return lifted.get().td;
+  }
+
+  /**
+   * @return the latest tree decomposition lifted to the original graph,
+   * which may be superseded by one being converted or lifted
+   */
+  public TreeDecomposition getLifted(){
+    return lifted.get().td;
+  }
+
+  /**
+   * Converts the copy committed and not yet converted, if any, on
+   * the calling thread, waiting for a conversion in progress
+   * @return the best tree decomposition, of the graph decomposed
+   */
+  public TreeDecomposition convert(){
+    convertPending();
+    return best.get();
+  }
+
+  public void close(){
+    converter.shutdownNow();
+  }
+
+  private void convertPending(){
+    synchronized(conversionLock){
+      Snapshot snapshot = pending.getAndSet(null);
+      if(snapshot != null){
+        offer(toTreeDecomposition(snapshot));
+      }
+    }
+  }
+
+  private void liftBest(){
+    synchronized(liftLock){
+      TreeDecomposition td = best.get();
+      if(lifted.get().source != td){
+        lifted.set(new Lifted(td, lift(td)));
+      }
+    }
+  }
+
+  private TreeDecomposition lift(TreeDecomposition td){
+    if(reduction == null){
+      return td;
+    }
+    return reduction.lift(td);
+  }
+
+  private static TreeDecomposition toTreeDecomposition(Snapshot snapshot){
+    Bag[] bags = snapshot.bags;
+    if(bags.length == 1 && snapshot.invs == null){
+      return toTreeDecomposition(bags[0]);
+    }
+
+    TreeDecomposition td = new TreeDecomposition(0, 0, snapshot.graph);
+    for(int i = 0; i < bags.length; i++){
+      td.combineWith(toTreeDecomposition(bags[i]), snapshot.invs[i], null);
+    }
+    return td;
+  }
+
+  private static TreeDecomposition toTreeDecomposition(Bag bag){
+    // trivial tree decomposition
+    if(bag.nestedBags == null || bag.nestedBags.isEmpty()){
+      int n = bag.graph.n;
+      TreeDecomposition trivial = new TreeDecomposition(0, n - 1, bag.graph);
+      int[] all = new int[n];
+      for(int v = 0; v < n; v++){
+        all[v] = v;
+      }
+      trivial.addBag(all);
+      return trivial;
+    }
+
+    bag.flatten();
+    return bag.toTreeDecomposition();
+  }
+
+  private static void setWidth(TreeDecomposition td){
+    int width = -1;
+    for(int i = 1; i <= td.nb; i++){
+      width = Math.max(width, td.bags[i].length - 1);
+    }
+    td.width = width;
+  }
+
+  private static void comment(String comment){
+    System.out.println("c " + comment);
+  }
+}
@@ -0,0 +1,1047 @@
+/*
+ * Copyright (c) 2017, Hisao Tamaki and Hiromu Ohtsuka, Keitaro Makii
+ */
+
+package tw.heuristic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Decomposition of a biconnected graph into its triconnected
+ * components, which are the nodes of its SPQR tree:
+ * bonds (P-nodes) consisting of two vertices,
+ * polygons (S-nodes) consisting of a cycle and
+ * triconnected graphs (R-nodes).
+ * Two components adjacent in the tree share a virtual edge
+ * and the two ends of each virtual edge form
+ * a separation pair of the graph.
+ * Conversely, every separation pair of the graph is either
+ * the pair of ends of a virtual edge or
+ * a pair of non-consecutive vertices of a polygon.
+ * <p>
+ * The split components are computed in linear time by the algorithm
+ * of Hopcroft and Tarjan, with the corrections by Gutwenger and Mutzel,
+ * and then bonds sharing a virtual edge and polygons sharing
+ * a virtual edge are merged.
+ * The depth-first searches are done with explicit stacks, so that
+ * the depth of the search tree is not limited by the thread stack.
+ *
+ * @author  Hisao Tamaki
+ */
+public class TriconnectedComponents {
+  public static final int BOND = 0;
+  public static final int POLYGON = 1;
+  public static final int TRICONNECTED = 2;
+
+  /**
+   * A triconnected component, or a node of the SPQR tree
+   */
+  public static class Component {
+    /**
+     * {@code BOND}, {@code POLYGON} or {@code TRICONNECTED}
+     */
+    public int type;
+
+    /**
+     * the vertices of the component; in the cyclic order
+     * if the component is a polygon
+     */
+    public int[] vertices;
+
+    /**
+     * the virtual edges shared with the adjacent components
+     */
+    public ArrayList<VirtualEdge> virtualEdges = new ArrayList<>();
+
+    Component(int type, int[] vertices) {
+      this.type = type;
+      this.vertices = vertices;
+    }
+  }
+
+  /**
+   * A virtual edge shared by two components, or an edge of
+   * the SPQR tree
+   */
+  public static class VirtualEdge {
+    /**
+     * the ends of the virtual edge, a separation pair of the graph
+     */
+    public int u, v;
+
+    /**
+     * the two components sharing the virtual edge
+     */
+    public Component c1, c2;
+
+    VirtualEdge(int u, int v, Component c1, Component c2) {
+      this.u = u;
+      this.v = v;
+      this.c1 = c1;
+      this.c2 = c2;
+    }
+
+    /**
+     * @param c one of the two components
+     * @return the other component
+     */
+    public Component opposite(Component c) {
+      return c == c1 ? c2 : c1;
+    }
+  }
+
+  /**
+   * the triconnected components;
+   * empty if the graph is not biconnected or has less than
+   * three vertices
+   */
+  public ArrayList<Component> components = new ArrayList<>();
+
+  /**
+   * the virtual edges connecting the components
+   */
+  public ArrayList<VirtualEdge> virtualEdges = new ArrayList<>();
+
+  private static final byte UNSEEN = 0;
+  private static final byte TREE = 1;
+  private static final byte FROND = 2;
+
+  private Graph g;
+  private int n;
+  private boolean biconnected;
+
+  /*
+   * edges, real ones followed by virtual ones,
+   * oriented from the tail to the head in the palm tree
+   */
+  private int m;
+  private int realEdges;
+  private int[] src;
+  private int[] tgt;
+  private byte[] type;
+  private boolean[] start;
+  private int[] inAdj;
+  private int[] inHigh;
+
+  /*
+   * the ordered adjacency lists of outgoing arcs, as doubly linked
+   * lists of slots, each holding an edge
+   */
+  private int[] slotEdge;
+  private int[] slotNext;
+  private int[] slotPrev;
+  private int[] adjHead;
+  private int[] adjTail;
+  private int[] adjSize;
+
+  /*
+   * the lists of the tails of fronds entering each vertex,
+   * as doubly linked lists of nodes
+   */
+  private int nHigh;
+  private int[] highValue;
+  private int[] highNext;
+  private int[] highPrev;
+  private int[] highOwner;
+  private int[] highHead;
+
+  private int[] number;
+  private int[] lowpt1;
+  private int[] lowpt2;
+  private int[] nd;
+  private int[] father;
+  private int[] degree;
+  private int[] treeArc;
+  private int[] newnum;
+  private int[] nodeAt;
+  private int root;
+
+  private int[] estack;
+  private int esp;
+
+  private int[] th;
+  private int[] ta;
+  private int[] tb;
+  private int top;
+
+  /*
+   * the split components, as consecutive ranges of compEdges
+   */
+  private int[] compEdges;
+  private int nCompEdges;
+  private int[] compStart;
+  private byte[] compType;
+  private int nComps;
+
+  /**
+   * Decomposes the given graph into triconnected components
+   * @param g the graph, supposed to be biconnected
+   */
+  public TriconnectedComponents(Graph g) {
+    this.g = g;
+    this.n = g.n;
+    if (n < 3) {
+      return;
+    }
+    makeEdges();
+    depthFirst();
+    if (!biconnected) {
+      return;
+    }
+    for (int e = 0; e < m; e++) {
+      boolean up = number[tgt[e]] > number[src[e]];
+      if (up != (type[e] == TREE)) {
+        int t = src[e];
+        src[e] = tgt[e];
+        tgt[e] = t;
+      }
+    }
+    buildAcceptableAdjacency();
+    findPaths();
+    searchPaths();
+    assemble();
+  }
+
+  /**
+   * @return {@code true} if the graph is biconnected
+   */
+  public boolean isBiconnected() {
+    return biconnected;
+  }
+
+  private void makeEdges() {
+    realEdges = 0;
+    for (int v = 0; v < n; v++) {
+      realEdges += g.degree[v];
+    }
+    realEdges /= 2;
+    int capacity = 3 * realEdges + 3;
+    src = new int[capacity];
+    tgt = new int[capacity];
+    type = new byte[capacity];
+    start = new boolean[capacity];
+    inAdj = new int[capacity];
+    inHigh = new int[capacity];
+    for (int v = 0; v < n; v++) {
+      for (int i = 0; i < g.degree[v]; i++) {
+        int w = g.targets[g.offsets[v] + i];
+        if (v < w) {
+          src[m] = v;
+          tgt[m] = w;
+          m++;
+        }
+      }
+    }
+    Arrays.fill(inHigh, -1);
+  }
+
+  private int newEdge(int v, int w) {
+    if (m == src.length) {
+      int capacity = 2 * m;
+      src = Arrays.copyOf(src, capacity);
+      tgt = Arrays.copyOf(tgt, capacity);
+      type = Arrays.copyOf(type, capacity);
+      start = Arrays.copyOf(start, capacity);
+      inAdj = Arrays.copyOf(inAdj, capacity);
+      int from = inHigh.length;
+      inHigh = Arrays.copyOf(inHigh, capacity);
+      Arrays.fill(inHigh, from, capacity, -1);
+    }
+    src[m] = v;
+    tgt[m] = w;
+    return m++;
+  }
+
+  /*
+   * the first depth-first search, numbering the vertices and
+   * computing the low points, which also decides biconnectivity
+   */
+  private void depthFirst() {
+    number = new int[n];
+    lowpt1 = new int[n];
+    lowpt2 = new int[n];
+    nd = new int[n];
+    father = new int[n];
+    degree = new int[n];
+    treeArc = new int[n];
+
+    int[] incidence = new int[2 * m];
+    int[] incStart = new int[n + 1];
+    for (int e = 0; e < m; e++) {
+      incStart[src[e] + 1]++;
+      incStart[tgt[e] + 1]++;
+    }
+    for (int v = 0; v < n; v++) {
+      incStart[v + 1] += incStart[v];
+    }
+    int[] pos = Arrays.copyOf(incStart, n);
+    for (int e = 0; e < m; e++) {
+      incidence[pos[src[e]]++] = e;
+      incidence[pos[tgt[e]]++] = e;
+    }
+
+    int[] stack = new int[n];
+    int sp = 0;
+    int count = 0;
+    int rootChildren = 0;
+    biconnected = true;
+
+    root = 0;
+    stack[sp++] = root;
+    father[root] = -1;
+    number[root] = ++count;
+    lowpt1[root] = lowpt2[root] = number[root];
+    nd[root] = 1;
+    degree[root] = g.degree[root];
+    pos[root] = incStart[root];
+
+    while (sp > 0) {
+      int v = stack[sp - 1];
+      if (pos[v] < incStart[v + 1]) {
+        int e = incidence[pos[v]++];
+        if (type[e] != UNSEEN) {
+          continue;
+        }
+        int w = src[e] == v ? tgt[e] : src[e];
+        if (number[w] == 0) {
+          type[e] = TREE;
+          treeArc[w] = e;
+          father[w] = v;
+          number[w] = ++count;
+          lowpt1[w] = lowpt2[w] = number[w];
+          nd[w] = 1;
+          degree[w] = g.degree[w];
+          pos[w] = incStart[w];
+          stack[sp++] = w;
+        }
+        else {
+          type[e] = FROND;
+          if (number[w] < lowpt1[v]) {
+            lowpt2[v] = lowpt1[v];
+            lowpt1[v] = number[w];
+          }
+          else if (number[w] > lowpt1[v]) {
+            lowpt2[v] = Math.min(lowpt2[v], number[w]);
+          }
+        }
+      }
+      else {
+        sp--;
+        int u = father[v];
+        if (u < 0) {
+          continue;
+        }
+        if (u == root) {
+          rootChildren++;
+        }
+        else if (lowpt1[v] >= number[u]) {
+          biconnected = false;
+        }
+        if (lowpt1[v] < lowpt1[u]) {
+          lowpt2[u] = Math.min(lowpt1[u], lowpt2[v]);
+          lowpt1[u] = lowpt1[v];
+        }
+        else if (lowpt1[v] == lowpt1[u]) {
+          lowpt2[u] = Math.min(lowpt2[u], lowpt2[v]);
+        }
+        else {
+          lowpt2[u] = Math.min(lowpt2[u], lowpt1[v]);
+        }
+        nd[u] += nd[v];
+      }
+    }
+    if (count < n || rootChildren > 1) {
+      biconnected = false;
+    }
+  }
+
+  /*
+   * orders the outgoing arcs of each vertex by the value phi
+   * so that the adjacency structure is acceptable for the path search
+   */
+  private void buildAcceptableAdjacency() {
+    int capacity = src.length;
+    slotEdge = new int[capacity];
+    slotNext = new int[capacity];
+    slotPrev = new int[capacity];
+    adjHead = new int[n];
+    adjTail = new int[n];
+    adjSize = new int[n];
+    Arrays.fill(adjHead, -1);
+    Arrays.fill(adjTail, -1);
+
+    int max = 3 * n + 2;
+    int[] bucketStart = new int[max + 2];
+    int[] phi = new int[m];
+    for (int e = 0; e < m; e++) {
+      int w = tgt[e];
+      if (type[e] == FROND) {
+        phi[e] = 3 * number[w] + 1;
+      }
+      else if (lowpt2[w] < number[src[e]]) {
+        phi[e] = 3 * lowpt1[w];
+      }
+      else {
+        phi[e] = 3 * lowpt1[w] + 2;
+      }
+      bucketStart[phi[e] + 1]++;
+    }
+    for (int i = 0; i <= max; i++) {
+      bucketStart[i + 1] += bucketStart[i];
+    }
+    int[] sorted = new int[m];
+    for (int e = 0; e < m; e++) {
+      sorted[bucketStart[phi[e]]++] = e;
+    }
+    for (int i = 0; i < m; i++) {
+      int e = sorted[i];
+      int v = src[e];
+      slotEdge[i] = e;
+      inAdj[e] = i;
+      slotNext[i] = -1;
+      slotPrev[i] = adjTail[v];
+      if (adjTail[v] >= 0) {
+        slotNext[adjTail[v]] = i;
+      }
+      else {
+        adjHead[v] = i;
+      }
+      adjTail[v] = i;
+      adjSize[v]++;
+    }
+  }
+
+  private void deleteSlot(int v, int slot) {
+    int prev = slotPrev[slot];
+    int next = slotNext[slot];
+    if (prev >= 0) {
+      slotNext[prev] = next;
+    }
+    else {
+      adjHead[v] = next;
+    }
+    if (next >= 0) {
+      slotPrev[next] = prev;
+    }
+    else {
+      adjTail[v] = prev;
+    }
+    adjSize[v]--;
+  }
+
+  private int firstChild(int v) {
+    return tgt[slotEdge[adjHead[v]]];
+  }
+
+  private int high(int v) {
+    int h = highHead[v];
+    return h < 0 ? 0 : highValue[h];
+  }
+
+  private int newHigh(int v, int value) {
+    if (nHigh == highValue.length) {
+      int capacity = 2 * nHigh;
+      highValue = Arrays.copyOf(highValue, capacity);
+      highNext = Arrays.copyOf(highNext, capacity);
+      highPrev = Arrays.copyOf(highPrev, capacity);
+      highOwner = Arrays.copyOf(highOwner, capacity);
+    }
+    highValue[nHigh] = value;
+    highOwner[nHigh] = v;
+    return nHigh++;
+  }
+
+  private int pushFrontHigh(int v, int value) {
+    int h = newHigh(v, value);
+    highPrev[h] = -1;
+    highNext[h] = highHead[v];
+    if (highHead[v] >= 0) {
+      highPrev[highHead[v]] = h;
+    }
+    highHead[v] = h;
+    return h;
+  }
+
+  private void deleteHigh(int e) {
+    int h = inHigh[e];
+    if (h < 0) {
+      return;
+    }
+    int v = highOwner[h];
+    if (highPrev[h] >= 0) {
+      highNext[highPrev[h]] = highNext[h];
+    }
+    else {
+      highHead[v] = highNext[h];
+    }
+    if (highNext[h] >= 0) {
+      highPrev[highNext[h]] = highPrev[h];
+    }
+    inHigh[e] = -1;
+  }
+
+  /*
+   * the second depth-first search, dividing the palm tree into paths,
+   * renumbering the vertices and listing the fronds entering
+   * each vertex
+   */
+  private void findPaths() {
+    newnum = new int[n];
+    nodeAt = new int[n + 1];
+    highValue = new int[m + 1];
+    highNext = new int[m + 1];
+    highPrev = new int[m + 1];
+    highOwner = new int[m + 1];
+    highHead = new int[n];
+    int[] highTail = new int[n];
+    Arrays.fill(highHead, -1);
+    Arrays.fill(highTail, -1);
+
+    int[] stack = new int[n];
+    int[] cur = new int[n];
+    int sp = 0;
+    int numCount = n;
+    boolean newPath = true;
+
+    stack[sp++] = root;
+    newnum[root] = numCount - nd[root] + 1;
+    cur[root] = adjHead[root];
+
+    while (sp > 0) {
+      int v = stack[sp - 1];
+      int slot = cur[v];
+      if (slot < 0) {
+        sp--;
+        if (sp > 0) {
+          numCount--;
+        }
+        continue;
+      }
+      cur[v] = slotNext[slot];
+      int e = slotEdge[slot];
+      int w = tgt[e];
+      if (newPath) {
+        newPath = false;
+        start[e] = true;
+      }
+      if (type[e] == TREE) {
+        newnum[w] = numCount - nd[w] + 1;
+        cur[w] = adjHead[w];
+        stack[sp++] = w;
+      }
+      else {
+        int h = newHigh(w, newnum[v]);
+        highNext[h] = -1;
+        highPrev[h] = highTail[w];
+        if (highTail[w] >= 0) {
+          highNext[highTail[w]] = h;
+        }
+        else {
+          highHead[w] = h;
+        }
+        highTail[w] = h;
+        inHigh[e] = h;
+        newPath = true;
+      }
+    }
+
+    int[] old2new = new int[n + 1];
+    for (int v = 0; v < n; v++) {
+      old2new[number[v]] = newnum[v];
+    }
+    for (int v = 0; v < n; v++) {
+      nodeAt[newnum[v]] = v;
+      lowpt1[v] = old2new[lowpt1[v]];
+      lowpt2[v] = old2new[lowpt2[v]];
+    }
+  }
+
+  private void estackPush(int e) {
+    if (esp == estack.length) {
+      estack = Arrays.copyOf(estack, 2 * esp);
+    }
+    estack[esp++] = e;
+  }
+
+  private void tstackPush(int h, int a, int b) {
+    top++;
+    th[top] = h;
+    ta[top] = a;
+    tb[top] = b;
+  }
+
+  private void tstackPushEOS() {
+    ta[++top] = -1;
+  }
+
+  private boolean tstackNotEOS() {
+    return ta[top] != -1;
+  }
+
+  private void newComponent(int type) {
+    if (nComps + 1 >= compStart.length) {
+      compStart = Arrays.copyOf(compStart, 2 * compStart.length);
+      compType = Arrays.copyOf(compType, 2 * compType.length);
+    }
+    compType[nComps] = (byte) type;
+    compStart[nComps] = nCompEdges;
+    nComps++;
+    compStart[nComps] = nCompEdges;
+  }
+
+  private void addToComponent(int e) {
+    if (nCompEdges == compEdges.length) {
+      compEdges = Arrays.copyOf(compEdges, 2 * nCompEdges);
+    }
+    compEdges[nCompEdges++] = e;
+    compStart[nComps] = nCompEdges;
+  }
+
+  /*
+   * the path search finding the separation pairs and
+   * splitting off the split components, with the frames of
+   * the recursion kept in explicit stacks
+   */
+  private void searchPaths() {
+    estack = new int[m + 1];
+    th = new int[2 * m + 2];
+    ta = new int[2 * m + 2];
+    tb = new int[2 * m + 2];
+    top = 0;
+    ta[top] = -1;
+    compEdges = new int[2 * m + 2];
+    compStart = new int[m + 2];
+    compType = new byte[m + 2];
+
+    int[] frameSlot = new int[n];
+    int[] frameNext = new int[n];
+    int[] frameOut = new int[n];
+    int[] frameArc = new int[n];
+    boolean[] returning = new boolean[n];
+    int[] frameVertex = new int[n];
+    int sp = 0;
+
+    frameVertex[0] = root;
+    frameSlot[0] = adjHead[root];
+    frameOut[0] = adjSize[root];
+
+    while (sp >= 0) {
+      int v = frameVertex[sp];
+      int vnum = newnum[v];
+
+      if (!returning[sp]) {
+        int it = frameSlot[sp];
+        if (it < 0) {
+          sp--;
+          if (sp >= 0) {
+            returning[sp] = true;
+          }
+          continue;
+        }
+        frameNext[sp] = slotNext[it];
+        int e = slotEdge[it];
+        int w = tgt[e];
+        int wnum = newnum[w];
+        if (type[e] == TREE) {
+          if (start[e]) {
+            int y = 0;
+            if (ta[top] > lowpt1[w]) {
+              int b;
+              do {
+                y = Math.max(y, th[top]);
+                b = tb[top--];
+              } while (ta[top] > lowpt1[w]);
+              tstackPush(y, lowpt1[w], b);
+            }
+            else {
+              tstackPush(wnum + nd[w] - 1, lowpt1[w], vnum);
+            }
+            tstackPushEOS();
+          }
+          frameArc[sp] = e;
+          sp++;
+          frameVertex[sp] = w;
+          frameSlot[sp] = adjHead[w];
+          frameOut[sp] = adjSize[w];
+          returning[sp] = false;
+        }
+        else {
+          if (start[e]) {
+            int y = 0;
+            if (ta[top] > wnum) {
+              int b;
+              do {
+                y = Math.max(y, th[top]);
+                b = tb[top--];
+              } while (ta[top] > wnum);
+              tstackPush(y, wnum, b);
+            }
+            else {
+              tstackPush(vnum, wnum, vnum);
+            }
+          }
+          estackPush(e);
+          frameSlot[sp] = frameNext[sp];
+        }
+        continue;
+      }
+
+      returning[sp] = false;
+      int it = frameSlot[sp];
+      int e = frameArc[sp];
+      int w = tgt[e];
+      int wnum = newnum[w];
+
+      estackPush(treeArc[w]);
+
+      while (vnum != 1 && (ta[top] == vnum ||
+          (degree[w] == 2 && newnum[firstChild(w)] > wnum))) {
+        int a = ta[top];
+        int b = tb[top];
+
+        if (a == vnum && father[nodeAt[b]] == nodeAt[a]) {
+          top--;
+          continue;
+        }
+
+        int eab = -1;
+        int eVirt;
+        int x;
+        if (degree[w] == 2 && newnum[firstChild(w)] > wnum) {
+          int e1 = estack[--esp];
+          int e2 = estack[--esp];
+          deleteSlot(w, inAdj[e2]);
+          x = tgt[e2];
+          eVirt = newEdge(v, x);
+          degree[x]--;
+          degree[v]--;
+          newComponent(POLYGON);
+          addToComponent(e1);
+          addToComponent(e2);
+          addToComponent(eVirt);
+          if (esp > 0) {
+            e1 = estack[esp - 1];
+            if (src[e1] == x && tgt[e1] == v) {
+              eab = estack[--esp];
+              deleteSlot(x, inAdj[eab]);
+              deleteHigh(eab);
+            }
+          }
+        }
+        else {
+          int h = th[top--];
+          newComponent(TRICONNECTED);
+          while (esp > 0) {
+            int xe = estack[esp - 1];
+            int s = newnum[src[xe]];
+            int t = newnum[tgt[xe]];
+            if (!(a <= s && s <= h && a <= t && t <= h)) {
+              break;
+            }
+            esp--;
+            if ((s == a && t == b) || (t == a && s == b)) {
+              eab = xe;
+              deleteSlot(src[eab], inAdj[eab]);
+              deleteHigh(eab);
+            }
+            else {
+              if (it != inAdj[xe]) {
+                deleteSlot(src[xe], inAdj[xe]);
+                deleteHigh(xe);
+              }
+              addToComponent(xe);
+              degree[src[xe]]--;
+              degree[tgt[xe]]--;
+            }
+          }
+          eVirt = newEdge(nodeAt[a], nodeAt[b]);
+          addToComponent(eVirt);
+          x = nodeAt[b];
+        }
+
+        if (eab >= 0) {
+          newComponent(BOND);
+          addToComponent(eab);
+          addToComponent(eVirt);
+          eVirt = newEdge(v, x);
+          addToComponent(eVirt);
+          degree[x]--;
+          degree[v]--;
+        }
+
+        estackPush(eVirt);
+        slotEdge[it] = eVirt;
+        inAdj[eVirt] = it;
+        degree[x]++;
+        degree[v]++;
+        father[x] = v;
+        treeArc[x] = eVirt;
+        type[eVirt] = TREE;
+        w = x;
+        wnum = newnum[w];
+      }
+
+      if (lowpt2[w] >= vnum && lowpt1[w] < vnum &&
+          (father[v] != root || frameOut[sp] >= 2)) {
+        newComponent(TRICONNECTED);
+        int xx = 0;
+        int y = 0;
+        while (esp > 0) {
+          int xe = estack[esp - 1];
+          xx = newnum[src[xe]];
+          y = newnum[tgt[xe]];
+          if (!((wnum <= xx && xx < wnum + nd[w]) ||
+              (wnum <= y && y < wnum + nd[w]))) {
+            break;
+          }
+          esp--;
+          addToComponent(xe);
+          deleteHigh(xe);
+          degree[src[xe]]--;
+          degree[tgt[xe]]--;
+        }
+
+        int lw = nodeAt[lowpt1[w]];
+        int eVirt = newEdge(v, lw);
+        addToComponent(eVirt);
+
+        if ((xx == vnum && y == lowpt1[w]) ||
+            (y == vnum && xx == lowpt1[w])) {
+          newComponent(BOND);
+          int eh = estack[--esp];
+          if (it != inAdj[eh]) {
+            deleteSlot(src[eh], inAdj[eh]);
+          }
+          addToComponent(eh);
+          addToComponent(eVirt);
+          eVirt = newEdge(v, lw);
+          addToComponent(eVirt);
+          inHigh[eVirt] = inHigh[eh];
+          degree[v]--;
+          degree[lw]--;
+        }
+
+        if (lw != father[v]) {
+          estackPush(eVirt);
+          slotEdge[it] = eVirt;
+          inAdj[eVirt] = it;
+          if (inHigh[eVirt] < 0 && high(lw) < vnum) {
+            inHigh[eVirt] = pushFrontHigh(lw, vnum);
+          }
+          degree[v]++;
+          degree[lw]++;
+        }
+        else {
+          deleteSlot(v, it);
+          newComponent(BOND);
+          addToComponent(eVirt);
+          eVirt = newEdge(lw, v);
+          addToComponent(eVirt);
+          int eh = treeArc[v];
+          addToComponent(eh);
+          treeArc[v] = eVirt;
+          type[eVirt] = TREE;
+          inAdj[eVirt] = inAdj[eh];
+          slotEdge[inAdj[eh]] = eVirt;
+        }
+      }
+
+      if (start[e]) {
+        while (tstackNotEOS()) {
+          top--;
+        }
+        top--;
+      }
+
+      while (tstackNotEOS() && tb[top] != vnum && high(v) > th[top]) {
+        top--;
+      }
+
+      frameOut[sp]--;
+      frameSlot[sp] = frameNext[sp];
+    }
+
+    newComponent(TRICONNECTED);
+    while (esp > 0) {
+      addToComponent(estack[--esp]);
+    }
+  }
+
+  /*
+   * merges the bonds and polygons sharing virtual edges into
+   * maximal ones and builds the components and virtual edges
+   */
+  private void assemble() {
+    int[] edgeComp1 = new int[m];
+    int[] edgeComp2 = new int[m];
+    Arrays.fill(edgeComp1, -1);
+    Arrays.fill(edgeComp2, -1);
+    int[] mark = new int[n];
+    int stamp = 0;
+
+    for (int c = 0; c < nComps; c++) {
+      int size = compStart[c + 1] - compStart[c];
+      if (size == 0) {
+        compType[c] = -1;
+        continue;
+      }
+      stamp++;
+      int vertices = 0;
+      for (int i = compStart[c]; i < compStart[c + 1]; i++) {
+        int e = compEdges[i];
+        if (edgeComp1[e] < 0) {
+          edgeComp1[e] = c;
+        }
+        else {
+          edgeComp2[e] = c;
+        }
+        if (mark[src[e]] != stamp) {
+          mark[src[e]] = stamp;
+          vertices++;
+        }
+        if (mark[tgt[e]] != stamp) {
+          mark[tgt[e]] = stamp;
+          vertices++;
+        }
+      }
+      if (vertices == 2) {
+        compType[c] = BOND;
+      }
+      else if (vertices == size) {
+        compType[c] = POLYGON;
+      }
+      else {
+        compType[c] = TRICONNECTED;
+      }
+    }
+
+    int[] parent = new int[nComps];
+    for (int c = 0; c < nComps; c++) {
+      parent[c] = c;
+    }
+    boolean[] merged = new boolean[m];
+    for (int e = realEdges; e < m; e++) {
+      int c1 = edgeComp1[e];
+      int c2 = edgeComp2[e];
+      if (c1 < 0 || c2 < 0) {
+        continue;
+      }
+      if (compType[c1] == compType[c2] && compType[c1] != TRICONNECTED) {
+        merged[e] = true;
+        int r1 = find(parent, c1);
+        int r2 = find(parent, c2);
+        if (r1 != r2) {
+          parent[r2] = r1;
+        }
+      }
+    }
+
+    int[] memberCount = new int[nComps + 1];
+    for (int c = 0; c < nComps; c++) {
+      if (compType[c] >= 0) {
+        memberCount[find(parent, c) + 1] += compStart[c + 1] - compStart[c];
+      }
+    }
+    for (int c = 0; c < nComps; c++) {
+      memberCount[c + 1] += memberCount[c];
+    }
+    int[] nodeEdges = new int[memberCount[nComps]];
+    int[] fill = Arrays.copyOf(memberCount, nComps);
+    for (int c = 0; c < nComps; c++) {
+      if (compType[c] < 0) {
+        continue;
+      }
+      int r = find(parent, c);
+      for (int i = compStart[c]; i < compStart[c + 1]; i++) {
+        int e = compEdges[i];
+        if (!merged[e]) {
+          nodeEdges[fill[r]++] = e;
+        }
+      }
+    }
+
+    Component[] componentOf = new Component[nComps];
+    int[] next1 = new int[n];
+    int[] next2 = new int[n];
+    for (int c = 0; c < nComps; c++) {
+      if (compType[c] < 0 || find(parent, c) != c) {
+        continue;
+      }
+      int from = memberCount[c];
+      int to = fill[c];
+      int[] vertices;
+      if (compType[c] == POLYGON) {
+        for (int i = from; i < to; i++) {
+          int e = nodeEdges[i];
+          next1[src[e]] = next2[src[e]] = -1;
+          next1[tgt[e]] = next2[tgt[e]] = -1;
+        }
+        for (int i = from; i < to; i++) {
+          int e = nodeEdges[i];
+          link(next1, next2, src[e], tgt[e]);
+          link(next1, next2, tgt[e], src[e]);
+        }
+        vertices = new int[to - from];
+        int prev = -1;
+        int v = src[nodeEdges[from]];
+        for (int k = 0; k < vertices.length; k++) {
+          vertices[k] = v;
+          int w = next1[v] != prev ? next1[v] : next2[v];
+          prev = v;
+          v = w;
+        }
+      }
+      else {
+        stamp++;
+        int count = 0;
+        int[] buffer = new int[2 * (to - from)];
+        for (int i = from; i < to; i++) {
+          int e = nodeEdges[i];
+          if (mark[src[e]] != stamp) {
+            mark[src[e]] = stamp;
+            buffer[count++] = src[e];
+          }
+          if (mark[tgt[e]] != stamp) {
+            mark[tgt[e]] = stamp;
+            buffer[count++] = tgt[e];
+          }
+        }
+        vertices = Arrays.copyOf(buffer, count);
+        Arrays.sort(vertices);
+      }
+      Component component = new Component(compType[c], vertices);
+      componentOf[c] = component;
+      components.add(component);
+    }
+
+    for (int e = realEdges; e < m; e++) {
+      if (merged[e] || edgeComp1[e] < 0 || edgeComp2[e] < 0) {
+        continue;
+      }
+      Component c1 = componentOf[find(parent, edgeComp1[e])];
+      Component c2 = componentOf[find(parent, edgeComp2[e])];
+      VirtualEdge ve = new VirtualEdge(src[e], tgt[e], c1, c2);
+      c1.virtualEdges.add(ve);
+      c2.virtualEdges.add(ve);
+      virtualEdges.add(ve);
+    }
+  }
+
+  private static void link(int[] next1, int[] next2, int v, int w) {
+    if (next1[v] < 0) {
+      next1[v] = w;
+    }
+    else {
+      next2[v] = w;
+    }
+  }
+
+  private static int find(int[] parent, int c) {
+    while (parent[c] != c) {
+      parent[c] = parent[parent[c]];
+      c = parent[c];
+    }
+    return c;
+  }
+}
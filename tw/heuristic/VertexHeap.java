@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2017, Takuto Sato and Hiromu Ohtsuka
+ */
+
+package tw.heuristic;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * A binary min-heap of vertices keyed by integer costs, ties broken
+ * by the vertex numbers or by a random ranking of the vertices, in
+ * which the position of each vertex is indexed so that its cost can
+ * be changed in place.
+ */
+public class VertexHeap {
+  private int[] heap;
+  private int[] position;
+  private int[] cost;
+  private int[] rank;
+  private int size;
+
+  /**
+   * Creates an empty heap for the vertices 0, ..., n - 1
+   * @param n the number of vertices
+   */
+  public VertexHeap(int n) {
+    heap = new int[n];
+    position = new int[n];
+    cost = new int[n];
+    Arrays.fill(position, -1);
+  }
+
+  /**
+   * Creates an empty heap for the vertices 0, ..., n - 1, in which
+   * the ties are broken by a random permutation of the vertices
+   * @param n the number of vertices
+   * @param random the source of the permutation, or {@code null}
+   * for the ties to be broken by the vertex numbers
+   */
+  public VertexHeap(int n, Random random) {
+    this(n);
+    if (random != null) {
+      rank = new int[n];
+      for (int v = 0; v < n; v++) {
+        int j = random.nextInt(v + 1);
+        rank[v] = rank[j];
+        rank[j] = v;
+      }
+    }
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public boolean contains(int v) {
+    return position[v] >= 0;
+  }
+
+  /**
+   * @param v a vertex in the heap
+   * @return the cost of the vertex
+   */
+  public int costOf(int v) {
+    return cost[v];
+  }
+
+  /**
+   * Adds a vertex not in the heap
+   * @param v the vertex
+   * @param c its cost
+   */
+  public void add(int v, int c) {
+    cost[v] = c;
+    heap[size] = v;
+    position[v] = size;
+    siftUp(size++);
+  }
+
+  /**
+   * @return the vertex of the smallest cost, without removing it
+   */
+  public int peek() {
+    return heap[0];
+  }
+
+  /**
+   * Removes the vertex of the smallest cost
+   * @return the vertex removed
+   */
+  public int poll() {
+    int v = heap[0];
+    remove(v);
+    return v;
+  }
+
+  /**
+   * Removes a vertex, if it is in the heap
+   * @param v the vertex
+   */
+  public void remove(int v) {
+    int i = position[v];
+    if (i < 0) {
+      return;
+    }
+    position[v] = -1;
+    size--;
+    if (i == size) {
+      return;
+    }
+    int last = heap[size];
+    heap[i] = last;
+    position[last] = i;
+    siftDown(i);
+    siftUp(position[last]);
+  }
+
+  /**
+   * Changes the cost of a vertex in the heap
+   * @param v the vertex
+   * @param c the new cost
+   */
+  public void update(int v, int c) {
+    int old = cost[v];
+    cost[v] = c;
+    if (c < old) {
+      siftUp(position[v]);
+    }
+    else if (c > old) {
+      siftDown(position[v]);
+    }
+  }
+
+  private boolean less(int v, int w) {
+    if (cost[v] != cost[w]) {
+      return cost[v] < cost[w];
+    }
+    if (rank != null) {
+      return rank[v] < rank[w];
+    }
+    return v < w;
+  }
+
+  private void siftUp(int i) {
+    int v = heap[i];
+    while (i > 0) {
+      int p = (i - 1) / 2;
+      if (!less(v, heap[p])) {
+        break;
+      }
+      heap[i] = heap[p];
+      position[heap[i]] = i;
+      i = p;
+    }
+    heap[i] = v;
+    position[v] = i;
+  }
+
+  private void siftDown(int i) {
+    int v = heap[i];
+    while (true) {
+      int c = 2 * i + 1;
+      if (c >= size) {
+        break;
+      }
+      if (c + 1 < size && less(heap[c + 1], heap[c])) {
+        c++;
+      }
+      if (!less(heap[c], v)) {
+        break;
+      }
+      heap[i] = heap[c];
+      position[heap[i]] = i;
+      i = c;
+    }
+    heap[i] = v;
+    position[v] = i;
+  }
+}